@@ -0,0 +1,240 @@
+package com.taskmanager.cluster;
+
+import com.taskmanager.service.ExternalUserChangedEvent;
+import com.taskmanager.service.TaskChangedEvent;
+import com.taskmanager.service.TaskGroupChangedEvent;
+import com.taskmanager.service.TasksImportedEvent;
+import com.taskmanager.service.UserChangedEvent;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.postgresql.PGConnection;
+import org.postgresql.PGNotification;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+
+// Szyna zdarzeń między instancjami backendu na LISTEN/NOTIFY Postgresa - bez zewnętrznego brokera.
+// NOTIFY wysłany w transakcji dociera do innych węzłów dopiero po jej commicie (i wcale po rollbacku).
+@Slf4j
+@Component
+public class ClusterBus implements ApplicationRunner {
+
+    private static final int POLL_TIMEOUT_MS = 500;
+    // Klucz IMPORT z zapasem na temat, ID węzła i separatory w MAX_PAYLOAD_LENGTH
+    private static final int IMPORT_KEY_LENGTH = 7500;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final DataSourceProperties dataSourceProperties;
+    private final ApplicationEventPublisher eventPublisher;
+    private final boolean enabled;
+    private final String channel;
+    private final String nodeId;
+    private final Duration reconnectDelay;
+
+    private volatile boolean running = true;
+    private volatile Connection listenerConnection;
+
+    public ClusterBus(JdbcTemplate jdbcTemplate,
+                      DataSourceProperties dataSourceProperties,
+                      ApplicationEventPublisher eventPublisher,
+                      @Value("${app.cluster.enabled:true}") boolean enabled,
+                      @Value("${app.cluster.channel:task_manager_events}") String channel,
+                      @Value("${app.cluster.node-id:}") String nodeId,
+                      @Value("${app.cluster.reconnect-delay:5s}") Duration reconnectDelay) {
+        // Nazwa kanału trafia do LISTEN jako identyfikator - nie da się jej przekazać parametrem
+        if (!channel.matches("[a-z_][a-z0-9_]*")) {
+            throw new IllegalStateException("Invalid cluster channel name: " + channel);
+        }
+        this.jdbcTemplate = jdbcTemplate;
+        this.dataSourceProperties = dataSourceProperties;
+        this.eventPublisher = eventPublisher;
+        this.enabled = enabled;
+        this.channel = channel;
+        this.nodeId = StringUtils.hasText(nodeId) ? nodeId : UUID.randomUUID().toString().substring(0, 8);
+        this.reconnectDelay = reconnectDelay;
+    }
+
+    public String getNodeId() {
+        return nodeId;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        if (!enabled) {
+            return;
+        }
+        Thread listener = new Thread(this::listenLoop, "cluster-bus-listener");
+        listener.setDaemon(true);
+        listener.start();
+    }
+
+    // Wywoływane w transakcji zapisu - NOTIFY idzie tym samym połączeniem co zmiana
+    public void publish(ClusterMessage.Topic topic, String key) {
+        if (!enabled || key == null) {
+            return;
+        }
+        String payload = new ClusterMessage(topic, nodeId, key).encode();
+        if (payload.length() > ClusterMessage.MAX_PAYLOAD_LENGTH) {
+            log.warn("Cluster message too long, broadcasting resync instead of {}", topic);
+            payload = new ClusterMessage(ClusterMessage.Topic.RESYNC, nodeId, "").encode();
+        }
+        jdbcTemplate.query("SELECT pg_notify(?, ?)", rs -> null, channel, payload);
+    }
+
+    // Wiele kluczy jednym zapytaniem (np. synchronizacja tysięcy użytkowników) zamiast NOTIFY per klucz
+    public void publishAll(ClusterMessage.Topic topic, Collection<String> keys) {
+        if (!enabled || keys.isEmpty()) {
+            return;
+        }
+        List<String> payloads = new ArrayList<>(keys.size());
+        for (String key : keys) {
+            String payload = new ClusterMessage(topic, nodeId, key).encode();
+            if (payload.length() > ClusterMessage.MAX_PAYLOAD_LENGTH) {
+                log.warn("Cluster message too long, broadcasting resync instead of {}", topic);
+                publish(ClusterMessage.Topic.RESYNC, "");
+                return;
+            }
+            payloads.add(payload);
+        }
+        jdbcTemplate.query("SELECT pg_notify(?, payload) FROM unnest(CAST(? AS text[])) AS payload",
+                rs -> null, channel, payloads.toArray(new String[0]));
+    }
+
+    @PreDestroy
+    public void stop() {
+        running = false;
+        Connection connection = listenerConnection;
+        if (connection != null) {
+            try {
+                connection.close();
+            } catch (SQLException e) {
+                // Zamykamy i tak przy wyłączaniu aplikacji
+            }
+        }
+    }
+
+    // Osobne połączenie poza pulą - LISTEN trzyma je przez cały czas życia aplikacji
+    private void listenLoop() {
+        boolean reconnect = false;
+        while (running) {
+            try (Connection connection = DriverManager.getConnection(dataSourceProperties.determineUrl(),
+                    dataSourceProperties.determineUsername(), dataSourceProperties.determinePassword())) {
+                listenerConnection = connection;
+                try (Statement statement = connection.createStatement()) {
+                    statement.execute("LISTEN " + channel);
+                }
+                PGConnection pgConnection = connection.unwrap(PGConnection.class);
+                log.info("Cluster bus listening on channel {} as node {}", channel, nodeId);
+
+                // Zdarzenia z czasu bez połączenia przepadły - lokalne cache muszą się odświeżyć w całości
+                if (reconnect) {
+                    eventPublisher.publishEvent(new ClusterEvent(ClusterMessage.Topic.RESYNC, nodeId));
+                }
+                reconnect = true;
+
+                while (running) {
+                    PGNotification[] notifications = pgConnection.getNotifications(POLL_TIMEOUT_MS);
+                    if (notifications == null) {
+                        continue;
+                    }
+                    for (PGNotification notification : notifications) {
+                        dispatch(notification.getParameter());
+                    }
+                }
+            } catch (SQLException e) {
+                if (!running) {
+                    break;
+                }
+                log.warn("Cluster bus connection lost ({}), reconnecting in {}", e.getMessage(), reconnectDelay);
+                try {
+                    Thread.sleep(reconnectDelay.toMillis());
+                } catch (InterruptedException interrupted) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            } finally {
+                listenerConnection = null;
+            }
+        }
+    }
+
+    // Zdarzenia z innych węzłów publikujemy lokalnie jako zwykłe zdarzenia Springa (remote = true)
+    private void dispatch(String payload) {
+        ClusterMessage message = ClusterMessage.decode(payload);
+        if (message == null || nodeId.equals(message.nodeId())) {
+            return;
+        }
+        try {
+            switch (message.topic()) {
+                case TASK -> eventPublisher.publishEvent(decodeTaskChange(message.key()));
+                case EXTERNAL_USER -> eventPublisher.publishEvent(new ExternalUserChangedEvent(message.key(), true));
+                case USER -> eventPublisher.publishEvent(new UserChangedEvent(message.key(), true));
+                case GROUP -> eventPublisher.publishEvent(new TaskGroupChangedEvent(Long.valueOf(message.key()), true));
+                case IMPORT -> eventPublisher.publishEvent(decodeImport(message.key()));
+                default -> eventPublisher.publishEvent(new ClusterEvent(message.topic(), message.key()));
+            }
+        } catch (RuntimeException e) {
+            log.warn("Could not apply cluster message {}", payload, e);
+        }
+    }
+
+    static String encodeTaskChange(TaskChangedEvent event) {
+        return event.type().name().charAt(0) + ":" + event.taskId();
+    }
+
+    // ID paczki importu podzielone na klucze mieszczące się w limicie NOTIFY
+    static List<String> encodeImport(TasksImportedEvent event) {
+        List<String> keys = new ArrayList<>();
+        String prefix = event.clerkUserId() + ":";
+        StringBuilder key = new StringBuilder(prefix);
+        for (Long taskId : event.taskIds()) {
+            if (key.length() > prefix.length() && key.length() + 21 > IMPORT_KEY_LENGTH) {
+                keys.add(key.toString());
+                key.setLength(prefix.length());
+            }
+            if (key.length() > prefix.length()) {
+                key.append(',');
+            }
+            key.append(taskId);
+        }
+        if (key.length() > prefix.length()) {
+            keys.add(key.toString());
+        }
+        return keys;
+    }
+
+    static TasksImportedEvent decodeImport(String key) {
+        int separator = key.lastIndexOf(':');
+        List<Long> taskIds = new ArrayList<>();
+        for (String taskId : key.substring(separator + 1).split(",")) {
+            taskIds.add(Long.valueOf(taskId));
+        }
+        return new TasksImportedEvent(key.substring(0, separator), taskIds, true);
+    }
+
+    static TaskChangedEvent decodeTaskChange(String key) {
+        char code = key.charAt(0);
+        Long taskId = Long.valueOf(key.substring(2));
+        for (TaskChangedEvent.ChangeType type : TaskChangedEvent.ChangeType.values()) {
+            if (type.name().charAt(0) == code) {
+                return new TaskChangedEvent(taskId, type, true);
+            }
+        }
+        throw new IllegalArgumentException("Unknown task change code: " + code);
+    }
+}
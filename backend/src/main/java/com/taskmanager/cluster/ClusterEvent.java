@@ -0,0 +1,5 @@
+package com.taskmanager.cluster;
+
+// Zdarzenie z innego węzła bez odpowiednika domenowego (WRITE, RESYNC) - publikowane lokalnie przez ClusterBus
+public record ClusterEvent(ClusterMessage.Topic topic, String key) {
+}
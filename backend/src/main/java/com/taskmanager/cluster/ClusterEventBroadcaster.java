@@ -0,0 +1,81 @@
+package com.taskmanager.cluster;
+
+import com.taskmanager.config.ReadYourWritesTracker;
+import com.taskmanager.service.ExternalUserChangedEvent;
+import com.taskmanager.service.ExternalUsersSyncedEvent;
+import com.taskmanager.service.TaskChangedEvent;
+import com.taskmanager.service.TaskGroupChangedEvent;
+import com.taskmanager.service.TasksImportedEvent;
+import com.taskmanager.service.UserChangedEvent;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+// Lokalne zmiany -> NOTIFY. BEFORE_COMMIT: powiadomienie jest częścią tej samej transakcji co zapis
+@Component
+@RequiredArgsConstructor
+public class ClusterEventBroadcaster {
+
+    private final ClusterBus clusterBus;
+
+    @TransactionalEventListener(phase = TransactionPhase.BEFORE_COMMIT, fallbackExecution = true)
+    public void onTaskChanged(TaskChangedEvent event) {
+        if (event.remote()) {
+            return;
+        }
+        clusterBus.publish(ClusterMessage.Topic.TASK, ClusterBus.encodeTaskChange(event));
+        publishWriteMarker();
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.BEFORE_COMMIT, fallbackExecution = true)
+    public void onExternalUserChanged(ExternalUserChangedEvent event) {
+        if (event.remote()) {
+            return;
+        }
+        clusterBus.publish(ClusterMessage.Topic.EXTERNAL_USER, event.userId());
+        publishWriteMarker();
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.BEFORE_COMMIT, fallbackExecution = true)
+    public void onExternalUsersSynced(ExternalUsersSyncedEvent event) {
+        clusterBus.publishAll(ClusterMessage.Topic.EXTERNAL_USER, event.changedUserIds());
+        publishWriteMarker();
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.BEFORE_COMMIT, fallbackExecution = true)
+    public void onUserChanged(UserChangedEvent event) {
+        if (event.remote()) {
+            return;
+        }
+        clusterBus.publish(ClusterMessage.Topic.USER, event.username());
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.BEFORE_COMMIT, fallbackExecution = true)
+    public void onTaskGroupChanged(TaskGroupChangedEvent event) {
+        if (event.remote()) {
+            return;
+        }
+        clusterBus.publish(ClusterMessage.Topic.GROUP, event.groupId().toString());
+        publishWriteMarker();
+    }
+
+    // Import paczkowy nie ma zdarzeń per zadanie - ID paczki idą kilkoma wiadomościami IMPORT, nie RESYNC
+    // (RESYNC przebudowuje indeksy w całości i czyści cache principali na każdym węźle)
+    @TransactionalEventListener(phase = TransactionPhase.BEFORE_COMMIT, fallbackExecution = true)
+    public void onTasksImported(TasksImportedEvent event) {
+        if (event.remote()) {
+            return;
+        }
+        clusterBus.publishAll(ClusterMessage.Topic.IMPORT, ClusterBus.encodeImport(event));
+        publishWriteMarker();
+    }
+
+    // Kolejne żądanie użytkownika może trafić na inny węzeł - tam też ma czytać z primary
+    private void publishWriteMarker() {
+        String userKey = ReadYourWritesTracker.currentUserKey();
+        if (userKey != null) {
+            clusterBus.publish(ClusterMessage.Topic.WRITE, userKey);
+        }
+    }
+}
@@ -0,0 +1,49 @@
+package com.taskmanager.cluster;
+
+// Zwięzły payload NOTIFY: "<topic>|<nodeId>|<key>" (limit Postgresa to 8000 bajtów)
+public record ClusterMessage(Topic topic, String nodeId, String key) {
+
+    static final int MAX_PAYLOAD_LENGTH = 7900;
+
+    public enum Topic {
+        TASK("t"),          // key: "<C|U|D>:<taskId>"
+        EXTERNAL_USER("u"), // key: ID użytkownika zewnętrznego
+        USER("a"),          // key: username konta (stary JWT)
+        GROUP("g"),         // key: ID grupy (skład / udostępnienia)
+        IMPORT("i"),        // key: "<clerkUserId>:<taskId>,<taskId>,..." - paczka zaimportowanych zadań
+        WRITE("w"),         // key: użytkownik, który właśnie zapisał (read-your-writes na innych węzłach)
+        RESYNC("r");        // lokalnie po ponownym połączeniu - zdarzenia z przerwy mogły przepaść
+
+        private final String code;
+
+        Topic(String code) {
+            this.code = code;
+        }
+
+        static Topic fromCode(String code) {
+            for (Topic topic : values()) {
+                if (topic.code.equals(code)) {
+                    return topic;
+                }
+            }
+            return null;
+        }
+    }
+
+    public String encode() {
+        return topic.code + "|" + nodeId + "|" + key;
+    }
+
+    // null dla nieznanego formatu (np. nowszy węzeł w trakcie wdrożenia)
+    public static ClusterMessage decode(String payload) {
+        if (payload == null) {
+            return null;
+        }
+        String[] parts = payload.split("\\|", 3);
+        if (parts.length < 3) {
+            return null;
+        }
+        Topic topic = Topic.fromCode(parts[0]);
+        return topic != null ? new ClusterMessage(topic, parts[1], parts[2]) : null;
+    }
+}
@@ -0,0 +1,38 @@
+package com.taskmanager.config;
+
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+// Kieruje transakcje readOnly na pulę odczytu, a wszystko inne na primary
+public class ReadWriteRoutingDataSource extends AbstractRoutingDataSource {
+
+    public enum Route {
+        PRIMARY,
+        READ
+    }
+
+    private final ReadYourWritesTracker readYourWritesTracker;
+
+    public ReadWriteRoutingDataSource(ReadYourWritesTracker readYourWritesTracker) {
+        this.readYourWritesTracker = readYourWritesTracker;
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        String userKey = ReadYourWritesTracker.currentUserKey();
+
+        if (!TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            // Transakcja zapisująca - zapamiętujemy, żeby kolejne odczyty tego użytkownika widziały zmiany
+            if (TransactionSynchronizationManager.isActualTransactionActive()) {
+                readYourWritesTracker.recordWrite(userKey);
+            }
+            return Route.PRIMARY;
+        }
+
+        // Replika może być opóźniona - tuż po własnym zapisie czytamy z primary
+        if (readYourWritesTracker.isWithinWindow(userKey)) {
+            return Route.PRIMARY;
+        }
+        return Route.READ;
+    }
+}
@@ -0,0 +1,61 @@
+package com.taskmanager.config;
+
+import com.taskmanager.cluster.ClusterEvent;
+import com.taskmanager.cluster.ClusterMessage;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Pamięta kiedy użytkownik ostatnio coś zapisał, żeby jego odczyty przez chwilę szły na primary
+@Component
+public class ReadYourWritesTracker {
+
+    // Powyżej tego rozmiaru czyścimy przeterminowane wpisy przy zapisie
+    private static final int CLEANUP_THRESHOLD = 10_000;
+
+    private final Map<String, Long> lastWriteMillis = new ConcurrentHashMap<>();
+    private final long windowMillis;
+
+    public ReadYourWritesTracker(@Value("${app.datasource.read.read-your-writes-window:5s}") Duration window) {
+        this.windowMillis = window.toMillis();
+    }
+
+    public void recordWrite(String userKey) {
+        if (userKey == null || windowMillis <= 0) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        lastWriteMillis.put(userKey, now);
+        if (lastWriteMillis.size() > CLEANUP_THRESHOLD) {
+            lastWriteMillis.values().removeIf(time -> now - time > windowMillis);
+        }
+    }
+
+    // Zapis tego użytkownika na innym węźle - jego następne żądanie może przyjść tutaj
+    @EventListener
+    public void onClusterEvent(ClusterEvent event) {
+        if (event.topic() == ClusterMessage.Topic.WRITE) {
+            recordWrite(event.key());
+        }
+    }
+
+    public boolean isWithinWindow(String userKey) {
+        if (userKey == null) {
+            return false;
+        }
+        Long lastWrite = lastWriteMillis.get(userKey);
+        return lastWrite != null && System.currentTimeMillis() - lastWrite <= windowMillis;
+    }
+
+    // Clerk User ID (albo username dla starego JWT) z bieżącego żądania
+    public static String currentUserKey() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        return authentication != null && authentication.isAuthenticated() ? authentication.getName() : null;
+    }
+}
@@ -0,0 +1,58 @@
+package com.taskmanager.config;
+
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.http.converter.smile.MappingJackson2SmileHttpMessageConverter;
+
+import java.util.Comparator;
+import java.util.List;
+
+// Negocjacja formatu: te same DTO w JSON, CBOR albo Smile (Accept / Content-Type).
+// Mappery binarne budowane z builderem Spring Boot - te same ustawienia (spring.jackson.*, moduły) co JSON.
+@Configuration
+public class WireFormatConfig {
+
+    public static final MediaType APPLICATION_SMILE = new MediaType("application", "x-jackson-smile");
+
+    // Beany konwerterów Spring Boot dokłada do listy HttpMessageConverters (obok JSON).
+    // Bez osobnych beanów ObjectMapper - inaczej zniknąłby domyślny mapper JSON z autokonfiguracji.
+    @Bean
+    public MappingJackson2CborHttpMessageConverter cborHttpMessageConverter(Jackson2ObjectMapperBuilder builder) {
+        return new MappingJackson2CborHttpMessageConverter(builder.createXmlMapper(false).factory(new CBORFactory()).build());
+    }
+
+    @Bean
+    public MappingJackson2SmileHttpMessageConverter smileHttpMessageConverter(Jackson2ObjectMapperBuilder builder) {
+        return new MappingJackson2SmileHttpMessageConverter(builder.createXmlMapper(false).factory(new SmileFactory()).build());
+    }
+
+    // Dla endpointów zwracających gotowe bajty (feed) - pierwszy obsługiwany typ z Accept wg q, domyślnie JSON
+    public static MediaType negotiate(String acceptHeader) {
+        if (acceptHeader == null || acceptHeader.isBlank()) {
+            return MediaType.APPLICATION_JSON;
+        }
+        try {
+            List<MediaType> accepted = MediaType.parseMediaTypes(acceptHeader);
+            accepted.sort(Comparator.comparingDouble(MediaType::getQualityValue).reversed());
+            for (MediaType mediaType : accepted) {
+                if (mediaType.isCompatibleWith(MediaType.APPLICATION_JSON) && !mediaType.isWildcardType()) {
+                    return MediaType.APPLICATION_JSON;
+                }
+                if (mediaType.equalsTypeAndSubtype(MediaType.APPLICATION_CBOR)) {
+                    return MediaType.APPLICATION_CBOR;
+                }
+                if (mediaType.equalsTypeAndSubtype(APPLICATION_SMILE)) {
+                    return APPLICATION_SMILE;
+                }
+            }
+        } catch (IllegalArgumentException e) {
+            // Niepoprawny nagłówek Accept - zachowujemy się jak dotąd
+        }
+        return MediaType.APPLICATION_JSON;
+    }
+}
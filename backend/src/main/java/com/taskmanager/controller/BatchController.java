@@ -0,0 +1,52 @@
+package com.taskmanager.controller;
+
+import com.taskmanager.service.BatchRequestService;
+import jakarta.servlet.http.HttpServletRequest;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.Authentication;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+// Kilka odczytów jednym żądaniem (np. start dashboardu: zadania + statystyki + użytkownicy):
+// {"requests": [{"id": "tasks", "path": "/api/tasks"}, {"id": "stats", "path": "/api/tasks/stats/summary"}]}
+@RestController
+@RequestMapping("/api/batch")
+@RequiredArgsConstructor
+public class BatchController {
+
+    private final BatchRequestService batchRequestService;
+
+    @PostMapping
+    public ResponseEntity<Map<String, Object>> execute(
+            @RequestBody Map<String, List<Map<String, String>>> request,
+            HttpServletRequest httpRequest,
+            Authentication authentication) {
+        if (authentication == null) {
+            return ResponseEntity.status(401).build();
+        }
+        List<Map<String, String>> entries = request.get("requests");
+        if (entries == null) {
+            return ResponseEntity.badRequest().body(Map.of("error", "Brak pola requests"));
+        }
+
+        List<BatchRequestService.SubRequest> subRequests = new ArrayList<>();
+        for (int i = 0; i < entries.size(); i++) {
+            Map<String, String> entry = entries.get(i);
+            String method = entry.getOrDefault("method", "GET");
+            if (!"GET".equalsIgnoreCase(method)) {
+                return ResponseEntity.badRequest().body(Map.of("error", "W paczce dozwolone są tylko żądania GET"));
+            }
+            subRequests.add(new BatchRequestService.SubRequest(entry.getOrDefault("id", String.valueOf(i)), entry.get("path")));
+        }
+
+        try {
+            return ResponseEntity.ok(Map.of("responses", batchRequestService.execute(subRequests, httpRequest, authentication)));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+    }
+}
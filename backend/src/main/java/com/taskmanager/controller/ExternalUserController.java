@@ -2,10 +2,13 @@ package com.taskmanager.controller;
 
 import com.taskmanager.model.ExternalUser;
 import com.taskmanager.service.ExternalUserService;
+import com.taskmanager.service.ExternalUserSyncService;
+import jakarta.servlet.http.HttpServletRequest;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.io.IOException;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -16,6 +19,9 @@ import java.util.Map;
 public class ExternalUserController {
 
     private final ExternalUserService externalUserService;
+    private final ExternalUserSyncService externalUserSyncService;
+
+    private static final int MAX_IDS = 1000;
 
     @GetMapping
     public ResponseEntity<List<ExternalUser>> getAllUsers(
@@ -29,6 +35,15 @@ public class ExternalUserController {
         return ResponseEntity.ok(users);
     }
 
+    // Multi-get: ?ids=a,b,c - jedno zapytanie IN zamiast GET /{id} dla każdego użytkownika
+    @GetMapping(params = "ids")
+    public ResponseEntity<?> getUsersByIds(@RequestParam List<String> ids) {
+        if (ids.size() > MAX_IDS) {
+            return ResponseEntity.badRequest().body(Map.of("error", "Maksymalnie " + MAX_IDS + " ID w jednym żądaniu"));
+        }
+        return ResponseEntity.ok(externalUserService.getUsersByIds(ids));
+    }
+
     @GetMapping("/active")
     public ResponseEntity<List<ExternalUser>> getActiveUsers() {
         List<ExternalUser> users = externalUserService.getActiveUsers();
@@ -61,6 +76,25 @@ public class ExternalUserController {
         }
     }
 
+    // Synchronizacja całego katalogu: tablica JSON [{id, name, avatar, isActive}, ...] czytana strumieniowo.
+    // ?deactivateMissing=true wyłącza użytkowników, których nie ma w przesłanej liście
+    @PostMapping("/sync")
+    public ResponseEntity<Map<String, Object>> syncUsers(
+            @RequestParam(defaultValue = "false") boolean deactivateMissing,
+            HttpServletRequest request) {
+        try {
+            ExternalUserSyncService.SyncResult result = externalUserSyncService.sync(request.getInputStream(), deactivateMissing);
+            Map<String, Object> response = new HashMap<>(result.toMap());
+            response.put("success", true);
+            return ResponseEntity.ok(response);
+        } catch (IllegalArgumentException | IOException e) {
+            Map<String, Object> response = new HashMap<>();
+            response.put("success", false);
+            response.put("message", "Błąd podczas synchronizacji użytkowników: " + e.getMessage());
+            return ResponseEntity.badRequest().body(response);
+        }
+    }
+
     @PutMapping("/{id}")
     public ResponseEntity<Map<String, Object>> updateUser(
             @PathVariable String id,
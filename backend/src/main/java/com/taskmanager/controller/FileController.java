@@ -1,26 +1,36 @@
 package com.taskmanager.controller;
 
-import org.springframework.core.io.Resource;
-import org.springframework.core.io.UrlResource;
+import com.taskmanager.service.ImageStorageService;
+import lombok.RequiredArgsConstructor;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.CacheControl;
 import org.springframework.http.HttpHeaders;
-import org.springframework.http.MediaType;
+import org.springframework.http.HttpRange;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.ServletWebRequest;
 import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.util.ContentCachingResponseWrapper;
+import org.springframework.web.util.WebUtils;
 
 import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
 import java.nio.file.Files;
 import java.nio.file.Path;
-import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
 import java.util.*;
-import java.util.Base64;
+import java.util.concurrent.TimeUnit;
 
 @RestController
 @RequestMapping("/api/files")
+@RequiredArgsConstructor
 public class FileController {
 
-    // Katalog do przechowywania plików
-    private final String uploadDir = "uploads/images/";
+    // Pliki adresowane treścią (sha256) w katalogu app.images.dir
+    private final ImageStorageService imageStorageService;
     
     // Dozwolone typy plików
     private final Set<String> allowedTypes = Set.of("image/jpeg", "image/jpg", "image/png", "image/gif", "image/webp");
@@ -28,15 +38,16 @@ public class FileController {
     // Maksymalny rozmiar pliku (5MB)
     private final long maxFileSize = 5 * 1024 * 1024;
 
+    // Atrybuty sendfile Tomcata; małe pliki taniej wysłać zwykłym zapisem (próg jak w DefaultServlet)
+    private static final String SENDFILE_SUPPORT = "org.apache.tomcat.sendfile.support";
+    private static final String SENDFILE_FILENAME = "org.apache.tomcat.sendfile.filename";
+    private static final String SENDFILE_START = "org.apache.tomcat.sendfile.start";
+    private static final String SENDFILE_END = "org.apache.tomcat.sendfile.end";
+    private static final long SENDFILE_THRESHOLD = 48 * 1024;
+
     @PostMapping("/upload")
     public ResponseEntity<?> uploadFiles(@RequestParam("files") MultipartFile[] files) {
         try {
-            // Tworzenie katalogu jeśli nie istnieje
-            Path uploadPath = Paths.get(uploadDir);
-            if (!Files.exists(uploadPath)) {
-                Files.createDirectories(uploadPath);
-            }
-
             List<String> uploadedFiles = new ArrayList<>();
             
             for (MultipartFile file : files) {
@@ -58,12 +69,9 @@ public class FileController {
                 }
                 
                 
-                // Zapisywanie pliku jako base64 w bazie danych
-                byte[] fileBytes = file.getBytes();
-                String base64Image = Base64.getEncoder().encodeToString(fileBytes);
-                String dataUrl = "data:" + file.getContentType() + ";base64," + base64Image;
-                
-                uploadedFiles.add(dataUrl);
+                // Zapis do pliku - w zadaniu trafia tylko krótka referencja zamiast base64
+                String filename = imageStorageService.store(file.getBytes(), file.getContentType());
+                uploadedFiles.add(ImageStorageService.reference(filename));
             }
             
             return ResponseEntity.ok(Map.of("files", uploadedFiles));
@@ -74,36 +82,100 @@ public class FileController {
         }
     }
 
+    // ETag z hasha treści (304 przy If-None-Match), długi cache dla plików adresowanych treścią,
+    // Range/206 dla pojedynczego zakresu i sendfile Tomcata (fallback: FileChannel.transferTo)
     @GetMapping("/images/{filename}")
-    public ResponseEntity<Resource> getImage(@PathVariable String filename) {
-        try {
-            Path filePath = Paths.get(uploadDir).resolve(filename);
-            Resource resource = new UrlResource(filePath.toUri());
-            
-            if (resource.exists() && resource.isReadable()) {
-                // Określenie typu MIME
-                String contentType = Files.probeContentType(filePath);
-                if (contentType == null) {
-                    contentType = "application/octet-stream";
-                }
-                
-                return ResponseEntity.ok()
-                    .contentType(MediaType.parseMediaType(contentType))
-                    .header(HttpHeaders.CONTENT_DISPOSITION, "inline; filename=\"" + filename + "\"")
-                    .body(resource);
-            } else {
-                return ResponseEntity.notFound().build();
+    public void getImage(@PathVariable String filename, HttpServletRequest request, HttpServletResponse response) throws IOException {
+        ImageStorageService.ImageFile file = imageStorageService.describe(filename);
+        if (file == null) {
+            response.setStatus(HttpServletResponse.SC_NOT_FOUND);
+            return;
+        }
+
+        response.setHeader(HttpHeaders.CACHE_CONTROL, file.immutable()
+                ? CacheControl.maxAge(365, TimeUnit.DAYS).cachePublic().immutable().getHeaderValue()
+                : CacheControl.noCache().getHeaderValue());
+        if (new ServletWebRequest(request, response).checkNotModified(file.etag(), file.lastModified())) {
+            return;
+        }
+
+        response.setContentType(file.contentType().toString());
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION, "inline; filename=\"" + filename + "\"");
+        response.setHeader(HttpHeaders.ACCEPT_RANGES, "bytes");
+
+        long start = 0;
+        long end = file.size(); // bez końca zakresu (exclusive)
+        HttpRange range = singleRange(request, file);
+        if (range != null) {
+            try {
+                start = range.getRangeStart(file.size());
+                end = range.getRangeEnd(file.size()) + 1;
+            } catch (IllegalArgumentException e) {
+                start = file.size();
+            }
+            if (start >= file.size() || start >= end) {
+                response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes */" + file.size());
+                response.setStatus(HttpServletResponse.SC_REQUESTED_RANGE_NOT_SATISFIABLE);
+                return;
+            }
+            response.setStatus(HttpServletResponse.SC_PARTIAL_CONTENT);
+            response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes " + start + "-" + (end - 1) + "/" + file.size());
+        }
+        response.setContentLengthLong(end - start);
+        if ("HEAD".equals(request.getMethod())) {
+            return;
+        }
+
+        // Zero-copy przez Tomcata: odpowiedź nie może być buforowana przez filtr (QueryStatsFilter w dev)
+        if (end - start >= SENDFILE_THRESHOLD
+                && Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORT))
+                && WebUtils.getNativeResponse(response, ContentCachingResponseWrapper.class) == null) {
+            request.setAttribute(SENDFILE_FILENAME, file.path().toString());
+            request.setAttribute(SENDFILE_START, start);
+            request.setAttribute(SENDFILE_END, end);
+            return;
+        }
+
+        try (FileChannel channel = FileChannel.open(file.path(), StandardOpenOption.READ)) {
+            WritableByteChannel target = Channels.newChannel(response.getOutputStream());
+            long position = start;
+            while (position < end) {
+                position += channel.transferTo(position, end - position, target);
             }
-        } catch (Exception e) {
-            return ResponseEntity.internalServerError().build();
+        }
+    }
+
+    // Jeden zakres (większość przeglądarek/odtwarzaczy); wiele zakresów albo nieaktualny If-Range = cały plik
+    private HttpRange singleRange(HttpServletRequest request, ImageStorageService.ImageFile file) {
+        String rangeHeader = request.getHeader(HttpHeaders.RANGE);
+        if (rangeHeader == null) {
+            return null;
+        }
+        String ifRange = request.getHeader(HttpHeaders.IF_RANGE);
+        if (ifRange != null && !ifRange.equals(file.etag())) {
+            return null;
+        }
+        try {
+            List<HttpRange> ranges = HttpRange.parseRanges(rangeHeader);
+            return ranges.size() == 1 ? ranges.get(0) : null;
+        } catch (IllegalArgumentException e) {
+            return null;
         }
     }
 
     @DeleteMapping("/images/{filename}")
     public ResponseEntity<?> deleteImage(@PathVariable String filename) {
         try {
-            Path filePath = Paths.get(uploadDir).resolve(filename);
-            
+            Path filePath = imageStorageService.resolve(filename);
+            if (filePath == null) {
+                return ResponseEntity.notFound().build();
+            }
+
+            // Ten sam plik (sha256 treści) może być użyty w wielu zadaniach - nie usuwamy go przy edycji jednego
+            if (ImageStorageService.isContentAddressed(filename)) {
+                return ResponseEntity.ok(Map.of("message", "Plik został odłączony"));
+            }
+
             if (Files.exists(filePath)) {
                 Files.delete(filePath);
                 return ResponseEntity.ok(Map.of("message", "Plik został usunięty"));
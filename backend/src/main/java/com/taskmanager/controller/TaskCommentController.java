@@ -0,0 +1,93 @@
+package com.taskmanager.controller;
+
+import com.taskmanager.model.TaskComment;
+import com.taskmanager.monitoring.QueryBudget;
+import com.taskmanager.service.TaskCommentService;
+import com.taskmanager.service.TaskService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.Authentication;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// Wątek komentarzy zadania (zastępuje pojedynczą notatkę assignedUserNote).
+// Dostęp: właściciel, przypisany albo udostępniony - jak w feedzie
+@RestController
+@RequestMapping("/api/tasks/{taskId}/comments")
+@RequiredArgsConstructor
+public class TaskCommentController {
+
+    private final TaskCommentService taskCommentService;
+    private final TaskService taskService;
+
+    // Najnowsze pierwsze; kolejna strona: ?before=<nextCursor>
+    @GetMapping
+    @QueryBudget(2)
+    public ResponseEntity<Map<String, Object>> getComments(
+            @PathVariable Long taskId,
+            Authentication authentication,
+            @RequestParam(required = false) String userEmail,
+            @RequestParam(required = false) String before,
+            @RequestParam(defaultValue = "20") int limit) {
+        if (authentication == null) {
+            return ResponseEntity.status(401).build();
+        }
+        if (!taskService.canAccess(taskId, authentication.getName(), userEmail)) {
+            return ResponseEntity.status(403).build();
+        }
+
+        try {
+            int pageSize = Math.max(1, Math.min(limit, 100));
+            return ResponseEntity.ok(taskCommentService.getComments(taskId, before, pageSize));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+    }
+
+    // Pojedynczy komentarz: {"body": "..."}
+    @PostMapping
+    public ResponseEntity<Map<String, Object>> addComment(
+            @PathVariable Long taskId,
+            @RequestBody Map<String, Object> request,
+            Authentication authentication,
+            @RequestParam(required = false) String userEmail) {
+        Object body = request.get("body");
+        return add(taskId, body instanceof String text ? List.of(text) : List.of(), authentication, userEmail);
+    }
+
+    // Wiele komentarzy naraz (np. import z innego narzędzia): {"bodies": ["...", "..."]}
+    @PostMapping("/batch")
+    public ResponseEntity<Map<String, Object>> addComments(
+            @PathVariable Long taskId,
+            @RequestBody Map<String, List<String>> request,
+            Authentication authentication,
+            @RequestParam(required = false) String userEmail) {
+        List<String> bodies = request.get("bodies");
+        return add(taskId, bodies != null ? bodies : List.of(), authentication, userEmail);
+    }
+
+    private ResponseEntity<Map<String, Object>> add(Long taskId, List<String> bodies, Authentication authentication, String userEmail) {
+        if (authentication == null) {
+            return ResponseEntity.status(401).build();
+        }
+        if (!taskService.canAccess(taskId, authentication.getName(), userEmail)) {
+            return ResponseEntity.status(403).build();
+        }
+        if (bodies.isEmpty()) {
+            return ResponseEntity.badRequest().body(Map.of("error", "Brak treści komentarza"));
+        }
+
+        try {
+            List<TaskComment> comments = taskCommentService.addComments(taskId, authentication.getName(), bodies);
+            Map<String, Object> response = new HashMap<>();
+            response.put("success", true);
+            response.put("comments", comments);
+            return ResponseEntity.ok(response);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+    }
+}
@@ -1,16 +1,30 @@
 package com.taskmanager.controller;
 
 import com.taskmanager.model.Task;
+import com.taskmanager.monitoring.QueryBudget;
+import com.taskmanager.service.TaskArchiveService;
+import com.taskmanager.service.TaskFeedCoalescer;
+import com.taskmanager.service.TaskGroupService;
 import com.taskmanager.service.TaskService;
+import com.taskmanager.service.TaskTransferService;
+import com.taskmanager.config.WireFormatConfig;
 import com.taskmanager.dto.CreateTaskRequest;
+import com.taskmanager.dto.TaskBoardColumn;
+import com.taskmanager.dto.TaskResponse;
 import com.taskmanager.dto.UpdateTaskRequest;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.security.access.AccessDeniedException;
 import org.springframework.security.core.Authentication;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
 import org.springframework.validation.BindingResult;
 
+import java.io.IOException;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -21,6 +35,12 @@ import java.util.Map;
 public class TaskController {
 
     private final TaskService taskService;
+    private final TaskFeedCoalescer taskFeedCoalescer;
+    private final TaskTransferService taskTransferService;
+    private final TaskGroupService taskGroupService;
+    private final TaskArchiveService taskArchiveService;
+
+    private static final MediaType APPLICATION_NDJSON = MediaType.parseMediaType("application/x-ndjson");
 
     @PostMapping
     public ResponseEntity<?> createTask(@Valid @RequestBody CreateTaskRequest request, BindingResult bindingResult, Authentication authentication) {
@@ -40,16 +60,23 @@ public class TaskController {
         }
 
         String clerkUserId = authentication.getName(); // To jest Clerk User ID
+        if (request.getParentId() != null && !taskService.canAccess(request.getParentId(), clerkUserId, null)) {
+            return ResponseEntity.status(403).build();
+        }
         System.out.println("Creating task for Clerk user: " + clerkUserId);
         Task createdTask = taskService.createTaskFromRequest(request, clerkUserId);
         System.out.println("Task created successfully: " + createdTask.getId());
-        return ResponseEntity.ok(createdTask);
+        return ResponseEntity.ok(taskService.toResponse(createdTask));
     }
 
     @GetMapping
-    public ResponseEntity<List<Task>> getUserTasks(
+    @QueryBudget(6)
+    public ResponseEntity<byte[]> getUserTasks(
             Authentication authentication,
-            @RequestParam(required = false) String userEmail) {
+            @RequestParam(required = false) String userEmail,
+            @RequestParam(defaultValue = "false") boolean includeArchived,
+            @RequestParam(name = "tag", required = false) List<String> tags,
+            @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept) {
         if (authentication == null) {
             return ResponseEntity.status(401).build();
         }
@@ -57,18 +84,165 @@ public class TaskController {
         String clerkUserId = authentication.getName(); // To jest Clerk User ID
         
         System.out.println("Getting tasks for Clerk user: " + clerkUserId + ", email: " + userEmail);
-        List<Task> tasks = taskService.getTasksForClerkUser(clerkUserId, userEmail);
-        return ResponseEntity.ok(tasks);
+        // Równoczesne identyczne żądania (np. dashboard + refetch) dzielą jedno wyliczenie
+        MediaType format = WireFormatConfig.negotiate(accept);
+        byte[] tasks = taskFeedCoalescer.getFeed(clerkUserId, userEmail, includeArchived, normalizeTags(tags), format);
+        return ResponseEntity.ok()
+                .contentType(format)
+                .header(HttpHeaders.VARY, HttpHeaders.ACCEPT)
+                .body(tasks);
+    }
+
+    // Multi-get: ?ids=1,2,3 - widoczne zadania jednym zapytaniem (kolejność jak w żądaniu, niewidoczne pominięte)
+    @GetMapping(params = "ids")
+    @QueryBudget(3)
+    public ResponseEntity<?> getTasksByIds(
+            Authentication authentication,
+            @RequestParam List<Long> ids,
+            @RequestParam(required = false) String userEmail) {
+        if (authentication == null) {
+            return ResponseEntity.status(401).build();
+        }
+        try {
+            return ResponseEntity.ok(taskService.getVisibleTasksByIds(authentication.getName(), userEmail, ids));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+    }
+
+    // Najpilniejsze otwarte zadania użytkownika (priorytet, przeterminowane, termin) - bez pobierania całego feedu
+    @GetMapping("/next")
+    @QueryBudget(3)
+    public ResponseEntity<List<TaskResponse>> getNextUp(
+            Authentication authentication,
+            @RequestParam(defaultValue = "20") int k) {
+        if (authentication == null) {
+            return ResponseEntity.status(401).build();
+        }
+        return ResponseEntity.ok(taskService.getNextUp(authentication.getName(), Math.max(1, Math.min(k, 100))));
+    }
+
+    // Liczności tagów, statusów i priorytetów dla zadań użytkownika (opcjonalnie zawężone ?tag=...)
+    @GetMapping("/facets")
+    @QueryBudget(1)
+    public ResponseEntity<Map<String, Object>> getFacets(
+            Authentication authentication,
+            @RequestParam(required = false) String userEmail,
+            @RequestParam(name = "tag", required = false) List<String> tags) {
+        if (authentication == null) {
+            return ResponseEntity.status(401).build();
+        }
+        return ResponseEntity.ok(taskService.getTaskFacets(authentication.getName(), userEmail, normalizeTags(tags)));
+    }
+
+    private List<String> normalizeTags(List<String> tags) {
+        if (tags == null) {
+            return List.of();
+        }
+        return tags.stream().map(String::trim).filter(tag -> !tag.isEmpty()).distinct().toList();
+    }
+
+    // Tablica Kanban w jednym żądaniu; kolejna strona kolumny: ?status=W_TRAKCIE&cursor=<nextCursor>
+    @GetMapping("/board")
+    @QueryBudget(4)
+    public ResponseEntity<Map<String, Object>> getBoard(
+            Authentication authentication,
+            @RequestParam(required = false) String userEmail,
+            @RequestParam(required = false) Task.TaskStatus status,
+            @RequestParam(required = false) Long cursor,
+            @RequestParam(defaultValue = "20") int limit) {
+        if (authentication == null) {
+            return ResponseEntity.status(401).build();
+        }
+
+        int columnLimit = Math.max(1, Math.min(limit, 100));
+        List<TaskBoardColumn> columns = taskService.getBoard(authentication.getName(), userEmail, status, cursor, columnLimit);
+
+        Map<String, Object> response = new HashMap<>();
+        response.put("columns", columns);
+        response.put("limit", columnLimit);
+        return ResponseEntity.ok(response);
+    }
+
+    // Wszystkie zadania właściciela jako NDJSON (domyślnie) albo CSV, pisane wprost z kursora bazy
+    @GetMapping("/export")
+    public void exportTasks(
+            Authentication authentication,
+            @RequestParam(defaultValue = "ndjson") String format,
+            HttpServletResponse response) throws IOException {
+        if (authentication == null) {
+            response.setStatus(HttpServletResponse.SC_UNAUTHORIZED);
+            return;
+        }
+        TaskTransferService.Format exportFormat = parseTransferFormat(format, null);
+        if (exportFormat == null) {
+            response.sendError(HttpServletResponse.SC_BAD_REQUEST, "Nieobsługiwany format: " + format);
+            return;
+        }
+
+        // QueryStatsFilter nie buforuje tej ścieżki - eksport idzie do klienta na bieżąco
+        String extension = exportFormat == TaskTransferService.Format.CSV ? "csv" : "ndjson";
+        response.setContentType(exportFormat == TaskTransferService.Format.CSV ? "text/csv;charset=UTF-8" : APPLICATION_NDJSON + ";charset=UTF-8");
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"tasks." + extension + "\"");
+        response.setHeader(HttpHeaders.CACHE_CONTROL, "no-store");
+        taskTransferService.exportTasks(authentication.getName(), exportFormat, response.getOutputStream());
+    }
+
+    // Import NDJSON/CSV (format z ?format= albo Content-Type); błędne linie są pomijane i raportowane
+    @PostMapping("/import")
+    public ResponseEntity<?> importTasks(
+            Authentication authentication,
+            @RequestParam(required = false) String format,
+            HttpServletRequest request) throws IOException {
+        if (authentication == null) {
+            return ResponseEntity.status(401).build();
+        }
+        TaskTransferService.Format importFormat = parseTransferFormat(format, request.getContentType());
+        if (importFormat == null) {
+            return ResponseEntity.badRequest().body(Map.of("error", "Nieobsługiwany format importu - użyj ndjson albo csv"));
+        }
+
+        TaskTransferService.ImportResult result = taskTransferService.importTasks(
+                authentication.getName(), importFormat, request.getInputStream());
+        return ResponseEntity.ok(result.toMap());
+    }
+
+    private TaskTransferService.Format parseTransferFormat(String format, String contentType) {
+        if (format != null) {
+            return switch (format.trim().toLowerCase()) {
+                case "ndjson", "jsonl" -> TaskTransferService.Format.NDJSON;
+                case "csv" -> TaskTransferService.Format.CSV;
+                default -> null;
+            };
+        }
+        if (contentType == null) {
+            return TaskTransferService.Format.NDJSON;
+        }
+        MediaType type;
+        try {
+            type = MediaType.parseMediaType(contentType);
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+        if (type.isCompatibleWith(MediaType.parseMediaType("text/csv"))) {
+            return TaskTransferService.Format.CSV;
+        }
+        if (type.isCompatibleWith(APPLICATION_NDJSON) || type.isCompatibleWith(MediaType.parseMediaType("application/jsonl"))
+                || type.isCompatibleWith(MediaType.TEXT_PLAIN) || type.isCompatibleWith(MediaType.APPLICATION_OCTET_STREAM)) {
+            return TaskTransferService.Format.NDJSON;
+        }
+        return null;
     }
 
     @GetMapping("/{taskId}")
-    public ResponseEntity<Task> getTaskById(@PathVariable Long taskId) {
+    @QueryBudget(4)
+    public ResponseEntity<TaskResponse> getTaskById(@PathVariable Long taskId) {
         Task task = taskService.getTaskById(taskId);
-        return ResponseEntity.ok(task);
+        return ResponseEntity.ok(taskService.toResponse(task));
     }
 
     @PutMapping("/{taskId}")
-    public ResponseEntity<Task> updateTask(
+    public ResponseEntity<TaskResponse> updateTask(
             @PathVariable Long taskId,
             @Valid @RequestBody UpdateTaskRequest request,
             Authentication authentication) {
@@ -86,45 +260,111 @@ public class TaskController {
         Task updatedTask = taskService.updateTaskFromRequest(taskId, request);
         System.out.println("Task updated successfully: " + updatedTask.getId());
         System.out.println("Updated task images: " + java.util.Arrays.toString(updatedTask.getImages()));
-        return ResponseEntity.ok(updatedTask);
+        return ResponseEntity.ok(taskService.toResponse(updatedTask));
+    }
+
+    // Podzadanie / pozycja checklisty (dowolna głębokość) - to samo ciało co POST /api/tasks
+    @PostMapping("/{taskId}/subtasks")
+    public ResponseEntity<?> createSubtask(
+            @PathVariable Long taskId,
+            @Valid @RequestBody CreateTaskRequest request,
+            BindingResult bindingResult,
+            Authentication authentication,
+            @RequestParam(required = false) String userEmail) {
+        if (bindingResult.hasErrors()) {
+            return ResponseEntity.badRequest().body(bindingResult.getAllErrors());
+        }
+        if (authentication == null) {
+            return ResponseEntity.status(401).build();
+        }
+        if (!taskService.canAccess(taskId, authentication.getName(), userEmail)) {
+            return ResponseEntity.status(403).build();
+        }
+
+        request.setParentId(taskId);
+        Task subtask = taskService.createTaskFromRequest(request, authentication.getName());
+        return ResponseEntity.ok(taskService.toResponse(subtask));
+    }
+
+    // Zadanie z całym poddrzewem (płaska lista z parentId, bliższe poziomy pierwsze)
+    @GetMapping("/{taskId}/subtree")
+    @QueryBudget(5)
+    public ResponseEntity<Map<String, Object>> getSubtree(
+            @PathVariable Long taskId,
+            Authentication authentication,
+            @RequestParam(required = false) String userEmail) {
+        if (authentication == null) {
+            return ResponseEntity.status(401).build();
+        }
+        if (!taskService.canAccess(taskId, authentication.getName(), userEmail)) {
+            return ResponseEntity.status(403).build();
+        }
+        return ResponseEntity.ok(taskService.getSubtree(taskId));
+    }
+
+    // Przeniesienie z poddrzewem: {"parentId": 123} albo {"parentId": null} (zadanie główne)
+    @PutMapping("/{taskId}/parent")
+    public ResponseEntity<?> moveTask(
+            @PathVariable Long taskId,
+            @RequestBody Map<String, Long> request,
+            Authentication authentication,
+            @RequestParam(required = false) String userEmail) {
+        if (authentication == null) {
+            return ResponseEntity.status(401).build();
+        }
+        Long parentId = request.get("parentId");
+        String clerkUserId = authentication.getName();
+        if (!taskService.canAccess(taskId, clerkUserId, userEmail)
+                || (parentId != null && !taskService.canAccess(parentId, clerkUserId, userEmail))) {
+            return ResponseEntity.status(403).build();
+        }
+
+        try {
+            return ResponseEntity.ok(taskService.toResponse(taskService.moveTask(taskId, parentId, clerkUserId)));
+        } catch (AccessDeniedException e) {
+            return ResponseEntity.status(403).body(Map.of("error", e.getMessage()));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
     }
 
     @DeleteMapping("/{taskId}")
-    public ResponseEntity<?> deleteTask(@PathVariable Long taskId) {
-        taskService.deleteTask(taskId);
+    public ResponseEntity<?> deleteTask(@PathVariable Long taskId, Authentication authentication) {
+        if (authentication == null) {
+            return ResponseEntity.status(401).build();
+        }
+        try {
+            taskService.deleteTask(taskId, authentication.getName());
+        } catch (AccessDeniedException e) {
+            return ResponseEntity.status(403).body(Map.of("error", e.getMessage()));
+        }
         return ResponseEntity.ok().build();
     }
 
+    // Przywraca zarchiwizowane zadanie główne razem z poddrzewem, komentarzami i udostępnieniami grupom
+    @PostMapping("/{taskId}/restore")
+    public ResponseEntity<Map<String, Object>> restoreTask(@PathVariable Long taskId, Authentication authentication) {
+        if (authentication == null) {
+            return ResponseEntity.status(401).build();
+        }
+        List<Long> restoredIds = taskArchiveService.restoreSubtree(taskId, authentication.getName());
+        if (restoredIds.isEmpty()) {
+            return ResponseEntity.notFound().build();
+        }
+        return ResponseEntity.ok(Map.of("success", true, "restoredIds", restoredIds));
+    }
+
     @GetMapping("/status/{status}")
-    public ResponseEntity<List<Task>> getTasksByStatus(@PathVariable Task.TaskStatus status) {
+    public ResponseEntity<List<TaskResponse>> getTasksByStatus(@PathVariable Task.TaskStatus status) {
         // Zwracamy wszystkie zadania o danym statusie
         List<Task> tasks = taskService.getTasksByStatus(status);
-        return ResponseEntity.ok(tasks);
+        return ResponseEntity.ok(taskService.toResponses(tasks));
     }
 
     @GetMapping("/stats/summary")
+    @QueryBudget(2)
     public ResponseEntity<Map<String, Object>> getTaskStats() {
-        List<Task> tasks = taskService.getAllTasks();
-
-        Map<String, Object> stats = new HashMap<>();
-        stats.put("total", tasks.size());
-        stats.put("completed", tasks.stream().mapToInt(t -> t.getStatus() == Task.TaskStatus.ZAKONCZONE ? 1 : 0).sum());
-        stats.put("overdue", tasks.stream().mapToInt(t -> 
-            t.getDueDate() != null && t.getDueDate().isBefore(java.time.LocalDateTime.now()) && 
-            t.getStatus() != Task.TaskStatus.ZAKONCZONE ? 1 : 0).sum());
-
-        // Statystyki według statusu
-        List<Map<String, Object>> byStatus = new java.util.ArrayList<>();
-        for (Task.TaskStatus status : Task.TaskStatus.values()) {
-            int count = (int) tasks.stream().filter(t -> t.getStatus() == status).count();
-            Map<String, Object> statusStat = new HashMap<>();
-            statusStat.put("_id", status.getDisplayName());
-            statusStat.put("count", count);
-            byStatus.add(statusStat);
-        }
-        stats.put("byStatus", byStatus);
-
-        return ResponseEntity.ok(stats);
+        return ResponseEntity.ok(taskService.getTaskStats());
     }
 
     @PostMapping("/{taskId}/share")
@@ -140,6 +380,9 @@ public class TaskController {
         String clerkUserId = authentication.getName();
         @SuppressWarnings("unchecked")
         java.util.List<String> userIds = (java.util.List<String>) request.get("userIds");
+        // Udostępnienie zespołowi: {"groupIds": [1, 2]} - jeden wiersz na grupę, skład rozwijany przy odczycie
+        @SuppressWarnings("unchecked")
+        java.util.List<Number> groupIds = (java.util.List<Number>) request.get("groupIds");
         String message = (String) request.get("message");
 
         System.out.println("=== SHARE TASK DEBUG ===");
@@ -150,13 +393,19 @@ public class TaskController {
 
         try {
             Task sharedTask = taskService.shareTask(taskId, userIds, clerkUserId);
+            List<Long> sharedGroupIds = groupIds != null && !groupIds.isEmpty()
+                    ? taskGroupService.shareTask(taskId, groupIds.stream().map(Number::longValue).toList(), clerkUserId)
+                    : taskGroupService.getGroupIds(taskId);
             
             Map<String, Object> response = new HashMap<>();
             response.put("success", true);
             response.put("message", "Zadanie zostało udostępnione");
-            response.put("task", sharedTask);
+            response.put("task", taskService.toResponse(sharedTask));
+            response.put("groupIds", sharedGroupIds);
             
             return ResponseEntity.ok(response);
+        } catch (AccessDeniedException e) {
+            return ResponseEntity.status(403).body(Map.of("success", false, "message", e.getMessage()));
         } catch (Exception e) {
             System.out.println("Error sharing task: " + e.getMessage());
             e.printStackTrace();
@@ -169,4 +418,22 @@ public class TaskController {
         }
     }
 
+    // Cofnięcie udostępnienia grupie (tylko właściciel zadania)
+    @DeleteMapping("/{taskId}/groups/{groupId}")
+    public ResponseEntity<Map<String, Object>> unshareTaskFromGroup(
+            @PathVariable Long taskId,
+            @PathVariable Long groupId,
+            Authentication authentication) {
+        if (authentication == null) {
+            return ResponseEntity.status(401).build();
+        }
+        try {
+            boolean removed = taskGroupService.unshareTask(taskId, groupId, authentication.getName());
+            return ResponseEntity.ok(Map.of("success", removed, "groupIds", taskGroupService.getGroupIds(taskId)));
+        } catch (AccessDeniedException e) {
+            return ResponseEntity.status(403).body(Map.of("success", false, "message", e.getMessage()));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("success", false, "message", e.getMessage()));
+        }
+    }
 }
@@ -0,0 +1,108 @@
+package com.taskmanager.controller;
+
+import com.taskmanager.model.TaskGroup;
+import com.taskmanager.service.TaskGroupService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.AccessDeniedException;
+import org.springframework.security.core.Authentication;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+
+// Grupy (zespoły) do udostępniania zadań - zadanie udostępnia się grupie przez POST /api/tasks/{id}/share {"groupIds"}
+@RestController
+@RequestMapping("/api/groups")
+@RequiredArgsConstructor
+public class TaskGroupController {
+
+    private final TaskGroupService taskGroupService;
+
+    // Grupy, które użytkownik utworzył albo do których należy
+    @GetMapping
+    public ResponseEntity<List<TaskGroup>> getGroups(Authentication authentication) {
+        if (authentication == null) {
+            return ResponseEntity.status(401).build();
+        }
+        return ResponseEntity.ok(taskGroupService.getGroupsForUser(authentication.getName()));
+    }
+
+    // {"name": "...", "memberIds": ["user_..."]}
+    @PostMapping
+    public ResponseEntity<Map<String, Object>> createGroup(
+            @RequestBody Map<String, Object> request,
+            Authentication authentication) {
+        if (authentication == null) {
+            return ResponseEntity.status(401).build();
+        }
+        Object name = request.get("name");
+        @SuppressWarnings("unchecked")
+        List<String> memberIds = (List<String>) request.get("memberIds");
+        return handle(() -> {
+            TaskGroup group = taskGroupService.createGroup(name instanceof String text ? text : null, memberIds, authentication.getName());
+            Map<String, Object> response = new HashMap<>();
+            response.put("success", true);
+            response.put("group", group);
+            return response;
+        });
+    }
+
+    @GetMapping("/{groupId}/members")
+    public ResponseEntity<Map<String, Object>> getMembers(@PathVariable Long groupId, Authentication authentication) {
+        if (authentication == null) {
+            return ResponseEntity.status(401).build();
+        }
+        return handle(() -> Map.of("memberIds", taskGroupService.getMembers(groupId, authentication.getName())));
+    }
+
+    // {"userIds": ["user_..."]} - istniejący członkowie są pomijani
+    @PostMapping("/{groupId}/members")
+    public ResponseEntity<Map<String, Object>> addMembers(
+            @PathVariable Long groupId,
+            @RequestBody Map<String, List<String>> request,
+            Authentication authentication) {
+        if (authentication == null) {
+            return ResponseEntity.status(401).build();
+        }
+        List<String> userIds = request.get("userIds");
+        if (userIds == null || userIds.isEmpty()) {
+            return ResponseEntity.badRequest().body(Map.of("error", "Brak użytkowników do dodania"));
+        }
+        return handle(() -> Map.of("success", true, "added", taskGroupService.addMembers(groupId, userIds, authentication.getName())));
+    }
+
+    @DeleteMapping("/{groupId}/members/{memberId}")
+    public ResponseEntity<Map<String, Object>> removeMember(
+            @PathVariable Long groupId,
+            @PathVariable String memberId,
+            Authentication authentication) {
+        if (authentication == null) {
+            return ResponseEntity.status(401).build();
+        }
+        return handle(() -> Map.of("success", taskGroupService.removeMember(groupId, memberId, authentication.getName())));
+    }
+
+    @DeleteMapping("/{groupId}")
+    public ResponseEntity<Map<String, Object>> deleteGroup(@PathVariable Long groupId, Authentication authentication) {
+        if (authentication == null) {
+            return ResponseEntity.status(401).build();
+        }
+        return handle(() -> {
+            taskGroupService.deleteGroup(groupId, authentication.getName());
+            return Map.of("success", true);
+        });
+    }
+
+    private ResponseEntity<Map<String, Object>> handle(Supplier<Map<String, Object>> action) {
+        try {
+            return ResponseEntity.ok(action.get());
+        } catch (AccessDeniedException e) {
+            return ResponseEntity.status(403).body(Map.of("error", e.getMessage()));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+    }
+}
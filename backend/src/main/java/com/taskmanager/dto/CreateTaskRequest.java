@@ -23,6 +23,8 @@ public class CreateTaskRequest {
     private String assignedUserNote; // Notatka od przypisanego użytkownika
     private String assignedUserNoteAuthor; // ID użytkownika który dodał notatkę
 
+    private Long parentId; // Zadanie nadrzędne (podzadanie / pozycja checklisty)
+
     public Task.TaskStatus getTaskStatus() {
         if (status == null) return Task.TaskStatus.DO_ZROBIENIA;
         
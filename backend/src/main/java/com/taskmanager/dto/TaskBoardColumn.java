@@ -0,0 +1,19 @@
+package com.taskmanager.dto;
+
+import com.taskmanager.model.Task;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class TaskBoardColumn {
+    private Task.TaskStatus status;
+    private String displayName;
+    private long total; // Wszystkie zadania w kolumnie
+    private List<TaskResponse> tasks;
+    private String nextCursor; // null gdy nie ma kolejnej strony
+}
@@ -0,0 +1,36 @@
+package com.taskmanager.dto;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.taskmanager.model.Task;
+import lombok.Data;
+
+// Zadanie w odpowiedziach API - te same pola co wcześniej serializowana encja, ale bez dostępu do leniwych relacji
+@Data
+public class TaskResponse {
+    private Long id;
+    @JsonProperty("_id")
+    private String legacyId; // Alias dla frontendu
+    private String title;
+    private String description;
+    private Task.TaskStatus status;
+    private Task.TaskPriority priority;
+    private String createdAt;
+    private String updatedAt;
+    private String dueDate;
+    private String completedAt;
+    private String userId;
+    private String clerkUserId;
+    private Long parentId;
+    private long subtaskCount; // Wszyscy potomkowie (całe poddrzewo)
+    private long completedSubtasks;
+    private String[] assignedTo;
+    private String assignedUserNote; // Ostatni komentarz (wątek: /api/tasks/{id}/comments)
+    private String assignedUserNoteAuthor;
+    private long commentCount;
+    private String[] tags;
+    private String[] images;
+    private String[] sharedWith;
+    private String[] shareRequests;
+    private Boolean isPublic;
+    private Boolean isSharedWithMe;
+}
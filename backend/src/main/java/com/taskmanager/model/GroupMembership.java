@@ -0,0 +1,35 @@
+package com.taskmanager.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+
+// Członkostwo w grupie; indeks po member_id - feed szuka grup użytkownika, a potem zadań tych grup
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Entity
+@Table(name = "group_memberships", indexes = {
+        @Index(name = "idx_group_memberships_member", columnList = "member_id, group_id")
+})
+@IdClass(GroupMembership.Key.class)
+public class GroupMembership {
+    @Id
+    @Column(name = "group_id")
+    private Long groupId;
+
+    @Id
+    @Column(name = "member_id")
+    private String memberId; // Clerk User ID
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Key implements Serializable {
+        private Long groupId;
+        private String memberId;
+    }
+}
@@ -0,0 +1,35 @@
+package com.taskmanager.model;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+// Postęp zadań działających w tle (migracje wsadowe) - pozwala wznowić pracę po restarcie
+@Data
+@NoArgsConstructor
+@Entity
+@Table(name = "job_checkpoints")
+public class JobCheckpoint {
+    @Id
+    @Column(name = "job_name", length = 100)
+    private String jobName;
+
+    // Ostatnie przetworzone ID (klucz keyset)
+    @Column(name = "last_id")
+    private Long lastId = 0L;
+
+    @Column(name = "processed")
+    private Long processed = 0L;
+
+    @Column(name = "completed")
+    private Boolean completed = false;
+
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt = LocalDateTime.now();
+
+    public JobCheckpoint(String jobName) {
+        this.jobName = jobName;
+    }
+}
@@ -6,9 +6,13 @@ import jakarta.validation.constraints.NotNull;
 import jakarta.validation.constraints.Size;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import org.hibernate.annotations.JdbcTypeCode;
+import org.hibernate.type.SqlTypes;
 
 import com.fasterxml.jackson.annotation.JsonBackReference;
 import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.hibernate.proxy.HibernateProxy;
 
 import java.time.LocalDateTime;
 
@@ -16,7 +20,14 @@ import java.time.LocalDateTime;
 @NoArgsConstructor
 @Entity
 @Table(name = "tasks")
+// Plan pobrania dla odpowiedzi API: same kolumny zadania, user zostaje leniwym proxy (userId z klucza obcego)
+@NamedEntityGraph(name = Task.RESPONSE_GRAPH)
 public class Task {
+    public static final String RESPONSE_GRAPH = "Task.response";
+
+    // Współdzielony (thread-safe) - parsowanie pól JSON bez tworzenia mappera przy każdym getterze
+    private static final ObjectMapper JSON = new ObjectMapper();
+
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
@@ -48,15 +59,30 @@ public class Task {
 
     private LocalDateTime dueDate;
 
+    // Ostatnia zmiana zadania - archiwizacja zamkniętych zadań liczy wiek od tej daty
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+
+    // Moment przejścia do ZAKONCZONE (ustawiany w setStatus)
+    @Column(name = "completed_at")
+    private LocalDateTime completedAt;
+
     @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "user_id")
     @JsonBackReference
     private User user;
 
-    // Clerk User ID - dla integracji z Clerk
+    // Clerk User ID - dla integracji z Clerk. Zadanie bez właściciela ma NO_OWNER ('') zamiast NULL:
+    // po partycjonowaniu clerk_user_id jest częścią klucza głównego (patrz TaskPartitioningMigration)
     @Column(name = "clerk_user_id")
     private String clerkUserId;
 
+    public static final String NO_OWNER = "";
+
+    // Bezpośredni rodzic (podzadanie / pozycja checklisty); pełna hierarchia w task_closure
+    @Column(name = "parent_id")
+    private Long parentId;
+
     // Przypisani użytkownicy (Clerk User IDs) - JSON array
     @Column(name = "assigned_to", columnDefinition = "text")
     private String assignedTo;
@@ -72,9 +98,10 @@ public class Task {
     @JsonProperty("assignedUserNoteAuthor")
     private String assignedUserNoteAuthor;
 
-    // Tagi jako JSON string
-    @Column(name = "tags", columnDefinition = "text")
-    private String tags;
+    // Tagi jako tablica jsonb (indeks GIN - filtrowanie @> i zliczanie w bazie)
+    @JdbcTypeCode(SqlTypes.JSON)
+    @Column(name = "tags", columnDefinition = "jsonb")
+    private String[] tags;
 
     // Zdjęcia jako JSON string (ścieżki do plików)
     @Column(name = "images", columnDefinition = "text")
@@ -93,17 +120,52 @@ public class Task {
     @Column(name = "is_shared_with_me")
     private Boolean isSharedWithMe = false;
 
+    @PrePersist
+    @PreUpdate
+    void beforeSave() {
+        updatedAt = LocalDateTime.now();
+        if (clerkUserId == null) {
+            clerkUserId = NO_OWNER;
+        }
+    }
+
+    // Stare wiersze mogą mieć jeszcze NULL, nowe i zmigrowane - NO_OWNER
+    public boolean hasOwner() {
+        return clerkUserId != null && !clerkUserId.isEmpty();
+    }
+
+    public void setStatus(TaskStatus status) {
+        if (status == TaskStatus.ZAKONCZONE) {
+            if (this.status != TaskStatus.ZAKONCZONE || completedAt == null) {
+                completedAt = LocalDateTime.now();
+            }
+        } else {
+            completedAt = null;
+        }
+        this.status = status;
+    }
+
     // Pola dla frontendu
     public String getUserId() {
-        return user != null ? user.getId().toString() : null;
+        if (user == null) {
+            return null;
+        }
+        // Klucz obcy prosto z proxy - bez inicjalizacji (osobnego SELECT z users dla każdego zadania)
+        if (user instanceof HibernateProxy proxy) {
+            Object id = proxy.getHibernateLazyInitializer().getIdentifier();
+            return id != null ? id.toString() : null;
+        }
+        return user.getId() != null ? user.getId().toString() : null;
     }
 
     public String getCreatedAt() {
         return createdAt != null ? createdAt.toString() : null;
     }
 
+    // Zapisane wartości; starsze wiersze bez updated_at/completed_at dostają najbliższy znany czas
     public String getUpdatedAt() {
-        return java.time.LocalDateTime.now().toString();
+        LocalDateTime value = updatedAt != null ? updatedAt : createdAt;
+        return value != null ? value.toString() : null;
     }
 
     @JsonProperty("dueDate")
@@ -112,34 +174,19 @@ public class Task {
     }
 
     public String getCompletedAt() {
-        return status == TaskStatus.ZAKONCZONE ? java.time.LocalDateTime.now().toString() : null;
+        if (status != TaskStatus.ZAKONCZONE) {
+            return null;
+        }
+        return completedAt != null ? completedAt.toString() : getUpdatedAt();
     }
 
-    // Parsowanie tagów JSON
     @JsonProperty("tags")
     public String[] getTags() {
-        if (tags == null || tags.trim().isEmpty()) {
-            return new String[0];
-        }
-        try {
-            com.fasterxml.jackson.databind.ObjectMapper mapper = new com.fasterxml.jackson.databind.ObjectMapper();
-            return mapper.readValue(tags, String[].class);
-        } catch (Exception e) {
-            return new String[0];
-        }
+        return tags != null ? tags : new String[0];
     }
 
     public void setTags(String[] tagsArray) {
-        if (tagsArray == null || tagsArray.length == 0) {
-            this.tags = null;
-        } else {
-            try {
-                com.fasterxml.jackson.databind.ObjectMapper mapper = new com.fasterxml.jackson.databind.ObjectMapper();
-                this.tags = mapper.writeValueAsString(tagsArray);
-            } catch (Exception e) {
-                this.tags = null;
-            }
-        }
+        this.tags = tagsArray == null || tagsArray.length == 0 ? null : tagsArray;
     }
 
     // Parsowanie zdjęć JSON
@@ -149,8 +196,7 @@ public class Task {
             return new String[0];
         }
         try {
-            com.fasterxml.jackson.databind.ObjectMapper mapper = new com.fasterxml.jackson.databind.ObjectMapper();
-            return mapper.readValue(images, String[].class);
+            return JSON.readValue(images, String[].class);
         } catch (Exception e) {
             return new String[0];
         }
@@ -161,8 +207,7 @@ public class Task {
             this.images = null;
         } else {
             try {
-                com.fasterxml.jackson.databind.ObjectMapper mapper = new com.fasterxml.jackson.databind.ObjectMapper();
-                this.images = mapper.writeValueAsString(imagesArray);
+                this.images = JSON.writeValueAsString(imagesArray);
             } catch (Exception e) {
                 this.images = null;
             }
@@ -176,8 +221,7 @@ public class Task {
             return new String[0];
         }
         try {
-            com.fasterxml.jackson.databind.ObjectMapper mapper = new com.fasterxml.jackson.databind.ObjectMapper();
-            return mapper.readValue(sharedWith, String[].class);
+            return JSON.readValue(sharedWith, String[].class);
         } catch (Exception e) {
             return new String[0];
         }
@@ -188,8 +232,7 @@ public class Task {
             this.sharedWith = null;
         } else {
             try {
-                com.fasterxml.jackson.databind.ObjectMapper mapper = new com.fasterxml.jackson.databind.ObjectMapper();
-                this.sharedWith = mapper.writeValueAsString(sharedWithArray);
+                this.sharedWith = JSON.writeValueAsString(sharedWithArray);
             } catch (Exception e) {
                 this.sharedWith = null;
             }
@@ -203,8 +246,7 @@ public class Task {
             return new String[0];
         }
         try {
-            com.fasterxml.jackson.databind.ObjectMapper mapper = new com.fasterxml.jackson.databind.ObjectMapper();
-            return mapper.readValue(shareRequests, String[].class);
+            return JSON.readValue(shareRequests, String[].class);
         } catch (Exception e) {
             return new String[0];
         }
@@ -215,8 +257,7 @@ public class Task {
             this.shareRequests = null;
         } else {
             try {
-                com.fasterxml.jackson.databind.ObjectMapper mapper = new com.fasterxml.jackson.databind.ObjectMapper();
-                this.shareRequests = mapper.writeValueAsString(shareRequestsArray);
+                this.shareRequests = JSON.writeValueAsString(shareRequestsArray);
             } catch (Exception e) {
                 this.shareRequests = null;
             }
@@ -235,8 +276,7 @@ public class Task {
         // Sprawdź czy to JSON array
         if (trimmed.startsWith("[") && trimmed.endsWith("]")) {
             try {
-                com.fasterxml.jackson.databind.ObjectMapper mapper = new com.fasterxml.jackson.databind.ObjectMapper();
-                return mapper.readValue(trimmed, String[].class);
+                return JSON.readValue(trimmed, String[].class);
             } catch (Exception e) {
                 System.err.println("Error parsing assignedTo JSON: " + e.getMessage());
                 // Jeśli parsowanie się nie udało, traktuj jako pojedynczy string
@@ -253,8 +293,7 @@ public class Task {
             this.assignedTo = null;
         } else {
             try {
-                com.fasterxml.jackson.databind.ObjectMapper mapper = new com.fasterxml.jackson.databind.ObjectMapper();
-                this.assignedTo = mapper.writeValueAsString(assignedToArray);
+                this.assignedTo = JSON.writeValueAsString(assignedToArray);
             } catch (Exception e) {
                 this.assignedTo = null;
             }
@@ -0,0 +1,40 @@
+package com.taskmanager.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+
+// Tabela domknięcia hierarchii zadań: para (przodek, potomek) dla każdego poziomu, depth 1 = bezpośredni rodzic.
+// Bez wierszy dla samego zadania (depth 0) - zadania bez rodzica i dzieci nie mają tu żadnego wiersza.
+// Poddrzewo, przodkowie i przeniesienie poddrzewa to pojedyncze zapytania po indeksach (TaskTreeService)
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Entity
+@Table(name = "task_closure", indexes = {
+        @Index(name = "idx_task_closure_descendant", columnList = "descendant_id, depth")
+})
+@IdClass(TaskClosure.Key.class)
+public class TaskClosure {
+    @Id
+    @Column(name = "ancestor_id")
+    private Long ancestorId;
+
+    @Id
+    @Column(name = "descendant_id")
+    private Long descendantId;
+
+    @Column(name = "depth", nullable = false)
+    private Integer depth;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Key implements Serializable {
+        private Long ancestorId;
+        private Long descendantId;
+    }
+}
@@ -0,0 +1,52 @@
+package com.taskmanager.model;
+
+import jakarta.persistence.*;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.Size;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+// Komentarz do zadania - tylko dopisywany, osobna tabela (zapis nie przepisuje wiersza tasks).
+// Sekwencja z pulą 50 ID: wiele komentarzy trafia do bazy jednym wsadem INSERT (hibernate.jdbc.batch_size).
+// Pule ID są per instancja, więc kolejność wątku wyznacza created_at (ID tylko rozstrzyga remisy)
+@Data
+@NoArgsConstructor
+@Entity
+@Table(name = "task_comments", indexes = {
+        // Keyset: WHERE task_id = ? AND (created_at, id) < (?, ?) ORDER BY created_at DESC, id DESC
+        @Index(name = "idx_task_comments_task_created", columnList = "task_id, created_at, id")
+})
+public class TaskComment {
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "task_comments_seq")
+    @SequenceGenerator(name = "task_comments_seq", sequenceName = "task_comments_seq", allocationSize = 50)
+    private Long id;
+
+    // Samo ID zadania (bez relacji) - dopisanie komentarza nie ładuje zadania
+    @Column(name = "task_id", nullable = false)
+    private Long taskId;
+
+    // Clerk User ID autora
+    @Column(name = "author_id", nullable = false)
+    private String authorId;
+
+    @NotBlank
+    @Size(max = 2000, message = "Komentarz nie może być dłuższy niż 2000 znaków")
+    @Column(name = "body", columnDefinition = "text", nullable = false)
+    private String body;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt = LocalDateTime.now();
+
+    public TaskComment(Long taskId, String authorId, String body) {
+        this.taskId = taskId;
+        this.authorId = authorId;
+        this.body = body;
+    }
+
+    public String getCreatedAt() {
+        return createdAt != null ? createdAt.toString() : null;
+    }
+}
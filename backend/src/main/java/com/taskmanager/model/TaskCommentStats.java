@@ -0,0 +1,34 @@
+package com.taskmanager.model;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+// Podsumowanie komentarzy zadania dla feedu: liczba i ostatni komentarz (zastępuje assignedUserNote).
+// Aktualizowane upsertem przy dopisaniu - feed czyta jeden wiersz na zadanie zamiast liczyć komentarze
+@Data
+@NoArgsConstructor
+@Entity
+@Table(name = "task_comment_stats")
+public class TaskCommentStats {
+    @Id
+    @Column(name = "task_id")
+    private Long taskId;
+
+    @Column(name = "comment_count", nullable = false)
+    private Long commentCount = 0L;
+
+    @Column(name = "last_comment_id")
+    private Long lastCommentId;
+
+    @Column(name = "last_author_id")
+    private String lastAuthorId;
+
+    @Column(name = "last_body", columnDefinition = "text")
+    private String lastBody;
+
+    @Column(name = "last_comment_at")
+    private LocalDateTime lastCommentAt;
+}
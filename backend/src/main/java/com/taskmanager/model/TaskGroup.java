@@ -0,0 +1,44 @@
+package com.taskmanager.model;
+
+import jakarta.persistence.*;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.Size;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+// Zespół / grupa użytkowników. Zadanie udostępnione grupie (task_group_shares) widzą wszyscy jej członkowie -
+// członkostwo rozwijane jest przy odczycie, więc zmiana składu nie zmienia żadnego zadania
+@Data
+@NoArgsConstructor
+@Entity
+@Table(name = "task_groups", indexes = {
+        @Index(name = "idx_task_groups_owner", columnList = "owner_id")
+})
+public class TaskGroup {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @NotBlank
+    @Size(max = 200, message = "Nazwa grupy nie może być dłuższa niż 200 znaków")
+    @Column(length = 200, nullable = false)
+    private String name;
+
+    // Clerk User ID twórcy - tylko on zmienia skład i usuwa grupę
+    @Column(name = "owner_id", nullable = false)
+    private String ownerId;
+
+    @Column(name = "created_at")
+    private LocalDateTime createdAt = LocalDateTime.now();
+
+    public TaskGroup(String name, String ownerId) {
+        this.name = name;
+        this.ownerId = ownerId;
+    }
+
+    public String getCreatedAt() {
+        return createdAt != null ? createdAt.toString() : null;
+    }
+}
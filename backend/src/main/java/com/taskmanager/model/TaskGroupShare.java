@@ -0,0 +1,35 @@
+package com.taskmanager.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+
+// Udostępnienie zadania grupie: jeden wiersz na (zadanie, grupa) niezależnie od liczby członków
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Entity
+@Table(name = "task_group_shares", indexes = {
+        @Index(name = "idx_task_group_shares_group", columnList = "group_id, task_id")
+})
+@IdClass(TaskGroupShare.Key.class)
+public class TaskGroupShare {
+    @Id
+    @Column(name = "task_id")
+    private Long taskId;
+
+    @Id
+    @Column(name = "group_id")
+    private Long groupId;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Key implements Serializable {
+        private Long taskId;
+        private Long groupId;
+    }
+}
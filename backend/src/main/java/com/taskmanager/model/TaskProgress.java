@@ -0,0 +1,23 @@
+package com.taskmanager.model;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+// Postęp poddrzewa zadania: liczba wszystkich potomków i zakończonych (ZAKONCZONE).
+// Utrzymywany przyrostowo przy dodaniu/przeniesieniu/usunięciu poddrzewa i zmianie statusu - odczyt bez chodzenia po drzewie
+@Data
+@NoArgsConstructor
+@Entity
+@Table(name = "task_progress")
+public class TaskProgress {
+    @Id
+    @Column(name = "task_id")
+    private Long taskId;
+
+    @Column(name = "total_count", nullable = false)
+    private Long totalCount = 0L;
+
+    @Column(name = "completed_count", nullable = false)
+    private Long completedCount = 0L;
+}
@@ -0,0 +1,13 @@
+package com.taskmanager.monitoring;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+// Maksymalna liczba zapytań SQL dla endpointu - sprawdzana gdy app.query-stats.enforce-budget=true
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface QueryBudget {
+    int value();
+}
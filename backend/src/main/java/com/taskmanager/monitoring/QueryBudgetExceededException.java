@@ -0,0 +1,7 @@
+package com.taskmanager.monitoring;
+
+public class QueryBudgetExceededException extends RuntimeException {
+    public QueryBudgetExceededException(String endpoint, int statementCount, int budget) {
+        super("Endpoint " + endpoint + " executed " + statementCount + " SQL statements, budget is " + budget);
+    }
+}
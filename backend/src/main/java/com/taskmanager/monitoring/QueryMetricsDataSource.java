@@ -0,0 +1,153 @@
+package com.taskmanager.monitoring;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.CallableStatement;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.Map;
+import java.util.TreeMap;
+
+// Opakowuje DataSource i mierzy każde wykonanie zapytania: licznik per żądanie i log wolnych zapytań.
+// Mierzy też czas trzymania połączenia (od pobrania do zamknięcia) w ramach żądania
+@Slf4j
+public class QueryMetricsDataSource extends DelegatingDataSource {
+
+    private final long slowQueryThresholdNanos;
+
+    public QueryMetricsDataSource(DataSource targetDataSource, Duration slowQueryThreshold) {
+        super(targetDataSource);
+        this.slowQueryThresholdNanos = slowQueryThreshold.toNanos();
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        return wrapConnection(obtainTargetDataSource().getConnection());
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return wrapConnection(obtainTargetDataSource().getConnection(username, password));
+    }
+
+    private Connection wrapConnection(Connection connection) {
+        return (Connection) Proxy.newProxyInstance(
+                Connection.class.getClassLoader(),
+                new Class<?>[]{Connection.class},
+                new ConnectionHandler(connection));
+    }
+
+    private void recordExecution(String sql, Map<Integer, String> parameterShapes, long nanos) {
+        RequestQueryStats stats = RequestQueryStats.current();
+        if (stats != null) {
+            stats.record(sql, nanos);
+        }
+        if (slowQueryThresholdNanos > 0 && nanos >= slowQueryThresholdNanos) {
+            // Logujemy tylko typy parametrów, nigdy wartości
+            log.warn("Slow query ({} ms): {} params={}", nanos / 1_000_000, sql, parameterShapes);
+        }
+    }
+
+    private static Object invokeTarget(Object target, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getTargetException();
+        }
+    }
+
+    private class ConnectionHandler implements InvocationHandler {
+        private final Connection target;
+        private final RequestQueryStats stats = RequestQueryStats.current();
+        private final long openedNanos = System.nanoTime();
+        private boolean closed;
+
+        ConnectionHandler(Connection target) {
+            this.target = target;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            String name = method.getName();
+            if (name.equals("close") && !closed) {
+                closed = true;
+                if (stats != null) {
+                    stats.recordConnectionHold(System.nanoTime() - openedNanos);
+                }
+            }
+            Object result = invokeTarget(target, method, args);
+            if (result instanceof CallableStatement statement && name.equals("prepareCall")) {
+                return wrapStatement(statement, CallableStatement.class, (String) args[0]);
+            }
+            if (result instanceof PreparedStatement statement && name.equals("prepareStatement")) {
+                return wrapStatement(statement, PreparedStatement.class, (String) args[0]);
+            }
+            if (result instanceof Statement statement && name.equals("createStatement")) {
+                return wrapStatement(statement, Statement.class, null);
+            }
+            return result;
+        }
+
+        private Object wrapStatement(Statement statement, Class<?> type, String sql) {
+            return Proxy.newProxyInstance(
+                    type.getClassLoader(),
+                    new Class<?>[]{type},
+                    new StatementHandler(statement, sql));
+        }
+    }
+
+    private class StatementHandler implements InvocationHandler {
+        private final Statement target;
+        private final String preparedSql;
+        private final Map<Integer, String> parameterShapes = new TreeMap<>();
+
+        StatementHandler(Statement target, String preparedSql) {
+            this.target = target;
+            this.preparedSql = preparedSql;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            String name = method.getName();
+
+            if (name.startsWith("set") && args != null && args.length >= 2 && args[0] instanceof Integer index) {
+                parameterShapes.put(index, describeParameter(name, args[1]));
+                return invokeTarget(target, method, args);
+            }
+            if (name.equals("clearParameters")) {
+                parameterShapes.clear();
+                return invokeTarget(target, method, args);
+            }
+            if (!name.startsWith("execute")) {
+                return invokeTarget(target, method, args);
+            }
+
+            String sql = args != null && args.length > 0 && args[0] instanceof String statementSql ? statementSql : preparedSql;
+            long start = System.nanoTime();
+            try {
+                return invokeTarget(target, method, args);
+            } finally {
+                recordExecution(sql, parameterShapes, System.nanoTime() - start);
+            }
+        }
+
+        private String describeParameter(String setterName, Object value) {
+            if (setterName.equals("setNull") || value == null) {
+                return "null";
+            }
+            if (value instanceof String text) {
+                return "String(" + text.length() + ")";
+            }
+            return value.getClass().getSimpleName();
+        }
+    }
+}
@@ -0,0 +1,142 @@
+package com.taskmanager.monitoring;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.util.AntPathMatcher;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+import org.springframework.web.util.ContentCachingResponseWrapper;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// Zbiera liczbę zapytań SQL na żądanie: nagłówek w dev, metryka w prod, budżet w testach
+@Slf4j
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE + 10)
+public class QueryStatsFilter extends OncePerRequestFilter {
+
+    public static final String QUERY_COUNT_HEADER = "X-Query-Count";
+    public static final String QUERY_TIME_HEADER = "X-Query-Time-Ms";
+    public static final String CONNECTION_HOLD_HEADER = "X-Connection-Hold-Ms";
+
+    // Odpowiedzi strumieniowane (eksport zadań, pliki z sendfile/Range) idą do klienta na bieżąco - bez bufora,
+    // więc bez nagłówków statystyk, a przekroczony budżet jest tylko logowany (odpowiedź jest już zatwierdzona)
+    private static final List<String> STREAMING_PATHS = List.of("/api/tasks/export", "/api/files/images/**");
+    private static final AntPathMatcher PATH_MATCHER = new AntPathMatcher();
+
+    private final MeterRegistry meterRegistry;
+    private final boolean exposeHeader;
+    private final boolean enforceBudget;
+    private final int defaultBudget;
+    private final int nPlusOneThreshold;
+
+    public QueryStatsFilter(MeterRegistry meterRegistry,
+                            @Value("${app.query-stats.expose-header:false}") boolean exposeHeader,
+                            @Value("${app.query-stats.enforce-budget:false}") boolean enforceBudget,
+                            @Value("${app.query-stats.default-budget:0}") int defaultBudget,
+                            @Value("${app.query-stats.n-plus-one-threshold:10}") int nPlusOneThreshold) {
+        this.meterRegistry = meterRegistry;
+        this.exposeHeader = exposeHeader;
+        this.enforceBudget = enforceBudget;
+        this.defaultBudget = defaultBudget;
+        this.nPlusOneThreshold = nPlusOneThreshold;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request,
+                                    HttpServletResponse response,
+                                    FilterChain filterChain) throws ServletException, IOException {
+        RequestQueryStats stats = RequestQueryStats.start();
+        // Nagłówek musi być ustawiony przed wysłaniem body, a przekroczenie budżetu musi skończyć się błędem zamiast
+        // już wysłanego 200 - w obu trybach buforujemy odpowiedź (poza strumieniowanymi)
+        boolean buffered = (exposeHeader || enforceBudget) && !isStreaming(request);
+        ContentCachingResponseWrapper cachingResponse = buffered ? new ContentCachingResponseWrapper(response) : null;
+        boolean overBudget = false;
+        try {
+            filterChain.doFilter(request, cachingResponse != null ? cachingResponse : response);
+            overBudget = isOverBudget(request, stats);
+        } finally {
+            RequestQueryStats.clear();
+            String endpoint = request.getMethod() + " " + endpointPattern(request);
+
+            // Po przekroczeniu budżetu bufor jest porzucany - odpowiedź nie jest zatwierdzona i kontener zwróci 500
+            if (cachingResponse != null && !overBudget) {
+                cachingResponse.setHeader(QUERY_COUNT_HEADER, String.valueOf(stats.getStatementCount()));
+                cachingResponse.setHeader(QUERY_TIME_HEADER, String.valueOf(stats.getTotalMillis()));
+                cachingResponse.setHeader(CONNECTION_HOLD_HEADER, String.valueOf(stats.getConnectionHoldNanos() / 1_000_000));
+                cachingResponse.copyBodyToResponse();
+            }
+            recordMetric(request, stats);
+            stats.getRepeatedStatements(nPlusOneThreshold).forEach((sql, count) ->
+                    log.warn("Possible N+1 in {}: statement executed {} times: {}", endpoint, count, sql));
+        }
+
+        if (overBudget && cachingResponse == null) {
+            log.warn("Query budget exceeded by streamed response {} {}: {} statements, budget is {}",
+                    request.getMethod(), endpointPattern(request), stats.getStatementCount(), budgetFor(request));
+        } else if (overBudget) {
+            throw new QueryBudgetExceededException(request.getMethod() + " " + endpointPattern(request),
+                    stats.getStatementCount(), budgetFor(request));
+        }
+    }
+
+    private boolean isStreaming(HttpServletRequest request) {
+        String path = request.getRequestURI().substring(request.getContextPath().length());
+        return STREAMING_PATHS.stream().anyMatch(pattern -> PATH_MATCHER.match(pattern, path));
+    }
+
+    private boolean isOverBudget(HttpServletRequest request, RequestQueryStats stats) {
+        Integer budget = budgetFor(request);
+        return enforceBudget && budget != null && stats.getStatementCount() > budget;
+    }
+
+    private Integer budgetFor(HttpServletRequest request) {
+        Integer budget = (Integer) request.getAttribute(QueryBudgetInterceptor.BUDGET_ATTRIBUTE);
+        if (budget == null && defaultBudget > 0) {
+            budget = defaultBudget;
+        }
+        return budget;
+    }
+
+    private void recordMetric(HttpServletRequest request, RequestQueryStats stats) {
+        DistributionSummary.builder("http.server.requests.queries")
+                .description("SQL statements executed per HTTP request")
+                .tag("method", request.getMethod())
+                .tag("uri", endpointPattern(request))
+                .register(meterRegistry)
+                .record(stats.getStatementCount());
+        if (stats.getStatementCount() == 0) {
+            return;
+        }
+        // Trzymanie połączenia vs czas samych zapytań - różnica to praca poza SQL przy pobranym połączeniu
+        Timer.builder("http.server.requests.connection.hold")
+                .description("Time a request held pooled JDBC connections")
+                .tag("method", request.getMethod())
+                .tag("uri", endpointPattern(request))
+                .register(meterRegistry)
+                .record(stats.getConnectionHoldNanos(), TimeUnit.NANOSECONDS);
+        Timer.builder("http.server.requests.query.time")
+                .description("Time spent executing SQL statements per request")
+                .tag("method", request.getMethod())
+                .tag("uri", endpointPattern(request))
+                .register(meterRegistry)
+                .record(stats.getTotalNanos(), TimeUnit.NANOSECONDS);
+    }
+
+    private String endpointPattern(HttpServletRequest request) {
+        Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        return pattern != null ? pattern.toString() : "UNKNOWN";
+    }
+}
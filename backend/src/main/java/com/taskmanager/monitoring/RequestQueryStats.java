@@ -0,0 +1,69 @@
+package com.taskmanager.monitoring;
+
+import java.util.HashMap;
+import java.util.Map;
+
+// Statystyki zapytań SQL wykonanych w ramach jednego żądania HTTP (per wątek)
+public class RequestQueryStats {
+
+    private static final ThreadLocal<RequestQueryStats> CURRENT = new ThreadLocal<>();
+
+    private int statementCount;
+    private long totalNanos;
+    private long connectionHoldNanos;
+    private final Map<String, Integer> countsBySql = new HashMap<>();
+
+    public static RequestQueryStats start() {
+        RequestQueryStats stats = new RequestQueryStats();
+        CURRENT.set(stats);
+        return stats;
+    }
+
+    public static RequestQueryStats current() {
+        return CURRENT.get();
+    }
+
+    public static void clear() {
+        CURRENT.remove();
+    }
+
+    void record(String sql, long nanos) {
+        statementCount++;
+        totalNanos += nanos;
+        if (sql != null) {
+            countsBySql.merge(sql, 1, Integer::sum);
+        }
+    }
+
+    // Suma czasu, przez który żądanie trzymało połączenia z puli
+    void recordConnectionHold(long nanos) {
+        connectionHoldNanos += nanos;
+    }
+
+    public int getStatementCount() {
+        return statementCount;
+    }
+
+    public long getTotalMillis() {
+        return totalNanos / 1_000_000;
+    }
+
+    public long getConnectionHoldNanos() {
+        return connectionHoldNanos;
+    }
+
+    public long getTotalNanos() {
+        return totalNanos;
+    }
+
+    // Zapytania powtórzone co najmniej threshold razy - typowy objaw N+1
+    public Map<String, Integer> getRepeatedStatements(int threshold) {
+        Map<String, Integer> repeated = new HashMap<>();
+        countsBySql.forEach((sql, count) -> {
+            if (count >= threshold) {
+                repeated.put(sql, count);
+            }
+        });
+        return repeated;
+    }
+}
@@ -0,0 +1,151 @@
+package com.taskmanager.monitoring;
+
+import com.zaxxer.hikari.HikariDataSource;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Rozgrzewka po starcie: wypełnia pule połączeń i wysyła przez loopback żądania do głównych endpointów
+// (filtr autoryzacji, kontrolery, Jackson, zapytania Hibernate) jako syntetyczny użytkownik bez zadań.
+// Do jej zakończenia readiness zwraca OUT_OF_SERVICE (WarmupHealthIndicator).
+@Slf4j
+@Component
+public class StartupWarmup {
+
+    // Tylko odczyty; użytkownik syntetyczny nie ma zadań, statystyki liczą agregaty na prawdziwych danych
+    private static final List<String[]> REQUESTS = List.of(
+            new String[]{"/api/tasks", "application/json"},
+            new String[]{"/api/tasks?includeArchived=true", "application/json"},
+            new String[]{"/api/tasks", "application/cbor"},
+            new String[]{"/api/tasks", "application/x-jackson-smile"},
+            new String[]{"/api/tasks?tag=warmup", "application/json"},
+            new String[]{"/api/tasks/facets", "application/json"},
+            new String[]{"/api/tasks/board", "application/json"},
+            new String[]{"/api/tasks/stats/summary", "application/json"}
+    );
+
+    private final List<HikariDataSource> pools;
+    private final boolean enabled;
+    private final int iterations;
+    private final Duration timeout;
+
+    private volatile boolean completed;
+    private volatile String failure;
+
+    public StartupWarmup(List<HikariDataSource> pools,
+                         @Value("${app.warmup.enabled:true}") boolean enabled,
+                         @Value("${app.warmup.iterations:300}") int iterations,
+                         @Value("${app.warmup.timeout:90s}") Duration timeout) {
+        this.pools = pools;
+        this.enabled = enabled;
+        this.iterations = iterations;
+        this.timeout = timeout;
+        this.completed = !enabled;
+    }
+
+    public boolean isCompleted() {
+        return completed;
+    }
+
+    public String getFailure() {
+        return failure;
+    }
+
+    @EventListener
+    public void onApplicationReady(ApplicationReadyEvent event) {
+        if (!enabled) {
+            return;
+        }
+        String port = event.getApplicationContext().getEnvironment().getProperty("local.server.port");
+        Thread warmup = new Thread(() -> run(port), "startup-warmup");
+        warmup.setDaemon(true);
+        warmup.start();
+    }
+
+    private void run(String port) {
+        long start = System.currentTimeMillis();
+        try {
+            prefillPools();
+            if (port != null) {
+                exerciseEndpoints("http://127.0.0.1:" + port, start + timeout.toMillis());
+            }
+        } catch (Exception e) {
+            // Rozgrzewka to optymalizacja - błąd nie może zablokować ruchu na zawsze
+            failure = e.getMessage();
+            log.warn("Startup warm-up failed, accepting traffic anyway", e);
+        } finally {
+            completed = true;
+            log.info("Startup warm-up finished in {} ms", System.currentTimeMillis() - start);
+        }
+    }
+
+    // Otwiera naraz tyle połączeń, ile ma pula - później Hikari trzyma je jako bezczynne (minimum-idle)
+    private void prefillPools() throws SQLException {
+        for (HikariDataSource pool : pools) {
+            int size = pool.getMaximumPoolSize();
+            List<Connection> connections = new ArrayList<>(size);
+            try {
+                for (int i = 0; i < size; i++) {
+                    connections.add(pool.getConnection());
+                }
+            } finally {
+                for (Connection connection : connections) {
+                    connection.close();
+                }
+            }
+            log.info("Warm-up: pool {} filled with {} connections", pool.getPoolName(), connections.size());
+        }
+    }
+
+    private void exerciseEndpoints(String baseUrl, long deadline) throws InterruptedException {
+        HttpClient client = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(5)).build();
+        String token = syntheticToken();
+        AtomicInteger errors = new AtomicInteger();
+        int sent = 0;
+
+        for (int i = 0; i < iterations && System.currentTimeMillis() < deadline; i++) {
+            for (String[] target : REQUESTS) {
+                HttpRequest request = HttpRequest.newBuilder(URI.create(baseUrl + target[0]))
+                        .timeout(Duration.ofSeconds(30))
+                        .header("Authorization", "Bearer " + token)
+                        .header("Accept", target[1])
+                        .GET()
+                        .build();
+                try {
+                    HttpResponse<byte[]> response = client.send(request, HttpResponse.BodyHandlers.ofByteArray());
+                    if (response.statusCode() >= 400) {
+                        errors.incrementAndGet();
+                    }
+                } catch (IOException e) {
+                    errors.incrementAndGet();
+                }
+                sent++;
+            }
+        }
+        log.info("Warm-up: {} requests sent, {} failed", sent, errors.get());
+    }
+
+    // Token w formacie Clerk (user ID w "sub") - użytkownik syntetyczny, bez zadań
+    private static String syntheticToken() {
+        Base64.Encoder encoder = Base64.getUrlEncoder().withoutPadding();
+        String header = encoder.encodeToString("{\"alg\":\"none\",\"typ\":\"JWT\"}".getBytes(StandardCharsets.UTF_8));
+        String payload = encoder.encodeToString("{\"sub\":\"warmup-synthetic-user\"}".getBytes(StandardCharsets.UTF_8));
+        return header + "." + payload + ".warmup";
+    }
+}
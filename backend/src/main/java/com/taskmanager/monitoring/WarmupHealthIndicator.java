@@ -0,0 +1,26 @@
+package com.taskmanager.monitoring;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.HealthIndicator;
+import org.springframework.stereotype.Component;
+
+// "warmup" w grupie readiness: ruch dopiero po rozgrzewce (liveness bez zmian)
+@Component("warmup")
+@RequiredArgsConstructor
+public class WarmupHealthIndicator implements HealthIndicator {
+
+    private final StartupWarmup startupWarmup;
+
+    @Override
+    public Health health() {
+        if (!startupWarmup.isCompleted()) {
+            return Health.outOfService().withDetail("warmup", "in progress").build();
+        }
+        Health.Builder health = Health.up();
+        if (startupWarmup.getFailure() != null) {
+            health.withDetail("failure", startupWarmup.getFailure());
+        }
+        return health.build();
+    }
+}
@@ -0,0 +1,24 @@
+package com.taskmanager.repository;
+
+import com.taskmanager.model.GroupMembership;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.List;
+
+public interface GroupMembershipRepository extends JpaRepository<GroupMembership, GroupMembership.Key> {
+    @Query("SELECT m.memberId FROM GroupMembership m WHERE m.groupId = :groupId ORDER BY m.memberId")
+    List<String> findMemberIds(@Param("groupId") Long groupId);
+
+    boolean existsByGroupIdAndMemberId(Long groupId, String memberId);
+
+    @Modifying
+    @Query("DELETE FROM GroupMembership m WHERE m.groupId = :groupId AND m.memberId = :memberId")
+    int deleteMember(@Param("groupId") Long groupId, @Param("memberId") String memberId);
+
+    @Modifying
+    @Query("DELETE FROM GroupMembership m WHERE m.groupId = :groupId")
+    int deleteByGroupId(@Param("groupId") Long groupId);
+}
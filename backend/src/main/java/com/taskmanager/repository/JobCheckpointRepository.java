@@ -0,0 +1,7 @@
+package com.taskmanager.repository;
+
+import com.taskmanager.model.JobCheckpoint;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+public interface JobCheckpointRepository extends JpaRepository<JobCheckpoint, String> {
+}
@@ -0,0 +1,24 @@
+package com.taskmanager.repository;
+
+import com.taskmanager.model.TaskComment;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+public interface TaskCommentRepository extends JpaRepository<TaskComment, Long> {
+    // Keyset po (created_at, id): najnowsze najpierw, kolejna strona od ostatniego komentarza poprzedniej
+    @Query(value = "SELECT * FROM task_comments c WHERE c.task_id = :taskId AND (c.created_at, c.id) < (:beforeAt, :beforeId) " +
+            "ORDER BY c.created_at DESC, c.id DESC LIMIT :limit", nativeQuery = true)
+    List<TaskComment> findPageBefore(@Param("taskId") Long taskId,
+                                     @Param("beforeAt") LocalDateTime beforeAt,
+                                     @Param("beforeId") Long beforeId,
+                                     @Param("limit") int limit);
+
+    @Modifying
+    @Query(value = "DELETE FROM task_comments WHERE task_id = :taskId", nativeQuery = true)
+    int deleteByTaskId(@Param("taskId") Long taskId);
+}
@@ -0,0 +1,31 @@
+package com.taskmanager.repository;
+
+import com.taskmanager.model.TaskCommentStats;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDateTime;
+
+public interface TaskCommentStatsRepository extends JpaRepository<TaskCommentStats, Long> {
+    // Jeden upsert na wsad komentarzy; ostatni komentarz podmieniany tylko na nowszy (równoległe wsady)
+    @Modifying
+    @Query(value = "INSERT INTO task_comment_stats AS s (task_id, comment_count, last_comment_id, last_author_id, last_body, last_comment_at) " +
+            "VALUES (:taskId, :added, :lastCommentId, :lastAuthorId, :lastBody, :lastCommentAt) " +
+            "ON CONFLICT (task_id) DO UPDATE SET comment_count = s.comment_count + EXCLUDED.comment_count, " +
+            "last_comment_id = CASE WHEN s.last_comment_at IS NULL OR EXCLUDED.last_comment_at >= s.last_comment_at " +
+            "THEN EXCLUDED.last_comment_id ELSE s.last_comment_id END, " +
+            "last_author_id = CASE WHEN s.last_comment_at IS NULL OR EXCLUDED.last_comment_at >= s.last_comment_at " +
+            "THEN EXCLUDED.last_author_id ELSE s.last_author_id END, " +
+            "last_body = CASE WHEN s.last_comment_at IS NULL OR EXCLUDED.last_comment_at >= s.last_comment_at " +
+            "THEN EXCLUDED.last_body ELSE s.last_body END, " +
+            "last_comment_at = GREATEST(s.last_comment_at, EXCLUDED.last_comment_at)",
+            nativeQuery = true)
+    void recordComments(@Param("taskId") Long taskId,
+                        @Param("added") long added,
+                        @Param("lastCommentId") Long lastCommentId,
+                        @Param("lastAuthorId") String lastAuthorId,
+                        @Param("lastBody") String lastBody,
+                        @Param("lastCommentAt") LocalDateTime lastCommentAt);
+}
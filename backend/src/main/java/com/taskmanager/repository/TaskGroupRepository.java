@@ -0,0 +1,15 @@
+package com.taskmanager.repository;
+
+import com.taskmanager.model.TaskGroup;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.List;
+
+public interface TaskGroupRepository extends JpaRepository<TaskGroup, Long> {
+    // Grupy, które użytkownik utworzył albo do których należy
+    @Query("SELECT g FROM TaskGroup g WHERE g.ownerId = :userId " +
+            "OR g.id IN (SELECT m.groupId FROM GroupMembership m WHERE m.memberId = :userId) ORDER BY g.name")
+    List<TaskGroup> findVisibleTo(@Param("userId") String userId);
+}
@@ -0,0 +1,31 @@
+package com.taskmanager.repository;
+
+import com.taskmanager.model.TaskGroupShare;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.List;
+
+public interface TaskGroupShareRepository extends JpaRepository<TaskGroupShare, TaskGroupShare.Key> {
+    @Query("SELECT s.groupId FROM TaskGroupShare s WHERE s.taskId = :taskId ORDER BY s.groupId")
+    List<Long> findGroupIds(@Param("taskId") Long taskId);
+
+    // Czy użytkownik należy do którejś z grup, którym udostępniono zadanie
+    @Query(value = "SELECT EXISTS (SELECT 1 FROM task_group_shares s JOIN group_memberships m ON m.group_id = s.group_id " +
+            "WHERE s.task_id = :taskId AND m.member_id = :userId)", nativeQuery = true)
+    boolean isVisibleViaGroup(@Param("taskId") Long taskId, @Param("userId") String userId);
+
+    @Modifying
+    @Query("DELETE FROM TaskGroupShare s WHERE s.taskId = :taskId AND s.groupId = :groupId")
+    int deleteShare(@Param("taskId") Long taskId, @Param("groupId") Long groupId);
+
+    @Modifying
+    @Query("DELETE FROM TaskGroupShare s WHERE s.taskId = :taskId")
+    int deleteByTaskId(@Param("taskId") Long taskId);
+
+    @Modifying
+    @Query("DELETE FROM TaskGroupShare s WHERE s.groupId = :groupId")
+    int deleteByGroupId(@Param("groupId") Long groupId);
+}
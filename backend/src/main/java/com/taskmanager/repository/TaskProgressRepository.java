@@ -0,0 +1,7 @@
+package com.taskmanager.repository;
+
+import com.taskmanager.model.TaskProgress;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+public interface TaskProgressRepository extends JpaRepository<TaskProgress, Long> {
+}
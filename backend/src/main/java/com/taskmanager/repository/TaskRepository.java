@@ -1,20 +1,78 @@
 package com.taskmanager.repository;
 
 import com.taskmanager.model.Task;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import java.util.List;
+import java.util.Optional;
 
-public interface TaskRepository extends JpaRepository<Task, Long> {
+// Metody JPQL/derived z jawnym planem pobrania (Task.RESPONSE_GRAPH): wszystko, czego potrzebuje
+// TaskResponseMapper, ładuje się w transakcji serwisu; zapytania natywne mapują tylko kolumny tasks
+public interface TaskRepository extends JpaRepository<Task, Long>, TaskRepositoryCustom {
+    @Override
+    @EntityGraph(Task.RESPONSE_GRAPH)
+    Optional<Task> findById(Long id);
+    @Override
+    @EntityGraph(Task.RESPONSE_GRAPH)
+    List<Task> findAllById(Iterable<Long> ids);
+    @EntityGraph(Task.RESPONSE_GRAPH)
     List<Task> findByUser_Id(Long userId);
+    @EntityGraph(Task.RESPONSE_GRAPH)
     List<Task> findByUser_IdAndStatus(Long userId, Task.TaskStatus status);
+    @EntityGraph(Task.RESPONSE_GRAPH)
     List<Task> findByStatus(Task.TaskStatus status);
+    // Równość na kluczu partycji - po partycjonowaniu skanowana jest tylko jedna partycja
+    @EntityGraph(Task.RESPONSE_GRAPH)
     List<Task> findByClerkUserId(String clerkUserId);
-    // Znajdź zadania przypisane do użytkownika (JSON array zawiera userId)
-    @Query("SELECT t FROM Task t WHERE t.assignedTo LIKE CONCAT('%', :assignedTo, '%') AND t.clerkUserId <> :clerkUserId")
-    List<Task> findByAssignedToContainingAndClerkUserIdNot(@Param("assignedTo") String assignedTo, @Param("clerkUserId") String clerkUserId);
+    // Znajdź zadania przypisane do użytkownika (JSON array zawiera userId) - pattern z TaskVisibilitySql.memberPattern
+    @EntityGraph(Task.RESPONSE_GRAPH)
+    @Query("SELECT t FROM Task t WHERE (t.assignedTo LIKE :pattern ESCAPE '\\' OR t.assignedTo = :assignedTo) AND t.clerkUserId <> :clerkUserId")
+    List<Task> findAssignedAndClerkUserIdNot(@Param("assignedTo") String assignedTo, @Param("pattern") String pattern, @Param("clerkUserId") String clerkUserId);
     
     // Znajdź zadania udostępnione użytkownikowi (gdzie użytkownik jest w sharedWith)
-    List<Task> findBySharedWithContainingAndClerkUserIdNot(String userId, String excludeUserId);
+    @EntityGraph(Task.RESPONSE_GRAPH)
+    @Query("SELECT t FROM Task t WHERE t.sharedWith LIKE :pattern ESCAPE '\\' AND t.clerkUserId <> :clerkUserId")
+    List<Task> findSharedAndClerkUserIdNot(@Param("pattern") String pattern, @Param("clerkUserId") String clerkUserId);
+
+    // Zadania innych właścicieli przez task_members (relation: 'A' przypisane, 'S' udostępnione).
+    // Join po owner_id pozwala przyciąć partycje przy każdym dopasowaniu.
+    @Query(value = "SELECT t.* FROM task_members m JOIN tasks t ON t.id = m.task_id AND t.clerk_user_id = m.owner_id " +
+            "WHERE m.member_id = :memberId AND m.relation = :relation AND m.owner_id <> :clerkUserId", nativeQuery = true)
+    List<Task> findByMemberAndOwnerNot(@Param("memberId") String memberId,
+                                       @Param("relation") String relation,
+                                       @Param("clerkUserId") String clerkUserId);
+
+    // Zadania innych właścicieli udostępnione grupom użytkownika: członkostwo rozwijane przy odczycie
+    // (idx_group_memberships_member -> idx_task_group_shares_group -> PK tasks)
+    @Query(value = "SELECT t.* FROM tasks t WHERE t.id IN (SELECT s.task_id FROM group_memberships m " +
+            "JOIN task_group_shares s ON s.group_id = m.group_id WHERE m.member_id = :clerkUserId) " +
+            "AND t.clerk_user_id <> :clerkUserId", nativeQuery = true)
+    List<Task> findSharedViaGroups(@Param("clerkUserId") String clerkUserId);
+
+    // k najpilniejszych otwartych zadań właściciela: priorytet, potem termin (przeterminowane mają najwcześniejszy),
+    // zadania bez terminu na końcu. ORDER BY odpowiada kolumnom idx_tasks_next_up - LIMIT czyta tylko k wpisów
+    @Query(value = "SELECT t.* FROM tasks t WHERE t.clerk_user_id = :clerkUserId AND t.status IN ('DO_ZROBIENIA', 'W_TRAKCIE') " +
+            "ORDER BY task_priority_rank(t.priority), t.due_date NULLS LAST, t.id LIMIT :k", nativeQuery = true)
+    List<Task> findNextUp(@Param("clerkUserId") String clerkUserId, @Param("k") int k);
+
+    // Potomkowie zadania (bez niego samego) po task_closure - bliższe poziomy pierwsze
+    @Query(value = "SELECT t.* FROM task_closure c JOIN tasks t ON t.id = c.descendant_id " +
+            "WHERE c.ancestor_id = :taskId ORDER BY c.depth, t.id", nativeQuery = true)
+    List<Task> findSubtree(@Param("taskId") Long taskId);
+
+    // Zarchiwizowane zadania właściciela odtworzone z payloadu jsonb (patrz TaskArchiveService)
+    @Query(value = "SELECT (jsonb_populate_record(NULL::tasks, a.payload)).* FROM tasks_archive a WHERE a.clerk_user_id = :clerkUserId",
+            nativeQuery = true)
+    List<Task> findArchivedByClerkUserId(@Param("clerkUserId") String clerkUserId);
+
+    // [status, liczba, liczba przeterminowanych] - przeterminowane liczone jak wcześniej: termin minął i status != ZAKONCZONE
+    @Query(value = "SELECT status, COUNT(*), COUNT(*) FILTER (WHERE due_date < now() AND status <> 'ZAKONCZONE') " +
+            "FROM tasks GROUP BY status", nativeQuery = true)
+    List<Object[]> countByStatus();
+
+    @Query(value = "SELECT status, COUNT(*), COUNT(*) FILTER (WHERE due_date < now() AND status <> 'ZAKONCZONE') " +
+            "FROM tasks_archive GROUP BY status", nativeQuery = true)
+    List<Object[]> countArchivedByStatus();
 }
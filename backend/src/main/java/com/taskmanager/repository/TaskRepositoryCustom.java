@@ -0,0 +1,26 @@
+package com.taskmanager.repository;
+
+import com.taskmanager.model.Task;
+
+import java.util.Collection;
+import java.util.List;
+
+// Zapytania budowane dynamicznie (EntityManager) - implementacja w TaskRepositoryCustomImpl
+public interface TaskRepositoryCustom {
+
+    // Wiersz tablicy Kanban: ID zadania w kolumnie, rozmiar kolumny i liczba zadań za kursorem
+    record BoardEntry(Long taskId, Task.TaskStatus status, long columnTotal, long remaining) {}
+
+    List<BoardEntry> findBoardEntries(String clerkUserId, String userEmail, long[] candidateIds, Task.TaskStatus status, Long cursor, int limit);
+
+    // Liczność jednej wartości fasety: facet = status | priority | tag | total
+    record FacetCount(String facet, String value, long count) {}
+
+    // candidateIds (z indeksu widoczności) zawęża skan do tych ID; null = sam warunek widoczności
+    List<FacetCount> countFacets(String clerkUserId, String userEmail, long[] candidateIds, List<String> tags);
+
+    List<Long> findVisibleIdsByTags(String clerkUserId, String userEmail, long[] candidateIds, List<String> tags);
+
+    // Multi-get: podane ID zawężone do widocznych dla użytkownika, jednym zapytaniem
+    List<Task> findVisibleByIds(String clerkUserId, String userEmail, Collection<Long> ids);
+}
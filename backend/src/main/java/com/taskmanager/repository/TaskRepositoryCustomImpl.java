@@ -0,0 +1,138 @@
+package com.taskmanager.repository;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.taskmanager.model.Task;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.Query;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.stream.Collectors;
+
+public class TaskRepositoryCustomImpl implements TaskRepositoryCustom {
+
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    static void bindVisibility(Query query, String clerkUserId, String userEmail) {
+        query.setParameter("clerkUserId", clerkUserId);
+        query.setParameter("userPattern", TaskVisibilitySql.memberPattern(clerkUserId));
+        if (TaskVisibilitySql.hasEmail(userEmail)) {
+            query.setParameter("userEmail", userEmail.trim());
+            query.setParameter("emailPattern", TaskVisibilitySql.memberPattern(userEmail.trim()));
+        }
+    }
+
+    // Jedno zapytanie z funkcjami okna: pozycja w kolumnie za kursorem, rozmiar kolumny i ile zostało
+    @Override
+    public List<BoardEntry> findBoardEntries(String clerkUserId, String userEmail, long[] candidateIds, Task.TaskStatus status, Long cursor, int limit) {
+        String sql = "SELECT ranked.id, ranked.status, ranked.column_total, ranked.remaining FROM ("
+                + " SELECT t.id, t.status,"
+                + " count(*) FILTER (WHERE t.id < :cursor) OVER (PARTITION BY t.status ORDER BY t.id DESC) AS position,"
+                + " count(*) FILTER (WHERE t.id < :cursor) OVER (PARTITION BY t.status) AS remaining,"
+                + " count(*) OVER (PARTITION BY t.status) AS column_total"
+                + " FROM tasks t"
+                + " WHERE " + visibleWhere(userEmail, candidateIds, null)
+                + (status != null ? " AND t.status = :status" : "")
+                + " ) ranked"
+                + " WHERE ranked.id < :cursor AND ranked.position <= :limit"
+                + " ORDER BY ranked.status, ranked.id DESC";
+
+        Query query = entityManager.createNativeQuery(sql);
+        bindVisibleWhere(query, clerkUserId, userEmail, candidateIds, null);
+        query.setParameter("cursor", cursor != null ? cursor : Long.MAX_VALUE);
+        query.setParameter("limit", limit);
+        if (status != null) {
+            query.setParameter("status", status.name());
+        }
+
+        List<BoardEntry> entries = new ArrayList<>();
+        for (Object row : query.getResultList()) {
+            Object[] columns = (Object[]) row;
+            entries.add(new BoardEntry(
+                    ((Number) columns[0]).longValue(),
+                    Task.TaskStatus.valueOf((String) columns[1]),
+                    ((Number) columns[2]).longValue(),
+                    ((Number) columns[3]).longValue()));
+        }
+        return entries;
+    }
+
+    // Jedno zapytanie: status/priorytet przez GROUPING SETS (z sumą), tagi przez rozwinięcie tablicy jsonb
+    @Override
+    public List<FacetCount> countFacets(String clerkUserId, String userEmail, long[] candidateIds, List<String> tags) {
+        String sql = "WITH visible AS MATERIALIZED ("
+                + " SELECT t.status, t.priority, t.tags FROM tasks t WHERE " + visibleWhere(userEmail, candidateIds, tags)
+                + " )"
+                + " SELECT CASE WHEN GROUPING(status) = 0 THEN 'status' WHEN GROUPING(priority) = 0 THEN 'priority' ELSE 'total' END,"
+                + " COALESCE(status, priority), count(*)"
+                + " FROM visible GROUP BY GROUPING SETS ((status), (priority), ())"
+                + " UNION ALL"
+                + " SELECT 'tag', tag, count(*) FROM visible"
+                + " CROSS JOIN LATERAL jsonb_array_elements_text("
+                + "CASE WHEN jsonb_typeof(visible.tags) = 'array' THEN visible.tags ELSE '[]'::jsonb END) AS tag"
+                + " GROUP BY tag"
+                + " ORDER BY 1, 3 DESC, 2";
+
+        Query query = entityManager.createNativeQuery(sql);
+        bindVisibleWhere(query, clerkUserId, userEmail, candidateIds, tags);
+
+        List<FacetCount> counts = new ArrayList<>();
+        for (Object row : query.getResultList()) {
+            Object[] columns = (Object[]) row;
+            counts.add(new FacetCount((String) columns[0], (String) columns[1], ((Number) columns[2]).longValue()));
+        }
+        return counts;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public List<Long> findVisibleIdsByTags(String clerkUserId, String userEmail, long[] candidateIds, List<String> tags) {
+        Query query = entityManager.createNativeQuery(
+                "SELECT t.id FROM tasks t WHERE " + visibleWhere(userEmail, candidateIds, tags) + " ORDER BY t.id");
+        bindVisibleWhere(query, clerkUserId, userEmail, candidateIds, tags);
+        return ((List<Number>) query.getResultList()).stream().map(Number::longValue).collect(Collectors.toList());
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public List<Task> findVisibleByIds(String clerkUserId, String userEmail, Collection<Long> ids) {
+        Query query = entityManager.createNativeQuery(
+                "SELECT t.* FROM tasks t WHERE t.id = ANY(CAST(:ids AS bigint[]))"
+                        + " AND " + TaskVisibilitySql.visibleToUser(TaskVisibilitySql.hasEmail(userEmail)),
+                Task.class);
+        bindVisibility(query, clerkUserId, userEmail);
+        query.setParameter("ids", ids.stream().map(String::valueOf).collect(Collectors.joining(",", "{", "}")));
+        return query.getResultList();
+    }
+
+    private static String visibleWhere(String userEmail, long[] candidateIds, List<String> tags) {
+        return TaskVisibilitySql.visibleToUser(TaskVisibilitySql.hasEmail(userEmail))
+                // Indeks widoczności nie zna grup - zadania grup przechodzą obok kandydatów
+                + (candidateIds != null ? " AND (t.id = ANY(CAST(:candidateIds AS bigint[])) OR " + TaskVisibilitySql.SHARED_VIA_GROUP + ")" : "")
+                + (tags != null && !tags.isEmpty() ? " AND t.tags @> CAST(:tags AS jsonb)" : "");
+    }
+
+    private static void bindVisibleWhere(Query query, String clerkUserId, String userEmail, long[] candidateIds, List<String> tags) {
+        bindVisibility(query, clerkUserId, userEmail);
+        if (candidateIds != null) {
+            // Literał tablicy Postgresa: {1,2,3}
+            query.setParameter("candidateIds", Arrays.stream(candidateIds)
+                    .mapToObj(Long::toString)
+                    .collect(Collectors.joining(",", "{", "}")));
+        }
+        if (tags != null && !tags.isEmpty()) {
+            try {
+                query.setParameter("tags", OBJECT_MAPPER.writeValueAsString(tags));
+            } catch (JsonProcessingException e) {
+                throw new RuntimeException("Could not serialize tag filter", e);
+            }
+        }
+    }
+}
@@ -0,0 +1,46 @@
+package com.taskmanager.repository;
+
+// Warunek widoczności zadania jako fragment SQL (alias t, parametry :clerkUserId, :userPattern, :userEmail,
+// :emailPattern) - wspólny dla backendu (JPA) i modułu reactive-read (R2DBC), więc bez zależności poza JDK
+public final class TaskVisibilitySql {
+
+    private TaskVisibilitySql() {
+    }
+
+    // Udostępnienie przez grupę, do której należy użytkownik (członkostwo rozwijane przy odczycie)
+    public static final String SHARED_VIA_GROUP = "EXISTS (SELECT 1 FROM task_group_shares gs"
+            + " JOIN group_memberships gm ON gm.group_id = gs.group_id"
+            + " WHERE gs.task_id = t.id AND gm.member_id = :clerkUserId)";
+
+    // Przypisanie (ID albo email) lub bezpośrednie udostępnienie. Wzorce dopasowują cały element tablicy JSON
+    // ("id" w cudzysłowach, patrz memberPattern); równość to stare wartości zapisane jako pojedynczy string
+    public static String assignedOrShared(boolean withEmail) {
+        return "t.assigned_to LIKE :userPattern ESCAPE '\\' OR t.assigned_to = :clerkUserId"
+                + " OR t.shared_with LIKE :userPattern ESCAPE '\\'"
+                + (withEmail ? " OR t.assigned_to LIKE :emailPattern ESCAPE '\\' OR t.assigned_to = :userEmail" : "");
+    }
+
+    // Widoczność jak w feedzie: właściciel, przypisany lub udostępniony (bezpośrednio albo grupie)
+    public static String visibleToUser(boolean withEmail) {
+        return "(t.clerk_user_id = :clerkUserId OR (t.clerk_user_id <> :clerkUserId AND ("
+                + assignedOrShared(withEmail)
+                + " OR " + SHARED_VIA_GROUP
+                + ")))";
+    }
+
+    // Kolejność feedu: własne, potem przypisane/udostępnione, na końcu udostępnione tylko grupie
+    public static String feedOrder(boolean withEmail) {
+        return "CASE WHEN t.clerk_user_id = :clerkUserId THEN 0 WHEN " + assignedOrShared(withEmail) + " THEN 1 ELSE 2 END";
+    }
+
+    // Wzorzec LIKE na element tablicy JSON: wartość w cudzysłowach (jak zapisuje ją Jackson), znaki %, _ i \ z danych
+    // klienta poprzedzone znakiem ucieczki - "%" w emailu nie dopasuje wszystkich zadań
+    public static String memberPattern(String member) {
+        String element = "\"" + member.replace("\\", "\\\\").replace("\"", "\\\"") + "\"";
+        return "%" + element.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_") + "%";
+    }
+
+    public static boolean hasEmail(String userEmail) {
+        return userEmail != null && !userEmail.trim().isEmpty();
+    }
+}
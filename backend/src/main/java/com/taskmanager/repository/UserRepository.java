@@ -1,11 +1,15 @@
 package com.taskmanager.repository;
 
 import com.taskmanager.model.User;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import java.util.Optional;
 
 public interface UserRepository extends JpaRepository<User, Long> {
     Optional<User> findByUsername(String username);
+    // Odpowiedź logowania serializuje user.tasks - bez OSIV muszą być pobrane w transakcji (jeden JOIN)
+    @EntityGraph(attributePaths = "tasks")
+    Optional<User> findWithTasksByUsername(String username);
     Optional<User> findByEmail(String email);
     boolean existsByUsername(String username);
     boolean existsByEmail(String email);
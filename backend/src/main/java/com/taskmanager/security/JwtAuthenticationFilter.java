@@ -22,6 +22,7 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
     private final JwtTokenProvider tokenProvider;
     private final UserDetailsService userDetailsService;
+    private final PrincipalCache principalCache;
 
     @Override
     protected void doFilterInternal(HttpServletRequest request,
@@ -31,11 +32,12 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
             String jwt = getJwtFromRequest(request);
             log.info("Processing request to: {} with JWT: {}", request.getRequestURI(), jwt != null ? "present" : "absent");
 
-            if (StringUtils.hasText(jwt) && tokenProvider.validateToken(jwt)) {
-                String username = tokenProvider.getUsernameFromToken(jwt);
+            String username = StringUtils.hasText(jwt) ? tokenProvider.getValidatedUsername(jwt) : null;
+            if (username != null) {
                 log.info("Valid JWT token for user: {}", username);
 
-                UserDetails userDetails = userDetailsService.loadUserByUsername(username);
+                // Bez zapytania do users przy każdym żądaniu - krótki TTL, unieważniany przy zmianie konta
+                UserDetails userDetails = principalCache.get(username, userDetailsService::loadUserByUsername);
                 UsernamePasswordAuthenticationToken authentication =
                     new UsernamePasswordAuthenticationToken(userDetails, null, userDetails.getAuthorities());
                 authentication.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
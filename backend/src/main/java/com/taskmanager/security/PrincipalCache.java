@@ -0,0 +1,77 @@
+package com.taskmanager.security;
+
+import com.taskmanager.cluster.ClusterEvent;
+import com.taskmanager.cluster.ClusterMessage;
+import com.taskmanager.service.UserChangedEvent;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+// Cache UserDetails dla starego JWT (username -> principal) z krótkim TTL i limitem rozmiaru.
+// Zmiana użytkownika (także na innym węźle) usuwa wpis od razu.
+@Component
+public class PrincipalCache {
+
+    private record Entry(UserDetails userDetails, long expiresAtMillis) {}
+
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+    private final long ttlMillis;
+    private final int maxSize;
+
+    public PrincipalCache(@Value("${app.auth.principal-cache.ttl:60s}") Duration ttl,
+                          @Value("${app.auth.principal-cache.max-size:10000}") int maxSize) {
+        this.ttlMillis = ttl.toMillis();
+        this.maxSize = maxSize;
+    }
+
+    public UserDetails get(String username, Function<String, UserDetails> loader) {
+        long now = System.currentTimeMillis();
+        Entry entry = entries.get(username);
+        if (entry != null && entry.expiresAtMillis() > now) {
+            return entry.userDetails();
+        }
+
+        UserDetails userDetails = loader.apply(username);
+        if (ttlMillis > 0) {
+            if (entries.size() >= maxSize) {
+                evict(now);
+            }
+            entries.put(username, new Entry(userDetails, now + ttlMillis));
+        }
+        return userDetails;
+    }
+
+    public void invalidate(String username) {
+        if (username != null) {
+            entries.remove(username);
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onUserChanged(UserChangedEvent event) {
+        invalidate(event.username());
+    }
+
+    // Zdarzenia z przerwy w połączeniu z klastrem przepadły
+    @EventListener
+    public void onClusterEvent(ClusterEvent event) {
+        if (event.topic() == ClusterMessage.Topic.RESYNC) {
+            entries.clear();
+        }
+    }
+
+    // Najpierw przeterminowane; jeśli to nie wystarczy - całość (limit pamięci ważniejszy niż trafienia)
+    private void evict(long now) {
+        entries.values().removeIf(entry -> entry.expiresAtMillis() <= now);
+        if (entries.size() >= maxSize) {
+            entries.clear();
+        }
+    }
+}
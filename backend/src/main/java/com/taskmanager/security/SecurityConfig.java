@@ -1,5 +1,6 @@
 package com.taskmanager.security;
 
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.security.authentication.AuthenticationManager;
@@ -22,16 +23,23 @@ public class SecurityConfig {
     }
 
     @Bean
-    public SecurityFilterChain securityFilterChain(HttpSecurity http) throws Exception {
+    public SecurityFilterChain securityFilterChain(
+            HttpSecurity http,
+            @Value("${app.external-users.sync-token:}") String syncToken) throws Exception {
         http
         .csrf(csrf -> csrf.disable())
         .cors(cors -> cors.configurationSource(corsConfigurationSource()))
         .authorizeHttpRequests(auth -> auth
             .requestMatchers("/api/tasks/**").authenticated()  // Zadania wymagają autentykacji
+            .requestMatchers("/api/groups/**").authenticated()  // Grupy udostępniania też
+            .requestMatchers("/api/batch").authenticated()  // Paczka przekazuje token do podżądań
+            // Synchronizacja może wyłączyć cały katalog - tylko usługa z tokenem, nie zwykły użytkownik
+            .requestMatchers("/api/external-users/sync").hasRole(ServiceTokenAuthenticationFilter.SERVICE_ROLE)
             .anyRequest().permitAll()
         )
         .sessionManagement(session -> session.sessionCreationPolicy(SessionCreationPolicy.STATELESS))
-        .addFilterBefore(new ClerkAuthenticationFilter(), UsernamePasswordAuthenticationFilter.class);
+        .addFilterBefore(new ClerkAuthenticationFilter(), UsernamePasswordAuthenticationFilter.class)
+        .addFilterAfter(new ServiceTokenAuthenticationFilter(syncToken), ClerkAuthenticationFilter.class);
         
     return http.build();
 }
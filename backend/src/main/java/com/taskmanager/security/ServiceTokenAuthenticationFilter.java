@@ -0,0 +1,50 @@
+package com.taskmanager.security;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.util.StringUtils;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.List;
+
+// Uwierzytelnianie usług (np. synchronizacja katalogu z Clerk) współdzielonym tokenem w nagłówku X-Service-Token.
+// Poprawny token daje ROLE_SERVICE; pusty token w konfiguracji = żadna usługa nie zostanie uwierzytelniona
+@Slf4j
+public class ServiceTokenAuthenticationFilter extends OncePerRequestFilter {
+
+    public static final String SERVICE_TOKEN_HEADER = "X-Service-Token";
+    public static final String SERVICE_ROLE = "SERVICE";
+
+    private final byte[] serviceToken;
+
+    public ServiceTokenAuthenticationFilter(String serviceToken) {
+        this.serviceToken = StringUtils.hasText(serviceToken) ? serviceToken.getBytes(StandardCharsets.UTF_8) : null;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request,
+                                    HttpServletResponse response,
+                                    FilterChain filterChain) throws ServletException, IOException {
+        String token = request.getHeader(SERVICE_TOKEN_HEADER);
+        if (serviceToken != null && token != null) {
+            // Porównanie w stałym czasie - bez podpowiedzi, ile znaków tokenu się zgadza
+            if (MessageDigest.isEqual(serviceToken, token.getBytes(StandardCharsets.UTF_8))) {
+                UsernamePasswordAuthenticationToken authentication = new UsernamePasswordAuthenticationToken(
+                        "service", null, List.of(new SimpleGrantedAuthority("ROLE_" + SERVICE_ROLE)));
+                SecurityContextHolder.getContext().setAuthentication(authentication);
+            } else {
+                log.warn("Invalid service token for request to: {}", request.getRequestURI());
+            }
+        }
+        filterChain.doFilter(request, response);
+    }
+}
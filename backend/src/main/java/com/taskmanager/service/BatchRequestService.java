@@ -0,0 +1,173 @@
+package com.taskmanager.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PreDestroy;
+import jakarta.servlet.http.HttpServletRequest;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContext;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.DispatcherServlet;
+import org.springframework.web.util.UriUtils;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// POST /api/batch: kilka odczytów w jednym żądaniu klienta. Podżądania wykonuje w procesie DispatcherServlet
+// na własnej, ograniczonej puli wątków (nie na wątkach Tomcata i bez gniazd loopback) - ten sam kontroler,
+// @QueryBudget i routing odczytów co osobne wywołania, z kontekstem bezpieczeństwa wywołującego.
+// Filtry serwletu nie są wykonywane: uwierzytelnienie przychodzi z żądania paczki (/api/batch wymaga zalogowania),
+// a zalogowany użytkownik ma dostęp do wszystkich ścieżek GET /api/ przepuszczanych przez validatePath
+@Slf4j
+@Service
+public class BatchRequestService {
+
+    public record SubRequest(String id, String path) {}
+
+    private final DispatcherServlet dispatcherServlet;
+    private final ObjectMapper objectMapper;
+    private final int maxRequests;
+    private final Duration timeout;
+    private final ThreadPoolExecutor executor;
+
+    public BatchRequestService(DispatcherServlet dispatcherServlet,
+                               ObjectMapper objectMapper,
+                               @Value("${app.batch.max-requests:20}") int maxRequests,
+                               @Value("${app.batch.timeout:10s}") Duration timeout,
+                               @Value("${app.batch.threads:4}") int threads,
+                               @Value("${app.batch.queue-capacity:100}") int queueCapacity) {
+        this.dispatcherServlet = dispatcherServlet;
+        this.objectMapper = objectMapper;
+        this.maxRequests = maxRequests;
+        this.timeout = timeout;
+        // Pełna kolejka = podżądanie od razu dostaje 503, zamiast czekać na wolny wątek
+        AtomicInteger threadNumber = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), runnable -> {
+                    Thread thread = new Thread(runnable, "batch-request-" + threadNumber.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    // Wyniki w kolejności żądań: {"id", "status", "body"}; błąd jednego podżądania nie przerywa pozostałych
+    public List<Map<String, Object>> execute(List<SubRequest> requests, HttpServletRequest request, Authentication authentication) {
+        if (requests.isEmpty()) {
+            throw new IllegalArgumentException("Brak żądań w paczce");
+        }
+        if (requests.size() > maxRequests) {
+            throw new IllegalArgumentException("Maksymalnie " + maxRequests + " żądań w paczce");
+        }
+        for (SubRequest subRequest : requests) {
+            validatePath(subRequest.path());
+        }
+
+        List<Future<Map<String, Object>>> futures = new ArrayList<>();
+        for (SubRequest subRequest : requests) {
+            // Kopia żądania powstaje tutaj, na wątku żądania zewnętrznego
+            BatchSubRequest servletRequest = new BatchSubRequest(request, subRequest.path(), authentication);
+            try {
+                futures.add(executor.submit(() -> dispatch(subRequest, servletRequest, authentication)));
+            } catch (RejectedExecutionException e) {
+                log.warn("Batch executor is full, rejecting sub-request {}", subRequest.path());
+                futures.add(null);
+            }
+        }
+
+        long deadline = System.nanoTime() + timeout.toNanos();
+        List<Map<String, Object>> results = new ArrayList<>();
+        for (int i = 0; i < requests.size(); i++) {
+            results.add(await(requests.get(i), futures.get(i), deadline));
+        }
+        return results;
+    }
+
+    private Map<String, Object> dispatch(SubRequest subRequest, BatchSubRequest servletRequest, Authentication authentication) {
+        SecurityContext context = SecurityContextHolder.createEmptyContext();
+        context.setAuthentication(authentication);
+        SecurityContextHolder.setContext(context);
+        BatchSubResponse servletResponse = new BatchSubResponse();
+        try {
+            dispatcherServlet.service(servletRequest, servletResponse);
+        } catch (Exception e) {
+            log.warn("Batch sub-request {} failed: {}", subRequest.path(), e.toString());
+            return result(subRequest.id(), 500, Map.of("error", "Podżądanie nie powiodło się"));
+        } finally {
+            SecurityContextHolder.clearContext();
+        }
+
+        byte[] body = servletResponse.body();
+        if (body.length == 0 && servletResponse.errorMessage() != null) {
+            return result(subRequest.id(), servletResponse.status(), Map.of("error", servletResponse.errorMessage()));
+        }
+        return result(subRequest.id(), servletResponse.status(), parseBody(body));
+    }
+
+    private Map<String, Object> await(SubRequest subRequest, Future<Map<String, Object>> future, long deadline) {
+        if (future == null) {
+            return result(subRequest.id(), 503, Map.of("error", "Zbyt wiele podżądań naraz"));
+        }
+        try {
+            return future.get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+        } catch (TimeoutException e) {
+            future.cancel(true);
+            log.warn("Batch sub-request {} timed out after {}", subRequest.path(), timeout);
+            return result(subRequest.id(), 504, Map.of("error", "Podżądanie nie powiodło się"));
+        } catch (ExecutionException e) {
+            log.warn("Batch sub-request {} failed: {}", subRequest.path(), e.getCause().toString());
+            return result(subRequest.id(), 500, Map.of("error", "Podżądanie nie powiodło się"));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            future.cancel(true);
+            return result(subRequest.id(), 503, Map.of("error", "Podżądanie nie powiodło się"));
+        }
+    }
+
+    // Tylko odczyty API; bez zagnieżdżonych paczek i wyjść poza /api/ (także zakodowanych jako %2e%2e)
+    private static void validatePath(String path) {
+        if (path == null || !path.startsWith("/api/") || path.startsWith("/api/batch")
+                || UriUtils.decode(path, StandardCharsets.UTF_8).contains("..")
+                || path.contains("#") || path.chars().anyMatch(Character::isWhitespace)) {
+            throw new IllegalArgumentException("Niedozwolona ścieżka w paczce: " + path);
+        }
+    }
+
+    private Object parseBody(byte[] body) {
+        if (body == null || body.length == 0) {
+            return null;
+        }
+        try {
+            return objectMapper.readTree(body);
+        } catch (IOException e) {
+            return new String(body, StandardCharsets.UTF_8);
+        }
+    }
+
+    private static Map<String, Object> result(String id, int status, Object body) {
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("id", id);
+        result.put("status", status);
+        result.put("body", body);
+        return result;
+    }
+}
@@ -0,0 +1,9 @@
+package com.taskmanager.service;
+
+// Publikowane przez ExternalUserService przy każdej zmianie użytkownika zewnętrznego
+public record ExternalUserChangedEvent(String userId, boolean remote) {
+
+    public ExternalUserChangedEvent(String userId) {
+        this(userId, false);
+    }
+}
@@ -3,25 +3,33 @@ package com.taskmanager.service;
 import com.taskmanager.model.ExternalUser;
 import com.taskmanager.repository.ExternalUserRepository;
 import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 
 @Service
 @RequiredArgsConstructor
 public class ExternalUserService {
     private final ExternalUserRepository externalUserRepository;
+    private final ApplicationEventPublisher eventPublisher;
 
+    @Transactional(readOnly = true)
     public List<ExternalUser> getAllUsers() {
         return externalUserRepository.findAll();
     }
 
+    @Transactional(readOnly = true)
     public List<ExternalUser> getActiveUsers() {
         return externalUserRepository.findByIsActiveTrue();
     }
 
+    @Transactional(readOnly = true)
     public List<ExternalUser> searchUsers(String searchTerm) {
         if (searchTerm == null || searchTerm.trim().isEmpty()) {
             return getAllUsers();
@@ -29,6 +37,17 @@ public class ExternalUserService {
         return externalUserRepository.findByNameContainingIgnoreCase(searchTerm.trim());
     }
 
+    // Multi-get (GET /api/external-users?ids=): jedno zapytanie IN, kolejność jak w żądaniu, nieznane ID pomijane
+    @Transactional(readOnly = true)
+    public List<ExternalUser> getUsersByIds(List<String> ids) {
+        Map<String, ExternalUser> byId = new HashMap<>();
+        for (ExternalUser user : externalUserRepository.findAllById(ids)) {
+            byId.put(user.getId(), user);
+        }
+        return ids.stream().distinct().map(byId::get).filter(Objects::nonNull).toList();
+    }
+
+    @Transactional(readOnly = true)
     public ExternalUser getUserById(String id) {
         return externalUserRepository.findById(id)
                 .orElseThrow(() -> new RuntimeException("External user not found with id: " + id));
@@ -43,7 +62,7 @@ public class ExternalUserService {
 
         user.setCreatedAt(LocalDateTime.now());
         user.setUpdatedAt(LocalDateTime.now());
-        return externalUserRepository.save(user);
+        return publishChange(externalUserRepository.save(user));
     }
 
     @Transactional
@@ -58,12 +77,19 @@ public class ExternalUserService {
         }
 
         user.setUpdatedAt(LocalDateTime.now());
-        return externalUserRepository.save(user);
+        return publishChange(externalUserRepository.save(user));
     }
 
     @Transactional
     public void deleteUser(String id) {
         ExternalUser user = getUserById(id);
         externalUserRepository.delete(user);
+        eventPublisher.publishEvent(new ExternalUserChangedEvent(id));
+    }
+
+    // Obsługa zdarzenia jest powiązana z transakcją - rollback je anuluje
+    private ExternalUser publishChange(ExternalUser user) {
+        eventPublisher.publishEvent(new ExternalUserChangedEvent(user.getId()));
+        return user;
     }
 }
@@ -0,0 +1,244 @@
+package com.taskmanager.service;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.sql.Array;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+// Synchronizacja katalogu użytkowników Clerk: strumieniowo parsowana tablica JSON, upsert paczkami
+// jednym INSERT ... ON CONFLICT DO UPDATE na paczkę (zamiast existsById + save na użytkownika)
+@Slf4j
+@Service
+public class ExternalUserSyncService {
+
+    // Wiersze bez zmian nie są aktualizowane ani zwracane; xmax = 0 oznacza nowo wstawiony wiersz
+    private static final String UPSERT_SQL = """
+            INSERT INTO external_users (id, name, avatar, is_active, created_at, updated_at)
+            SELECT u.id, u.name, u.avatar, u.is_active, now(), now()
+            FROM unnest(CAST(? AS text[]), CAST(? AS text[]), CAST(? AS text[]), CAST(? AS boolean[])) AS u(id, name, avatar, is_active)
+            ON CONFLICT (id) DO UPDATE
+                SET name = EXCLUDED.name, avatar = EXCLUDED.avatar, is_active = EXCLUDED.is_active, updated_at = now()
+                WHERE (external_users.name, external_users.avatar, external_users.is_active)
+                      IS DISTINCT FROM (EXCLUDED.name, EXCLUDED.avatar, EXCLUDED.is_active)
+            RETURNING id, (xmax = 0) AS inserted""";
+
+    private static final String DEACTIVATE_SQL = """
+            UPDATE external_users SET is_active = false, updated_at = now()
+            WHERE is_active IS DISTINCT FROM false AND id <> ALL(CAST(? AS text[]))
+            RETURNING id""";
+
+    private static final int MAX_REPORTED_ERRORS = 100;
+
+    private record SyncedUser(String id, String name, String avatar, boolean active) {}
+
+    public static class SyncResult {
+        private long received;
+        private long inserted;
+        private long updated;
+        private long unchanged;
+        private long deactivated;
+        private long failed;
+        private boolean deactivationSkipped;
+        private final List<Map<String, Object>> errors = new ArrayList<>();
+
+        void fail(long index, String error) {
+            failed++;
+            if (errors.size() < MAX_REPORTED_ERRORS) {
+                Map<String, Object> entry = new HashMap<>();
+                entry.put("index", index);
+                entry.put("error", error);
+                errors.add(entry);
+            }
+        }
+
+        public Map<String, Object> toMap() {
+            Map<String, Object> result = new HashMap<>();
+            result.put("received", received);
+            result.put("inserted", inserted);
+            result.put("updated", updated);
+            result.put("unchanged", unchanged);
+            result.put("deactivated", deactivated);
+            result.put("failed", failed);
+            result.put("errors", errors);
+            if (deactivationSkipped) {
+                result.put("deactivationSkipped", true);
+            }
+            return result;
+        }
+    }
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final ObjectMapper objectMapper;
+    private final ApplicationEventPublisher eventPublisher;
+    private final int batchSize;
+
+    public ExternalUserSyncService(JdbcTemplate jdbcTemplate,
+                                   PlatformTransactionManager transactionManager,
+                                   ObjectMapper objectMapper,
+                                   ApplicationEventPublisher eventPublisher,
+                                   @Value("${app.external-users.sync-batch-size:1000}") int batchSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.objectMapper = objectMapper;
+        this.eventPublisher = eventPublisher;
+        this.batchSize = batchSize;
+    }
+
+    // deactivateMissing: użytkownicy spoza przesłanej listy dostają is_active = false
+    // (tylko gdy całe wejście zostało poprawnie wczytane - ucięty plik nie może wyłączyć reszty katalogu)
+    public SyncResult sync(InputStream input, boolean deactivateMissing) throws IOException {
+        SyncResult result = new SyncResult();
+        Set<String> seenIds = new HashSet<>();
+        Map<String, SyncedUser> batch = new LinkedHashMap<>();
+
+        try (JsonParser parser = objectMapper.getFactory().createParser(input)) {
+            if (parser.nextToken() != JsonToken.START_ARRAY) {
+                throw new IllegalArgumentException("Oczekiwano tablicy JSON z użytkownikami");
+            }
+            long index = 0;
+            while (parser.nextToken() != JsonToken.END_ARRAY) {
+                if (parser.currentToken() == null) {
+                    throw new IllegalArgumentException("Niekompletna tablica JSON");
+                }
+                JsonNode node = parser.readValueAsTree();
+                result.received++;
+                try {
+                    SyncedUser user = toSyncedUser(node);
+                    seenIds.add(user.id());
+                    // Powtórzone ID w jednej paczce: wygrywa ostatnie (ON CONFLICT nie zmieni wiersza dwa razy)
+                    batch.remove(user.id());
+                    batch.put(user.id(), user);
+                } catch (IllegalArgumentException e) {
+                    result.fail(index, e.getMessage());
+                }
+                index++;
+                if (batch.size() >= batchSize) {
+                    upsert(batch, result);
+                }
+            }
+        }
+        upsert(batch, result);
+
+        if (deactivateMissing) {
+            if (seenIds.isEmpty() || result.failed > 0) {
+                // Pusta lista albo błędne wpisy - nie wyłączamy użytkowników, których mogło w niej zabraknąć przez błąd
+                result.deactivationSkipped = true;
+            } else {
+                deactivateMissing(seenIds, result);
+            }
+        }
+
+        log.info("External users sync: {} received, {} inserted, {} updated, {} unchanged, {} deactivated, {} failed",
+                result.received, result.inserted, result.updated, result.unchanged, result.deactivated, result.failed);
+        return result;
+    }
+
+    private void upsert(Map<String, SyncedUser> batch, SyncResult result) {
+        if (batch.isEmpty()) {
+            return;
+        }
+        List<SyncedUser> users = new ArrayList<>(batch.values());
+        batch.clear();
+
+        transactionTemplate.executeWithoutResult(status -> {
+            List<String> changedIds = new ArrayList<>();
+            long[] inserted = new long[1];
+            jdbcTemplate.execute((ConnectionCallback<Void>) connection -> {
+                try (PreparedStatement statement = connection.prepareStatement(UPSERT_SQL)) {
+                    statement.setArray(1, textArray(connection, users.stream().map(SyncedUser::id).toArray()));
+                    statement.setArray(2, textArray(connection, users.stream().map(SyncedUser::name).toArray()));
+                    statement.setArray(3, textArray(connection, users.stream().map(SyncedUser::avatar).toArray()));
+                    statement.setArray(4, connection.createArrayOf("boolean", users.stream().map(SyncedUser::active).toArray()));
+                    try (ResultSet rs = statement.executeQuery()) {
+                        while (rs.next()) {
+                            changedIds.add(rs.getString(1));
+                            if (rs.getBoolean(2)) {
+                                inserted[0]++;
+                            }
+                        }
+                    }
+                }
+                return null;
+            });
+            result.inserted += inserted[0];
+            result.updated += changedIds.size() - inserted[0];
+            result.unchanged += users.size() - changedIds.size();
+            publishChanges(changedIds);
+        });
+    }
+
+    private void deactivateMissing(Set<String> seenIds, SyncResult result) {
+        transactionTemplate.executeWithoutResult(status -> {
+            List<String> deactivatedIds = jdbcTemplate.execute((ConnectionCallback<List<String>>) connection -> {
+                List<String> ids = new ArrayList<>();
+                try (PreparedStatement statement = connection.prepareStatement(DEACTIVATE_SQL)) {
+                    statement.setArray(1, textArray(connection, seenIds.toArray()));
+                    try (ResultSet rs = statement.executeQuery()) {
+                        while (rs.next()) {
+                            ids.add(rs.getString(1));
+                        }
+                    }
+                }
+                return ids;
+            });
+            result.deactivated += deactivatedIds.size();
+            publishChanges(deactivatedIds);
+        });
+    }
+
+    private void publishChanges(List<String> changedIds) {
+        if (!changedIds.isEmpty()) {
+            eventPublisher.publishEvent(new ExternalUsersSyncedEvent(changedIds));
+        }
+    }
+
+    private static Array textArray(Connection connection, Object[] values) throws SQLException {
+        return connection.createArrayOf("text", values);
+    }
+
+    // Te same pola co POST /api/external-users: id i name wymagane, isActive domyślnie true
+    private static SyncedUser toSyncedUser(JsonNode node) {
+        if (!node.isObject()) {
+            throw new IllegalArgumentException("Oczekiwano obiektu użytkownika");
+        }
+        String id = text(node, "id");
+        if (id == null || id.isBlank()) {
+            throw new IllegalArgumentException("Pole id jest wymagane");
+        }
+        String name = text(node, "name");
+        if (name == null || name.isBlank()) {
+            throw new IllegalArgumentException("Pole name jest wymagane (użytkownik " + id + ")");
+        }
+        JsonNode active = node.get("isActive");
+        return new SyncedUser(id.trim(), name, text(node, "avatar"), active == null || active.isNull() || active.asBoolean());
+    }
+
+    private static String text(JsonNode node, String field) {
+        JsonNode value = node.get(field);
+        return value == null || value.isNull() ? null : value.asText();
+    }
+}
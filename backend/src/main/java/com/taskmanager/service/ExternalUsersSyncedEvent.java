@@ -0,0 +1,7 @@
+package com.taskmanager.service;
+
+import java.util.List;
+
+// Publikowane przez ExternalUserSyncService dla każdej paczki: ID dodanych, zmienionych i dezaktywowanych
+public record ExternalUsersSyncedEvent(List<String> changedUserIds) {
+}
@@ -0,0 +1,185 @@
+package com.taskmanager.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.http.MediaTypeFactory;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+import java.util.HexFormat;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Pattern;
+
+// Pliki obrazów adresowane treścią: nazwa = sha256 + rozszerzenie, więc ten sam obraz zapisuje się raz,
+// a plik pod daną nazwą nigdy się nie zmienia
+@Service
+public class ImageStorageService {
+
+    public static final String URL_PREFIX = "/api/files/images/";
+
+    private static final Map<String, String> EXTENSIONS = Map.of(
+            "image/jpeg", "jpg",
+            "image/jpg", "jpg",
+            "image/png", "png",
+            "image/gif", "gif",
+            "image/webp", "webp");
+
+    private static final Pattern CONTENT_ADDRESSED_NAME = Pattern.compile("[0-9a-f]{64}\\.(jpg|png|gif|webp)");
+
+    // Powyżej tej liczby plików czyścimy cache metadanych (odbuduje się przy kolejnych odczytach)
+    private static final int METADATA_CACHE_LIMIT = 50_000;
+
+    // Obraz zapisany inline: data:<typ>;base64,<dane>
+    public record DataUrl(String contentType, byte[] bytes) {}
+
+    // Metadane do serwowania pliku: ETag z hasha treści, typ MIME, rozmiar; immutable = nazwa adresowana treścią
+    public record ImageFile(Path path, String etag, MediaType contentType, long size, long lastModified, boolean immutable) {}
+
+    private final Path directory;
+    private final Map<String, ImageFile> metadataByFilename = new ConcurrentHashMap<>();
+    private final Map<String, MediaType> contentTypesByExtension = new ConcurrentHashMap<>();
+
+    public ImageStorageService(@Value("${app.images.dir:uploads/images}") String directory) {
+        this.directory = Paths.get(directory).toAbsolutePath().normalize();
+    }
+
+    public boolean isSupportedType(String contentType) {
+        return contentType != null && EXTENSIONS.containsKey(contentType.toLowerCase());
+    }
+
+    // Zwraca nazwę pliku; zapis przez plik tymczasowy, żeby nikt nie odczytał połowy obrazu
+    public String store(byte[] bytes, String contentType) throws IOException {
+        String extension = EXTENSIONS.get(contentType.toLowerCase());
+        if (extension == null) {
+            throw new IllegalArgumentException("Unsupported image type: " + contentType);
+        }
+        String filename = sha256(bytes) + "." + extension;
+        Path target = directory.resolve(filename);
+        if (Files.exists(target)) {
+            return filename;
+        }
+
+        Files.createDirectories(directory);
+        Path temp = Files.createTempFile(directory, ".upload-", ".tmp");
+        try {
+            Files.write(temp, bytes);
+            Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE);
+        } catch (FileAlreadyExistsException e) {
+            // Ten sam obraz zapisany równolegle - treść identyczna
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+        return filename;
+    }
+
+    // null gdy nazwa wychodzi poza katalog obrazów
+    public Path resolve(String filename) {
+        Path path = directory.resolve(filename).normalize();
+        return path.startsWith(directory) ? path : null;
+    }
+
+    // null gdy plik nie istnieje. Hash i typ MIME liczone raz - do zmiany rozmiaru/daty modyfikacji pliku
+    public ImageFile describe(String filename) throws IOException {
+        Path path = resolve(filename);
+        if (path == null) {
+            return null;
+        }
+        BasicFileAttributes attributes;
+        try {
+            attributes = Files.readAttributes(path, BasicFileAttributes.class);
+        } catch (NoSuchFileException e) {
+            return null;
+        }
+        if (!attributes.isRegularFile()) {
+            return null;
+        }
+
+        long lastModified = attributes.lastModifiedTime().toMillis();
+        ImageFile cached = metadataByFilename.get(filename);
+        if (cached != null && cached.size() == attributes.size() && cached.lastModified() == lastModified) {
+            return cached;
+        }
+
+        // Nazwa adresowana treścią już jest hashem - starsze pliki hashujemy z zawartości
+        boolean immutable = isContentAddressed(filename);
+        String hash = immutable ? filename.substring(0, filename.indexOf('.')) : sha256(path);
+        ImageFile file = new ImageFile(path, "\"" + hash + "\"", contentType(filename, path),
+                attributes.size(), lastModified, immutable);
+        if (metadataByFilename.size() >= METADATA_CACHE_LIMIT) {
+            metadataByFilename.clear();
+        }
+        metadataByFilename.put(filename, file);
+        return file;
+    }
+
+    private MediaType contentType(String filename, Path path) {
+        int dot = filename.lastIndexOf('.');
+        String extension = dot >= 0 ? filename.substring(dot + 1).toLowerCase(Locale.ROOT) : "";
+        return contentTypesByExtension.computeIfAbsent(extension, key -> MediaTypeFactory.getMediaType(filename)
+                .orElseGet(() -> {
+                    try {
+                        String probed = Files.probeContentType(path);
+                        return probed != null ? MediaType.parseMediaType(probed) : MediaType.APPLICATION_OCTET_STREAM;
+                    } catch (IOException e) {
+                        return MediaType.APPLICATION_OCTET_STREAM;
+                    }
+                }));
+    }
+
+    public static boolean isContentAddressed(String filename) {
+        return filename != null && CONTENT_ADDRESSED_NAME.matcher(filename).matches();
+    }
+
+    public static String reference(String filename) {
+        return URL_PREFIX + filename;
+    }
+
+    // null gdy to nie jest obraz base64 (np. już referencja do pliku)
+    public static DataUrl parseDataUrl(String value) {
+        if (value == null || !value.startsWith("data:")) {
+            return null;
+        }
+        int separator = value.indexOf(";base64,");
+        if (separator < 0) {
+            return null;
+        }
+        try {
+            String contentType = value.substring("data:".length(), separator);
+            byte[] bytes = Base64.getDecoder().decode(value.substring(separator + ";base64,".length()));
+            return new DataUrl(contentType, bytes);
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    private static String sha256(Path path) throws IOException {
+        try (DigestInputStream input = new DigestInputStream(Files.newInputStream(path), MessageDigest.getInstance("SHA-256"))) {
+            input.transferTo(OutputStream.nullOutputStream());
+            return HexFormat.of().formatHex(input.getMessageDigest().digest());
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static String sha256(byte[] bytes) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(bytes));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,192 @@
+package com.taskmanager.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.taskmanager.model.JobCheckpoint;
+import com.taskmanager.repository.JobCheckpointRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+
+// Przenosi obrazy zapisane inline (data:image/...;base64) z tasks.images do plików ImageStorageService
+// i podmienia je na krótkie referencje /api/files/images/<sha256>.<ext>.
+// Idzie po tasks w kolejności ID z checkpointem, więc po restarcie kontynuuje od ostatniego wsadu.
+@Slf4j
+@Service
+public class InlineImageMigration implements ApplicationRunner {
+
+    static final String JOB = "inline-images-migration";
+
+    private record Rewrite(String images, int movedImages) {}
+
+    // Wiersz mógł zostać zmieniony między odczytem a zapisem - wtedy czytamy go jeszcze raz
+    private static final int MAX_ATTEMPTS = 3;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final JobCheckpointRepository checkpointRepository;
+    private final ImageStorageService imageStorageService;
+    private final ApplicationEventPublisher eventPublisher;
+    private final ObjectMapper objectMapper;
+    private final boolean enabled;
+    private final int batchSize;
+    private final Duration batchPause;
+    private final Counter migratedImages;
+    private final Counter freedBytes;
+
+    public InlineImageMigration(JdbcTemplate jdbcTemplate,
+                                JobCheckpointRepository checkpointRepository,
+                                ImageStorageService imageStorageService,
+                                ApplicationEventPublisher eventPublisher,
+                                ObjectMapper objectMapper,
+                                MeterRegistry meterRegistry,
+                                @Value("${app.images.migration.enabled:true}") boolean enabled,
+                                @Value("${app.images.migration.batch-size:50}") int batchSize,
+                                @Value("${app.images.migration.batch-pause:500ms}") Duration batchPause) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.checkpointRepository = checkpointRepository;
+        this.imageStorageService = imageStorageService;
+        this.eventPublisher = eventPublisher;
+        this.objectMapper = objectMapper;
+        this.enabled = enabled;
+        this.batchSize = batchSize;
+        this.batchPause = batchPause;
+        this.migratedImages = Counter.builder("tasks.images.migrated")
+                .description("Inline base64 images moved to file storage")
+                .register(meterRegistry);
+        this.freedBytes = Counter.builder("tasks.images.migrated.bytes")
+                .description("Bytes of inline base64 removed from tasks.images")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        if (!enabled) {
+            return;
+        }
+        Thread worker = new Thread(() -> {
+            try {
+                migrate();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (Exception e) {
+                log.error("Inline image migration failed, it will resume from the last checkpoint on next start", e);
+            }
+        }, "inline-images-migration");
+        worker.setDaemon(true);
+        worker.start();
+    }
+
+    void migrate() throws InterruptedException {
+        JobCheckpoint checkpoint = checkpointRepository.findById(JOB).orElseGet(() -> new JobCheckpoint(JOB));
+        if (checkpoint.getCompleted()) {
+            return;
+        }
+        log.info("Inline image migration starting after task id {} ({} rows done)", checkpoint.getLastId(), checkpoint.getProcessed());
+
+        while (true) {
+            // Tylko ID - duże wartości images czytamy pojedynczo
+            List<Long> ids = jdbcTemplate.queryForList(
+                    "SELECT id FROM tasks WHERE id > ? AND images LIKE '%\"data:image/%' ORDER BY id LIMIT ?",
+                    Long.class, checkpoint.getLastId(), batchSize);
+            if (ids.isEmpty()) {
+                break;
+            }
+
+            int rewritten = 0;
+            for (Long id : ids) {
+                if (migrateRow(id)) {
+                    rewritten++;
+                }
+            }
+
+            checkpoint.setLastId(ids.get(ids.size() - 1));
+            checkpoint.setProcessed(checkpoint.getProcessed() + rewritten);
+            saveCheckpoint(checkpoint);
+            log.info("Inline image migration at task id {}: {} rows rewritten so far, {} images, {} MB freed",
+                    checkpoint.getLastId(), checkpoint.getProcessed(), (long) migratedImages.count(),
+                    (long) freedBytes.count() / (1024 * 1024));
+
+            // Pauza między wsadami - migracja nie może zagłodzić ruchu produkcyjnego
+            Thread.sleep(batchPause.toMillis());
+        }
+
+        checkpoint.setCompleted(true);
+        saveCheckpoint(checkpoint);
+        log.info("Inline image migration completed ({} rows rewritten)", checkpoint.getProcessed());
+    }
+
+    // Optymistyczny zapis: UPDATE tylko gdy images nie zmieniło się od odczytu
+    boolean migrateRow(Long id) {
+        for (int attempt = 0; attempt < MAX_ATTEMPTS; attempt++) {
+            List<String> current = jdbcTemplate.queryForList("SELECT images FROM tasks WHERE id = ?", String.class, id);
+            if (current.isEmpty() || current.get(0) == null) {
+                return false;
+            }
+            String original = current.get(0);
+            Rewrite rewrite = rewrite(id, original);
+            if (rewrite == null) {
+                return false;
+            }
+
+            int updated = jdbcTemplate.update("UPDATE tasks SET images = ? WHERE id = ? AND images = ?", rewrite.images(), id, original);
+            if (updated == 1) {
+                migratedImages.increment(rewrite.movedImages());
+                freedBytes.increment(original.length() - rewrite.images().length());
+                eventPublisher.publishEvent(new TaskChangedEvent(id, TaskChangedEvent.ChangeType.UPDATED));
+                return true;
+            }
+        }
+        log.warn("Task {} images kept changing during migration, skipped", id);
+        return false;
+    }
+
+    // null gdy w wierszu nie ma nic do przeniesienia (albo wartość nie jest tablicą JSON)
+    private Rewrite rewrite(Long id, String images) {
+        String[] values;
+        try {
+            values = objectMapper.readValue(images, String[].class);
+        } catch (IOException e) {
+            log.warn("Task {} has unparseable images value, skipped", id);
+            return null;
+        }
+
+        int moved = 0;
+        for (int i = 0; i < values.length; i++) {
+            ImageStorageService.DataUrl dataUrl = ImageStorageService.parseDataUrl(values[i]);
+            if (dataUrl == null || !imageStorageService.isSupportedType(dataUrl.contentType())) {
+                continue;
+            }
+            try {
+                values[i] = ImageStorageService.reference(imageStorageService.store(dataUrl.bytes(), dataUrl.contentType()));
+                moved++;
+            } catch (IOException e) {
+                // Bez zapisanego pliku nie podmieniamy - obraz zostaje inline
+                log.error("Could not store image of task {}", id, e);
+            }
+        }
+        if (moved == 0) {
+            return null;
+        }
+        try {
+            return new Rewrite(objectMapper.writeValueAsString(values), moved);
+        } catch (IOException e) {
+            throw new RuntimeException("Could not serialize images of task " + id, e);
+        }
+    }
+
+    private void saveCheckpoint(JobCheckpoint checkpoint) {
+        checkpoint.setUpdatedAt(LocalDateTime.now());
+        checkpointRepository.save(checkpoint);
+    }
+}
@@ -0,0 +1,60 @@
+package com.taskmanager.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.List;
+
+// Indeksy na dużych tabelach zakładane przy starcie bez blokowania zapisów: CREATE INDEX CONCURRENTLY poza
+// transakcją (JdbcTemplate w autocommit). Tabela partycjonowana nie obsługuje CONCURRENTLY - indeks rodzica
+// powstaje ON ONLY (od razu, nieważny), indeksy partycji współbieżnie, a ATTACH PARTITION czyni rodzica ważnym.
+// Przerwana budowa zostawia nieważny indeks, który IF NOT EXISTS by pominął - taki jest usuwany i budowany od nowa
+@Slf4j
+final class OnlineIndexes {
+
+    private OnlineIndexes() {
+    }
+
+    // definition: wszystko po "ON <tabela>", np. "(clerk_user_id, id) WHERE status = 'X'" albo "USING gin (tags)"
+    static void create(JdbcTemplate jdbcTemplate, String indexName, String table, String definition) {
+        String relkind = jdbcTemplate.queryForObject(
+                "SELECT relkind::text FROM pg_class WHERE oid = to_regclass(?)", String.class, table);
+        if (!"p".equals(relkind)) {
+            createConcurrently(jdbcTemplate, indexName, table, definition);
+            return;
+        }
+
+        jdbcTemplate.execute("CREATE INDEX IF NOT EXISTS " + indexName + " ON ONLY " + table + " " + definition);
+        List<String> partitions = jdbcTemplate.queryForList("""
+                SELECT c.relname FROM pg_inherits i JOIN pg_class c ON c.oid = i.inhrelid
+                WHERE i.inhparent = to_regclass(?) ORDER BY c.relname""", String.class, table);
+        for (String partition : partitions) {
+            String partitionIndex = partitionIndexName(indexName, partition);
+            createConcurrently(jdbcTemplate, partitionIndex, partition, definition);
+            boolean attached = Boolean.TRUE.equals(jdbcTemplate.queryForObject("""
+                    SELECT EXISTS (SELECT 1 FROM pg_inherits
+                                   WHERE inhrelid = to_regclass(?) AND inhparent = to_regclass(?))""",
+                    Boolean.class, partitionIndex, indexName));
+            if (!attached) {
+                jdbcTemplate.execute("ALTER INDEX " + indexName + " ATTACH PARTITION " + partitionIndex);
+            }
+        }
+    }
+
+    private static void createConcurrently(JdbcTemplate jdbcTemplate, String indexName, String table, String definition) {
+        Boolean invalid = jdbcTemplate.query(
+                "SELECT NOT indisvalid FROM pg_index WHERE indexrelid = to_regclass(?)",
+                rs -> rs.next() ? rs.getBoolean(1) : null, indexName);
+        if (Boolean.TRUE.equals(invalid)) {
+            log.warn("Index {} is invalid (interrupted build), rebuilding it", indexName);
+            jdbcTemplate.execute("DROP INDEX CONCURRENTLY IF EXISTS " + indexName);
+        }
+        jdbcTemplate.execute("CREATE INDEX CONCURRENTLY IF NOT EXISTS " + indexName + " ON " + table + " " + definition);
+    }
+
+    // Nazwy w Postgresie mają do 63 bajtów
+    private static String partitionIndexName(String indexName, String partition) {
+        String name = indexName + "_" + partition;
+        return name.length() <= 63 ? name : name.substring(0, 63);
+    }
+}
@@ -0,0 +1,197 @@
+package com.taskmanager.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.core.annotation.Order;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+
+// Przenosi zamknięte zadania (ZAKONCZONE/ANULOWANE) starsze niż min-age do tasks_archive.
+// Wiersz trafia do archiwum w całości jako jsonb, więc nowe kolumny w tasks nie wymagają zmian w archiwum.
+// Razem z zadaniem archiwizowane są jego komentarze, wiersze task_closure/task_progress i udostępnienia grupom;
+// task_members czyści i odtwarza trigger na tasks. Przywrócenie (restoreSubtree) oddaje wszystko naraz.
+@Slf4j
+@Service
+@Order(0)
+public class TaskArchiveService implements ApplicationRunner {
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ApplicationEventPublisher eventPublisher;
+    private final boolean enabled;
+    private final Duration minAge;
+    private final int batchSize;
+    private final int maxBatchesPerRun;
+    private final Duration batchPause;
+
+    public TaskArchiveService(JdbcTemplate jdbcTemplate,
+                              ApplicationEventPublisher eventPublisher,
+                              @Value("${app.archive.enabled:true}") boolean enabled,
+                              @Value("${app.archive.min-age:90d}") Duration minAge,
+                              @Value("${app.archive.batch-size:500}") int batchSize,
+                              @Value("${app.archive.max-batches-per-run:20}") int maxBatchesPerRun,
+                              @Value("${app.archive.batch-pause:200ms}") Duration batchPause) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.eventPublisher = eventPublisher;
+        this.enabled = enabled;
+        this.minAge = minAge;
+        this.batchSize = batchSize;
+        this.maxBatchesPerRun = maxBatchesPerRun;
+        this.batchPause = batchPause;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        jdbcTemplate.execute("""
+                CREATE TABLE IF NOT EXISTS tasks_archive (
+                    id bigint PRIMARY KEY,
+                    clerk_user_id text,
+                    status varchar(32) NOT NULL,
+                    due_date timestamp,
+                    closed_at timestamp,
+                    archived_at timestamp NOT NULL DEFAULT now(),
+                    payload jsonb NOT NULL
+                )""");
+        jdbcTemplate.execute("CREATE INDEX IF NOT EXISTS idx_tasks_archive_owner ON tasks_archive (clerk_user_id, status)");
+        // Zależne wiersze zadania (jsonb w układzie swoich tabel)
+        jdbcTemplate.execute("ALTER TABLE tasks_archive ADD COLUMN IF NOT EXISTS comments jsonb");
+        jdbcTemplate.execute("ALTER TABLE tasks_archive ADD COLUMN IF NOT EXISTS comment_stats jsonb");
+        jdbcTemplate.execute("ALTER TABLE tasks_archive ADD COLUMN IF NOT EXISTS closure jsonb");
+        jdbcTemplate.execute("ALTER TABLE tasks_archive ADD COLUMN IF NOT EXISTS progress jsonb");
+        jdbcTemplate.execute("ALTER TABLE tasks_archive ADD COLUMN IF NOT EXISTS group_ids jsonb");
+        // Wyszukiwanie kandydatów do archiwizacji bez skanowania otwartych zadań; budowa nie blokuje zapisów do tasks
+        OnlineIndexes.create(jdbcTemplate, "idx_tasks_closed_age", "tasks",
+                "((COALESCE(updated_at, created_at)), id) WHERE status IN ('ZAKONCZONE', 'ANULOWANE')");
+    }
+
+    @Scheduled(fixedDelayString = "${app.archive.interval:PT10M}", initialDelayString = "${app.archive.initial-delay:PT1M}")
+    public void archiveClosedTasks() {
+        if (!enabled) {
+            return;
+        }
+        LocalDateTime cutoff = LocalDateTime.now().minus(minAge);
+        int total = 0;
+        try {
+            // Limit wsadów na przebieg i pauza między nimi ograniczają obciążenie bazy
+            for (int batch = 0; batch < maxBatchesPerRun; batch++) {
+                int moved = archiveBatch(cutoff);
+                total += moved;
+                if (moved < batchSize) {
+                    break;
+                }
+                Thread.sleep(batchPause.toMillis());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (Exception e) {
+            log.error("Task archival run failed", e);
+        }
+        if (total > 0) {
+            log.info("Archived {} closed tasks older than {}", total, cutoff);
+        }
+    }
+
+    // Wszystkie DELETE ... RETURNING i INSERT w jednym zapytaniu - zadanie i jego zależne wiersze nigdy nie są
+    // w obu miejscach ani w żadnym. Archiwizujemy całe poddrzewa od zadań głównych, gdy wszystko w nich jest zamknięte
+    // (poddrzewo musi być widoczne w całości, a liczniki przodków nie wymagają korekty).
+    // Konflikt ID w archiwum nadpisuje stary wpis - nigdy nie gubi usuwanego wiersza
+    int archiveBatch(LocalDateTime cutoff) {
+        List<Long> archivedIds = jdbcTemplate.queryForList("""
+                WITH roots AS (
+                    SELECT t.id FROM tasks t
+                    WHERE t.status IN ('ZAKONCZONE', 'ANULOWANE') AND COALESCE(t.updated_at, t.created_at) < ?
+                      AND t.parent_id IS NULL
+                      AND NOT EXISTS (SELECT 1 FROM task_closure c JOIN tasks d ON d.id = c.descendant_id
+                                      WHERE c.ancestor_id = t.id AND d.status NOT IN ('ZAKONCZONE', 'ANULOWANE'))
+                    ORDER BY COALESCE(t.updated_at, t.created_at), t.id
+                    LIMIT ?
+                    FOR UPDATE SKIP LOCKED
+                ), subtree AS (
+                    SELECT id AS task_id FROM roots
+                    UNION
+                    SELECT c.descendant_id FROM task_closure c JOIN roots r ON r.id = c.ancestor_id
+                ), moved AS (
+                    DELETE FROM tasks WHERE id IN (SELECT task_id FROM subtree) RETURNING *
+                ), moved_comments AS (
+                    DELETE FROM task_comments WHERE task_id IN (SELECT task_id FROM subtree) RETURNING *
+                ), moved_stats AS (
+                    DELETE FROM task_comment_stats WHERE task_id IN (SELECT task_id FROM subtree) RETURNING *
+                ), moved_closure AS (
+                    DELETE FROM task_closure WHERE descendant_id IN (SELECT task_id FROM subtree) RETURNING *
+                ), moved_progress AS (
+                    DELETE FROM task_progress WHERE task_id IN (SELECT task_id FROM subtree) RETURNING *
+                ), moved_shares AS (
+                    DELETE FROM task_group_shares WHERE task_id IN (SELECT task_id FROM subtree) RETURNING *
+                )
+                INSERT INTO tasks_archive (id, clerk_user_id, status, due_date, closed_at, archived_at, payload,
+                                           comments, comment_stats, closure, progress, group_ids)
+                SELECT m.id, m.clerk_user_id, m.status, m.due_date, COALESCE(m.updated_at, m.created_at), now(), to_jsonb(m.*),
+                       (SELECT jsonb_agg(to_jsonb(c.*) ORDER BY c.id) FROM moved_comments c WHERE c.task_id = m.id),
+                       (SELECT to_jsonb(s.*) FROM moved_stats s WHERE s.task_id = m.id),
+                       (SELECT jsonb_agg(to_jsonb(c.*)) FROM moved_closure c WHERE c.descendant_id = m.id),
+                       (SELECT to_jsonb(p.*) FROM moved_progress p WHERE p.task_id = m.id),
+                       (SELECT jsonb_agg(g.group_id) FROM moved_shares g WHERE g.task_id = m.id)
+                FROM moved m
+                ON CONFLICT (id) DO UPDATE SET clerk_user_id = EXCLUDED.clerk_user_id, status = EXCLUDED.status,
+                    due_date = EXCLUDED.due_date, closed_at = EXCLUDED.closed_at, archived_at = EXCLUDED.archived_at,
+                    payload = EXCLUDED.payload, comments = EXCLUDED.comments, comment_stats = EXCLUDED.comment_stats,
+                    closure = EXCLUDED.closure, progress = EXCLUDED.progress, group_ids = EXCLUDED.group_ids
+                RETURNING id""", Long.class, Timestamp.valueOf(cutoff), batchSize);
+
+        // Zadanie znika z feedu - dla słuchaczy to usunięcie
+        archivedIds.forEach(id -> eventPublisher.publishEvent(new TaskChangedEvent(id, TaskChangedEvent.ChangeType.DELETED)));
+        return archivedIds.size();
+    }
+
+    // Przywraca zarchiwizowane zadanie główne z całym poddrzewem i zależnymi wierszami, jednym zapytaniem.
+    // Udostępnienia grupom, które w międzyczasie usunięto, są pomijane. Zwraca ID przywróconych zadań
+    @Transactional
+    public List<Long> restoreSubtree(Long rootId, String clerkUserId) {
+        List<Long> restoredIds = jdbcTemplate.queryForList("""
+                WITH restored AS (
+                    DELETE FROM tasks_archive a
+                    WHERE a.clerk_user_id = ?
+                      AND (a.id = ? OR a.closure @> jsonb_build_array(jsonb_build_object('ancestor_id', ?::bigint)))
+                      AND EXISTS (SELECT 1 FROM tasks_archive r WHERE r.id = ? AND r.clerk_user_id = a.clerk_user_id
+                                  AND r.payload->>'parent_id' IS NULL)
+                    RETURNING *
+                ), restored_tasks AS (
+                    INSERT INTO tasks SELECT (jsonb_populate_record(NULL::tasks, r.payload)).* FROM restored r RETURNING id
+                ), restored_comments AS (
+                    INSERT INTO task_comments
+                    SELECT (jsonb_populate_record(NULL::task_comments, c)).*
+                    FROM restored r CROSS JOIN LATERAL jsonb_array_elements(COALESCE(r.comments, '[]'::jsonb)) c
+                ), restored_stats AS (
+                    INSERT INTO task_comment_stats
+                    SELECT (jsonb_populate_record(NULL::task_comment_stats, r.comment_stats)).* FROM restored r
+                    WHERE r.comment_stats IS NOT NULL
+                ), restored_closure AS (
+                    INSERT INTO task_closure
+                    SELECT (jsonb_populate_record(NULL::task_closure, c)).*
+                    FROM restored r CROSS JOIN LATERAL jsonb_array_elements(COALESCE(r.closure, '[]'::jsonb)) c
+                ), restored_progress AS (
+                    INSERT INTO task_progress
+                    SELECT (jsonb_populate_record(NULL::task_progress, r.progress)).* FROM restored r
+                    WHERE r.progress IS NOT NULL
+                ), restored_shares AS (
+                    INSERT INTO task_group_shares (task_id, group_id)
+                    SELECT r.id, g.group_id::bigint
+                    FROM restored r CROSS JOIN LATERAL jsonb_array_elements_text(COALESCE(r.group_ids, '[]'::jsonb)) g(group_id)
+                    WHERE EXISTS (SELECT 1 FROM task_groups tg WHERE tg.id = g.group_id::bigint)
+                    ON CONFLICT DO NOTHING
+                )
+                SELECT id FROM restored_tasks""", Long.class, clerkUserId, rootId, rootId, rootId);
+
+        restoredIds.forEach(id -> eventPublisher.publishEvent(new TaskChangedEvent(id, TaskChangedEvent.ChangeType.CREATED)));
+        return restoredIds;
+    }
+}
@@ -0,0 +1,16 @@
+package com.taskmanager.service;
+
+// Publikowane przez TaskService przy każdej zmianie zadania (odbierane po commicie).
+// remote = zmiana z innej instancji (przyszła przez ClusterBus) - tylko do zastosowania lokalnie
+public record TaskChangedEvent(Long taskId, ChangeType type, boolean remote) {
+
+    public TaskChangedEvent(Long taskId, ChangeType type) {
+        this(taskId, type, false);
+    }
+
+    public enum ChangeType {
+        CREATED,
+        UPDATED,
+        DELETED
+    }
+}
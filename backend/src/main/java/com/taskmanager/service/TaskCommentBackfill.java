@@ -0,0 +1,72 @@
+package com.taskmanager.service;
+
+import com.taskmanager.model.JobCheckpoint;
+import com.taskmanager.repository.JobCheckpointRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.core.annotation.Order;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+
+// Jednorazowe przeniesienie istniejących notatek (tasks.assigned_user_note) do wątków komentarzy.
+// Jedno zapytanie zbiorcze w transakcji: komentarze i podsumowania razem albo wcale; checkpoint blokuje powtórkę.
+// Kolumny notatki zostają w tasks (stare wiersze), ale nowe notatki - także z importu - trafiają już tylko do task_comments.
+@Slf4j
+@Component
+@Order(2)
+public class TaskCommentBackfill implements ApplicationRunner {
+
+    private static final String JOB = "task-comments-backfill";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final JobCheckpointRepository checkpointRepository;
+    private final TransactionTemplate transactionTemplate;
+
+    public TaskCommentBackfill(JdbcTemplate jdbcTemplate,
+                               JobCheckpointRepository checkpointRepository,
+                               PlatformTransactionManager transactionManager) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.checkpointRepository = checkpointRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        JobCheckpoint checkpoint = checkpointRepository.findById(JOB).orElseGet(() -> new JobCheckpoint(JOB));
+        if (checkpoint.getCompleted()) {
+            return;
+        }
+
+        Integer migrated = transactionTemplate.execute(status -> {
+            // Zadania, które mają już wątek (np. po częściowym wdrożeniu), pomijamy
+            int comments = jdbcTemplate.update("""
+                    WITH notes AS (
+                        SELECT t.id AS task_id,
+                               COALESCE(NULLIF(t.assigned_user_note_author, ''), t.clerk_user_id, '') AS author_id,
+                               btrim(t.assigned_user_note) AS body,
+                               COALESCE(t.updated_at, t.created_at) AS created_at
+                        FROM tasks t
+                        WHERE btrim(COALESCE(t.assigned_user_note, '')) <> ''
+                          AND NOT EXISTS (SELECT 1 FROM task_comment_stats s WHERE s.task_id = t.id)
+                    ), inserted AS (
+                        INSERT INTO task_comments (id, task_id, author_id, body, created_at)
+                        SELECT nextval('task_comments_seq'), task_id, author_id, body, created_at FROM notes
+                        RETURNING id, task_id, author_id, body, created_at
+                    )
+                    INSERT INTO task_comment_stats (task_id, comment_count, last_comment_id, last_author_id, last_body, last_comment_at)
+                    SELECT task_id, 1, id, author_id, body, created_at FROM inserted
+                    ON CONFLICT (task_id) DO NOTHING""");
+            checkpoint.setProcessed((long) comments);
+            checkpoint.setCompleted(true);
+            checkpoint.setUpdatedAt(LocalDateTime.now());
+            checkpointRepository.save(checkpoint);
+            return comments;
+        });
+        log.info("Task comment backfill completed ({} notes moved to comment threads)", migrated);
+    }
+}
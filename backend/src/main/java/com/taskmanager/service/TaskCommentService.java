@@ -0,0 +1,120 @@
+package com.taskmanager.service;
+
+import com.taskmanager.model.TaskComment;
+import com.taskmanager.model.TaskCommentStats;
+import com.taskmanager.repository.TaskCommentRepository;
+import com.taskmanager.repository.TaskCommentStatsRepository;
+import com.taskmanager.repository.TaskRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// Wątek komentarzy zadania: dopisywanie wsadem (bez zapisu wiersza tasks), czytanie stronami keyset
+@Service
+@RequiredArgsConstructor
+public class TaskCommentService {
+
+    public static final int MAX_COMMENT_LENGTH = 2000;
+    public static final int MAX_BATCH_SIZE = 100;
+    // Początek pierwszej strony (LocalDateTime.MAX nie mieści się w timestamp Postgresa)
+    private static final LocalDateTime NEWEST = LocalDateTime.of(9999, 12, 31, 0, 0);
+
+    private final TaskCommentRepository taskCommentRepository;
+    private final TaskCommentStatsRepository taskCommentStatsRepository;
+    private final TaskRepository taskRepository;
+    private final ApplicationEventPublisher eventPublisher;
+
+    // Wszystkie komentarze jednym wsadem INSERT i jeden upsert licznika
+    @Transactional
+    public List<TaskComment> addComments(Long taskId, String authorId, List<String> bodies) {
+        if (!taskRepository.existsById(taskId)) {
+            throw new RuntimeException("Task not found with id: " + taskId);
+        }
+        if (bodies.isEmpty()) {
+            return List.of();
+        }
+        if (bodies.size() > MAX_BATCH_SIZE) {
+            throw new IllegalArgumentException("Maksymalnie " + MAX_BATCH_SIZE + " komentarzy w jednym żądaniu");
+        }
+
+        LocalDateTime now = LocalDateTime.now();
+        List<TaskComment> comments = new ArrayList<>(bodies.size());
+        for (String body : bodies) {
+            String trimmed = body == null ? "" : body.trim();
+            if (trimmed.isEmpty()) {
+                throw new IllegalArgumentException("Komentarz nie może być pusty");
+            }
+            if (trimmed.length() > MAX_COMMENT_LENGTH) {
+                throw new IllegalArgumentException("Komentarz nie może być dłuższy niż " + MAX_COMMENT_LENGTH + " znaków");
+            }
+            TaskComment comment = new TaskComment(taskId, authorId, trimmed);
+            comment.setCreatedAt(now);
+            comments.add(comment);
+        }
+        List<TaskComment> saved = taskCommentRepository.saveAll(comments);
+
+        TaskComment last = saved.get(saved.size() - 1);
+        taskCommentStatsRepository.recordComments(taskId, saved.size(), last.getId(), authorId, last.getBody(), now);
+        // Feed pokazuje liczbę i ostatni komentarz - cache feedu musi się odświeżyć
+        eventPublisher.publishEvent(new TaskChangedEvent(taskId, TaskChangedEvent.ChangeType.UPDATED));
+        return saved;
+    }
+
+    // Usunięcie zadania usuwa jego wątek (tabele bez klucza obcego - tasks bywa partycjonowana)
+    @Transactional
+    public void deleteForTask(Long taskId) {
+        taskCommentRepository.deleteByTaskId(taskId);
+        taskCommentStatsRepository.deleteById(taskId);
+    }
+
+    // before: kursor z poprzedniej strony ("<createdAt>_<id>"), null = najnowsze
+    @Transactional(readOnly = true)
+    public Map<String, Object> getComments(Long taskId, String before, int limit) {
+        LocalDateTime beforeAt = NEWEST;
+        long beforeId = Long.MAX_VALUE;
+        if (before != null && !before.isBlank()) {
+            int separator = before.lastIndexOf('_');
+            try {
+                beforeAt = LocalDateTime.parse(before.substring(0, separator));
+                beforeId = Long.parseLong(before.substring(separator + 1));
+            } catch (RuntimeException e) {
+                throw new IllegalArgumentException("Niepoprawny kursor: " + before);
+            }
+        }
+
+        // Jeden wiersz więcej, żeby wiedzieć, czy jest kolejna strona
+        List<TaskComment> page = new ArrayList<>(taskCommentRepository.findPageBefore(taskId, beforeAt, beforeId, limit + 1));
+        String nextCursor = null;
+        if (page.size() > limit) {
+            page = page.subList(0, limit);
+            TaskComment last = page.get(page.size() - 1);
+            nextCursor = last.getCreatedAt() + "_" + last.getId();
+        }
+
+        Map<String, Object> result = new HashMap<>();
+        result.put("comments", page);
+        result.put("nextCursor", nextCursor);
+        return result;
+    }
+
+    // Podsumowania dla wielu zadań jednym zapytaniem (feed, tablica)
+    @Transactional(readOnly = true)
+    public Map<Long, TaskCommentStats> getStats(Collection<Long> taskIds) {
+        Map<Long, TaskCommentStats> stats = new HashMap<>();
+        if (taskIds.isEmpty()) {
+            return stats;
+        }
+        for (TaskCommentStats entry : taskCommentStatsRepository.findAllById(taskIds)) {
+            stats.put(entry.getTaskId(), entry);
+        }
+        return stats;
+    }
+}
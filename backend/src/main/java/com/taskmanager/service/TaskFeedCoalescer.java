@@ -0,0 +1,133 @@
+package com.taskmanager.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.taskmanager.cluster.ClusterEvent;
+import com.taskmanager.cluster.ClusterMessage;
+import com.taskmanager.config.WireFormatConfig;
+import com.taskmanager.dto.TaskResponse;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.context.event.EventListener;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.http.converter.smile.MappingJackson2SmileHttpMessageConverter;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Single-flight dla GET /api/tasks: równoczesne identyczne żądania dzielą jedno wyliczenie i jeden wynik (JSON/CBOR/Smile).
+// Nie jest to cache - wynik żyje tylko do zakończenia wyliczenia.
+@Component
+public class TaskFeedCoalescer {
+
+    // Epoka zapisu w kluczu: żądanie po commicie zmiany nigdy nie dołączy do wyliczenia sprzed niej
+    // Format w kluczu: wynik to gotowe bajty w konkretnym kodowaniu
+    record FeedKey(String clerkUserId, String userEmail, boolean includeArchived, List<String> tags, MediaType format, long writeEpoch) {}
+
+    private final TaskService taskService;
+    private final ObjectMapper objectMapper;
+    private final ObjectMapper cborMapper;
+    private final ObjectMapper smileMapper;
+    private final ConcurrentHashMap<FeedKey, CompletableFuture<byte[]>> inFlight = new ConcurrentHashMap<>();
+    private final AtomicLong writeEpoch = new AtomicLong();
+    private final Counter computedCounter;
+    private final Counter coalescedCounter;
+
+    public TaskFeedCoalescer(TaskService taskService,
+                             ObjectMapper objectMapper,
+                             MappingJackson2CborHttpMessageConverter cborConverter,
+                             MappingJackson2SmileHttpMessageConverter smileConverter,
+                             MeterRegistry meterRegistry) {
+        this.taskService = taskService;
+        this.objectMapper = objectMapper;
+        this.cborMapper = cborConverter.getObjectMapper();
+        this.smileMapper = smileConverter.getObjectMapper();
+        this.computedCounter = Counter.builder("tasks.feed.requests")
+                .description("Task feed requests by single-flight outcome")
+                .tag("result", "computed")
+                .register(meterRegistry);
+        this.coalescedCounter = Counter.builder("tasks.feed.requests")
+                .description("Task feed requests by single-flight outcome")
+                .tag("result", "coalesced")
+                .register(meterRegistry);
+    }
+
+    public byte[] getFeed(String clerkUserId, String userEmail, boolean includeArchived) {
+        return getFeed(clerkUserId, userEmail, includeArchived, List.of(), MediaType.APPLICATION_JSON);
+    }
+
+    public byte[] getFeed(String clerkUserId, String userEmail, boolean includeArchived, List<String> tags, MediaType format) {
+        FeedKey key = new FeedKey(clerkUserId, userEmail, includeArchived, List.copyOf(tags), format, writeEpoch.get());
+        CompletableFuture<byte[]> mine = new CompletableFuture<>();
+        CompletableFuture<byte[]> existing = inFlight.putIfAbsent(key, mine);
+
+        if (existing != null) {
+            coalescedCounter.increment();
+            try {
+                return existing.join();
+            } catch (CompletionException e) {
+                throw e.getCause() instanceof RuntimeException cause ? cause : e;
+            }
+        }
+
+        computedCounter.increment();
+        try {
+            byte[] feed = serialize(taskService.getTaskResponsesForClerkUser(clerkUserId, userEmail, includeArchived, key.tags()), format);
+            mine.complete(feed);
+            return feed;
+        } catch (RuntimeException e) {
+            mine.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, mine);
+        }
+    }
+
+    // Każda zmiana zadania (także z innego węzła) może zmienić feed wielu użytkowników (przypisani, udostępnieni)
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onTaskChanged(TaskChangedEvent event) {
+        writeEpoch.incrementAndGet();
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onTasksImported(TasksImportedEvent event) {
+        writeEpoch.incrementAndGet();
+    }
+
+    // Zmiana składu grupy zmienia feed członków, choć żadne zadanie się nie zmieniło (także z innego węzła)
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onTaskGroupChanged(TaskGroupChangedEvent event) {
+        writeEpoch.incrementAndGet();
+    }
+
+    @EventListener
+    public void onClusterEvent(ClusterEvent event) {
+        if (event.topic() == ClusterMessage.Topic.RESYNC) {
+            writeEpoch.incrementAndGet();
+        }
+    }
+
+    private byte[] serialize(List<TaskResponse> tasks, MediaType format) {
+        try {
+            return mapperFor(format).writeValueAsBytes(tasks);
+        } catch (JsonProcessingException e) {
+            throw new RuntimeException("Could not serialize task feed", e);
+        }
+    }
+
+    private ObjectMapper mapperFor(MediaType format) {
+        if (MediaType.APPLICATION_CBOR.equalsTypeAndSubtype(format)) {
+            return cborMapper;
+        }
+        if (WireFormatConfig.APPLICATION_SMILE.equalsTypeAndSubtype(format)) {
+            return smileMapper;
+        }
+        return objectMapper;
+    }
+}
@@ -0,0 +1,10 @@
+package com.taskmanager.service;
+
+// Publikowane przez TaskGroupService przy zmianie składu grupy, jej udostępnień albo usunięciu grupy.
+// Zmienia feed członków bez zmiany żadnego zadania
+public record TaskGroupChangedEvent(Long groupId, boolean remote) {
+
+    public TaskGroupChangedEvent(Long groupId) {
+        this(groupId, false);
+    }
+}
@@ -0,0 +1,206 @@
+package com.taskmanager.service;
+
+import com.taskmanager.model.Task;
+import com.taskmanager.model.TaskGroup;
+import com.taskmanager.repository.GroupMembershipRepository;
+import com.taskmanager.repository.TaskGroupRepository;
+import com.taskmanager.repository.TaskGroupShareRepository;
+import com.taskmanager.repository.TaskRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.access.AccessDeniedException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.PreparedStatement;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+// Grupy (zespoły) do udostępniania zadań. Zadanie trzyma tylko ID grupy (task_group_shares), a skład grupy
+// rozwijany jest przy budowie feedu przez group_memberships - udostępnienie grupie i zmiana jej składu
+// to stała liczba wierszy, bez przepisywania shared_with w każdym zadaniu.
+@Service
+@RequiredArgsConstructor
+public class TaskGroupService {
+
+    private static final int MAX_GROUP_NAME_LENGTH = 200;
+
+    private final TaskGroupRepository taskGroupRepository;
+    private final GroupMembershipRepository membershipRepository;
+    private final TaskGroupShareRepository shareRepository;
+    private final TaskRepository taskRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final ApplicationEventPublisher eventPublisher;
+
+    // Twórca jest też członkiem - widzi zadania, które inni udostępnią grupie
+    @Transactional
+    public TaskGroup createGroup(String name, Collection<String> memberIds, String clerkUserId) {
+        if (name == null || name.trim().isEmpty()) {
+            throw new IllegalArgumentException("Nazwa grupy jest wymagana");
+        }
+        if (name.trim().length() > MAX_GROUP_NAME_LENGTH) {
+            throw new IllegalArgumentException("Nazwa grupy nie może być dłuższa niż " + MAX_GROUP_NAME_LENGTH + " znaków");
+        }
+        TaskGroup group = taskGroupRepository.save(new TaskGroup(name.trim(), clerkUserId));
+        Set<String> members = new LinkedHashSet<>();
+        members.add(clerkUserId);
+        if (memberIds != null) {
+            members.addAll(memberIds);
+        }
+        insertMembers(group.getId(), members);
+        eventPublisher.publishEvent(new TaskGroupChangedEvent(group.getId()));
+        return group;
+    }
+
+    @Transactional(readOnly = true)
+    public List<TaskGroup> getGroupsForUser(String clerkUserId) {
+        return taskGroupRepository.findVisibleTo(clerkUserId);
+    }
+
+    @Transactional(readOnly = true)
+    public List<String> getMembers(Long groupId, String clerkUserId) {
+        TaskGroup group = getGroup(groupId);
+        if (!clerkUserId.equals(group.getOwnerId()) && !membershipRepository.existsByGroupIdAndMemberId(groupId, clerkUserId)) {
+            throw new AccessDeniedException("Nie należysz do tej grupy");
+        }
+        return membershipRepository.findMemberIds(groupId);
+    }
+
+    // Koszt nie zależy od liczby zadań udostępnionych grupie
+    @Transactional
+    public int addMembers(Long groupId, Collection<String> memberIds, String clerkUserId) {
+        requireOwner(getGroup(groupId), clerkUserId);
+        int added = insertMembers(groupId, new LinkedHashSet<>(memberIds));
+        if (added > 0) {
+            eventPublisher.publishEvent(new TaskGroupChangedEvent(groupId));
+        }
+        return added;
+    }
+
+    // Właściciel usuwa dowolnego członka, członek może sam opuścić grupę
+    @Transactional
+    public boolean removeMember(Long groupId, String memberId, String clerkUserId) {
+        TaskGroup group = getGroup(groupId);
+        if (!memberId.equals(clerkUserId)) {
+            requireOwner(group, clerkUserId);
+        }
+        boolean removed = membershipRepository.deleteMember(groupId, memberId) > 0;
+        if (removed) {
+            eventPublisher.publishEvent(new TaskGroupChangedEvent(groupId));
+        }
+        return removed;
+    }
+
+    @Transactional
+    public void deleteGroup(Long groupId, String clerkUserId) {
+        requireOwner(getGroup(groupId), clerkUserId);
+        shareRepository.deleteByGroupId(groupId);
+        membershipRepository.deleteByGroupId(groupId);
+        taskGroupRepository.deleteById(groupId);
+        eventPublisher.publishEvent(new TaskGroupChangedEvent(groupId));
+    }
+
+    // Udostępnia zadanie grupom: jeden wiersz na grupę niezależnie od liczby członków.
+    // Zadanie udostępnia właściciel, i tylko grupom, do których sam należy
+    @Transactional
+    public List<Long> shareTask(Long taskId, Collection<Long> groupIds, String clerkUserId) {
+        requireTaskOwner(taskId, clerkUserId);
+        Set<Long> requested = new LinkedHashSet<>(groupIds);
+        if (requested.isEmpty()) {
+            return List.of();
+        }
+        String idArray = requested.stream().map(String::valueOf).collect(Collectors.joining(",", "{", "}"));
+        List<Long> allowed = jdbcTemplate.queryForList("""
+                SELECT g.id FROM task_groups g
+                WHERE g.id = ANY(CAST(? AS bigint[]))
+                  AND (g.owner_id = ? OR EXISTS (SELECT 1 FROM group_memberships m WHERE m.group_id = g.id AND m.member_id = ?))""",
+                Long.class, idArray, clerkUserId, clerkUserId);
+        if (allowed.size() != requested.size()) {
+            throw new AccessDeniedException("Możesz udostępniać zadania tylko swoim grupom");
+        }
+        jdbcTemplate.update("""
+                INSERT INTO task_group_shares (task_id, group_id)
+                SELECT ?, unnest(CAST(? AS bigint[]))
+                ON CONFLICT DO NOTHING""", taskId, idArray);
+        eventPublisher.publishEvent(new TaskChangedEvent(taskId, TaskChangedEvent.ChangeType.UPDATED));
+        return shareRepository.findGroupIds(taskId);
+    }
+
+    @Transactional
+    public boolean unshareTask(Long taskId, Long groupId, String clerkUserId) {
+        requireTaskOwner(taskId, clerkUserId);
+        boolean removed = shareRepository.deleteShare(taskId, groupId) > 0;
+        if (removed) {
+            eventPublisher.publishEvent(new TaskChangedEvent(taskId, TaskChangedEvent.ChangeType.UPDATED));
+        }
+        return removed;
+    }
+
+    @Transactional(readOnly = true)
+    public List<Long> getGroupIds(Long taskId) {
+        return shareRepository.findGroupIds(taskId);
+    }
+
+    @Transactional(readOnly = true)
+    public boolean isVisibleViaGroup(Long taskId, String clerkUserId) {
+        return shareRepository.isVisibleViaGroup(taskId, clerkUserId);
+    }
+
+    // Podzadanie dziedziczy udostępnienia grupowe rodzica (jak shared_with)
+    @Transactional
+    public void copyShares(Long fromTaskId, Long toTaskId) {
+        jdbcTemplate.update("""
+                INSERT INTO task_group_shares (task_id, group_id)
+                SELECT ?, group_id FROM task_group_shares WHERE task_id = ?
+                ON CONFLICT DO NOTHING""", toTaskId, fromTaskId);
+    }
+
+    @Transactional
+    public void deleteSharesForTask(Long taskId) {
+        shareRepository.deleteByTaskId(taskId);
+    }
+
+    // Jedno INSERT ... SELECT unnest niezależnie od liczby członków; istniejący członkowie są pomijani
+    private int insertMembers(Long groupId, Set<String> memberIds) {
+        List<String> members = memberIds.stream()
+                .filter(id -> id != null && !id.trim().isEmpty())
+                .map(String::trim)
+                .distinct()
+                .toList();
+        if (members.isEmpty()) {
+            return 0;
+        }
+        return jdbcTemplate.update(connection -> {
+            PreparedStatement statement = connection.prepareStatement("""
+                    INSERT INTO group_memberships (group_id, member_id)
+                    SELECT ?, unnest(CAST(? AS text[]))
+                    ON CONFLICT DO NOTHING""");
+            statement.setLong(1, groupId);
+            statement.setArray(2, connection.createArrayOf("text", members.toArray()));
+            return statement;
+        });
+    }
+
+    private TaskGroup getGroup(Long groupId) {
+        return taskGroupRepository.findById(groupId)
+                .orElseThrow(() -> new IllegalArgumentException("Group not found with id: " + groupId));
+    }
+
+    private void requireOwner(TaskGroup group, String clerkUserId) {
+        if (!clerkUserId.equals(group.getOwnerId())) {
+            throw new AccessDeniedException("Tylko właściciel grupy może ją zmieniać");
+        }
+    }
+
+    private void requireTaskOwner(Long taskId, String clerkUserId) {
+        Task task = taskRepository.findById(taskId)
+                .orElseThrow(() -> new IllegalArgumentException("Task not found with id: " + taskId));
+        if (!clerkUserId.equals(task.getClerkUserId())) {
+            throw new AccessDeniedException("Nie masz uprawnień do udostępniania tego zadania");
+        }
+    }
+}
@@ -0,0 +1,332 @@
+package com.taskmanager.service;
+
+import com.taskmanager.model.JobCheckpoint;
+import com.taskmanager.repository.JobCheckpointRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+
+// Przenosi tabelę tasks do tabeli partycjonowanej HASH(clerk_user_id) - online, wsadowo, z możliwością wznowienia.
+// Dodatkowo utrzymuje task_members (użytkownik -> zadania przypisane/udostępnione) dla zapytań między właścicielami.
+@Slf4j
+@Service
+public class TaskPartitioningMigration implements ApplicationRunner {
+
+    static final String MEMBERS_JOB = "task-members-backfill";
+    static final String COPY_JOB = "tasks-partition-copy";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final JobCheckpointRepository checkpointRepository;
+    private final boolean enabled;
+    private final int partitions;
+    private final int batchSize;
+    private final Duration batchPause;
+
+    private volatile boolean memberLookupReady;
+
+    public TaskPartitioningMigration(JdbcTemplate jdbcTemplate,
+                                     TransactionTemplate transactionTemplate,
+                                     JobCheckpointRepository checkpointRepository,
+                                     @Value("${app.partitioning.enabled:false}") boolean enabled,
+                                     @Value("${app.partitioning.partitions:16}") int partitions,
+                                     @Value("${app.partitioning.batch-size:5000}") int batchSize,
+                                     @Value("${app.partitioning.batch-pause:100ms}") Duration batchPause) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.checkpointRepository = checkpointRepository;
+        this.enabled = enabled;
+        this.partitions = partitions;
+        this.batchSize = batchSize;
+        this.batchPause = batchPause;
+    }
+
+    // True gdy task_members jest kompletne i zapytania o przypisane/udostępnione mogą z niego korzystać
+    public boolean isMemberLookupReady() {
+        return memberLookupReady;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        if (!enabled) {
+            return;
+        }
+        memberLookupReady = isCompleted(MEMBERS_JOB);
+
+        Thread worker = new Thread(() -> {
+            try {
+                migrate();
+            } catch (Exception e) {
+                log.error("Tasks partitioning migration failed, it will resume from the last checkpoint on next start", e);
+            }
+        }, "tasks-partitioning");
+        worker.setDaemon(true);
+        worker.start();
+    }
+
+    void migrate() throws InterruptedException {
+        createMemberLookup();
+        backfillMembers();
+        memberLookupReady = true;
+
+        if (isCompleted(COPY_JOB)) {
+            log.info("Tasks table is already partitioned");
+            return;
+        }
+        createPartitionedTable();
+        copyInBatches();
+        swapTables();
+    }
+
+    // --- task_members ---
+
+    private void createMemberLookup() {
+        jdbcTemplate.execute("""
+                CREATE TABLE IF NOT EXISTS task_members (
+                    member_id text NOT NULL,
+                    relation char(1) NOT NULL,
+                    task_id bigint NOT NULL,
+                    owner_id text,
+                    PRIMARY KEY (member_id, relation, task_id)
+                )""");
+        jdbcTemplate.execute("CREATE INDEX IF NOT EXISTS idx_task_members_task ON task_members (task_id)");
+
+        // assigned_to/shared_with to JSON array albo (stare dane) pojedynczy string - jak w Task.getAssignedTo()
+        jdbcTemplate.execute("""
+                CREATE OR REPLACE FUNCTION task_json_array(value text) RETURNS json AS $$
+                BEGIN
+                    IF value IS NULL OR btrim(value) = '' THEN
+                        RETURN '[]'::json;
+                    END IF;
+                    IF left(btrim(value), 1) = '[' THEN
+                        BEGIN
+                            RETURN btrim(value)::json;
+                        EXCEPTION WHEN others THEN
+                            RETURN json_build_array(btrim(value));
+                        END;
+                    END IF;
+                    RETURN json_build_array(btrim(value));
+                END $$ LANGUAGE plpgsql IMMUTABLE""");
+
+        jdbcTemplate.execute("""
+                CREATE OR REPLACE FUNCTION task_members_sync() RETURNS trigger AS $$
+                BEGIN
+                    IF TG_OP IN ('UPDATE', 'DELETE') THEN
+                        DELETE FROM task_members WHERE task_id = OLD.id;
+                    END IF;
+                    IF TG_OP IN ('INSERT', 'UPDATE') THEN
+                        INSERT INTO task_members (member_id, relation, task_id, owner_id)
+                        SELECT m.member_id, m.relation, NEW.id, NEW.clerk_user_id FROM (
+                            SELECT json_array_elements_text(task_json_array(NEW.assigned_to)) AS member_id, 'A' AS relation
+                            UNION
+                            SELECT json_array_elements_text(task_json_array(NEW.shared_with)), 'S'
+                        ) m
+                        ON CONFLICT DO NOTHING;
+                    END IF;
+                    RETURN NULL;
+                END $$ LANGUAGE plpgsql""");
+
+        createMemberTriggers("tasks");
+    }
+
+    private void createMemberTriggers(String table) {
+        jdbcTemplate.execute("DROP TRIGGER IF EXISTS task_members_insert ON " + table);
+        jdbcTemplate.execute("DROP TRIGGER IF EXISTS task_members_update ON " + table);
+        jdbcTemplate.execute("DROP TRIGGER IF EXISTS task_members_delete ON " + table);
+        jdbcTemplate.execute("CREATE TRIGGER task_members_insert AFTER INSERT ON " + table
+                + " FOR EACH ROW EXECUTE FUNCTION task_members_sync()");
+        // Hibernate aktualizuje wszystkie kolumny, więc filtrujemy faktyczne zmiany w WHEN
+        jdbcTemplate.execute("CREATE TRIGGER task_members_update AFTER UPDATE ON " + table + " FOR EACH ROW"
+                + " WHEN (OLD.assigned_to IS DISTINCT FROM NEW.assigned_to OR OLD.shared_with IS DISTINCT FROM NEW.shared_with"
+                + " OR OLD.clerk_user_id IS DISTINCT FROM NEW.clerk_user_id OR OLD.id IS DISTINCT FROM NEW.id)"
+                + " EXECUTE FUNCTION task_members_sync()");
+        jdbcTemplate.execute("CREATE TRIGGER task_members_delete AFTER DELETE ON " + table
+                + " FOR EACH ROW EXECUTE FUNCTION task_members_sync()");
+    }
+
+    private void backfillMembers() throws InterruptedException {
+        JobCheckpoint checkpoint = loadCheckpoint(MEMBERS_JOB);
+        if (checkpoint.getCompleted()) {
+            return;
+        }
+        Long maxId = jdbcTemplate.queryForObject("SELECT COALESCE(MAX(id), 0) FROM tasks", Long.class);
+
+        while (checkpoint.getLastId() < maxId) {
+            long from = checkpoint.getLastId();
+            long to = from + batchSize;
+            int inserted = jdbcTemplate.update("""
+                    INSERT INTO task_members (member_id, relation, task_id, owner_id)
+                    SELECT m.member_id, m.relation, t.id, t.clerk_user_id
+                    FROM tasks t, LATERAL (
+                        SELECT json_array_elements_text(task_json_array(t.assigned_to)) AS member_id, 'A' AS relation
+                        UNION
+                        SELECT json_array_elements_text(task_json_array(t.shared_with)), 'S'
+                    ) m
+                    WHERE t.id > ? AND t.id <= ?
+                    ON CONFLICT DO NOTHING""", from, to);
+            advance(checkpoint, to, inserted);
+            Thread.sleep(batchPause.toMillis());
+        }
+        checkpoint.setCompleted(true);
+        saveCheckpoint(checkpoint);
+        log.info("task_members backfill completed ({} rows)", checkpoint.getProcessed());
+    }
+
+    // --- partycjonowanie ---
+
+    private void createPartitionedTable() {
+        // Tabela z wcześniejszej wersji migracji (bez klucza głównego) mogła zebrać duplikaty - kopiujemy od nowa
+        if (tableExists("tasks_partitioned") && !hasPrimaryKey("tasks_partitioned")) {
+            log.warn("tasks_partitioned has no primary key (older migration run), restarting the copy");
+            jdbcTemplate.execute("DROP TABLE tasks_partitioned");
+            JobCheckpoint checkpoint = loadCheckpoint(COPY_JOB);
+            checkpoint.setLastId(0L);
+            checkpoint.setProcessed(0L);
+            saveCheckpoint(checkpoint);
+        }
+        // Klucz główny partycjonowanej tabeli musi zawierać klucz partycjonowania: (id, clerk_user_id).
+        // Stare zadania bez właściciela (NULL) trafiają tam z clerk_user_id = '' (Task.NO_OWNER, patrz partitionedRow)
+        jdbcTemplate.execute("CREATE TABLE IF NOT EXISTS tasks_partitioned (LIKE tasks INCLUDING DEFAULTS,"
+                + " PRIMARY KEY (id, clerk_user_id)) PARTITION BY HASH (clerk_user_id)");
+        for (int remainder = 0; remainder < partitions; remainder++) {
+            jdbcTemplate.execute("CREATE TABLE IF NOT EXISTS tasks_p" + remainder + " PARTITION OF tasks_partitioned"
+                    + " FOR VALUES WITH (MODULUS " + partitions + ", REMAINDER " + remainder + ")");
+        }
+        jdbcTemplate.execute("CREATE INDEX IF NOT EXISTS idx_tasks_partitioned_owner ON tasks_partitioned (clerk_user_id, id)");
+        jdbcTemplate.execute("CREATE SEQUENCE IF NOT EXISTS tasks_partitioned_id_seq");
+
+        // Zapisy w trakcie kopiowania trafiają też do nowej tabeli: upsert po kluczu, usunięcie po id.
+        // Zmiana właściciela przenosi wiersz do innej partycji, więc wtedy najpierw usuwamy starą wersję
+        jdbcTemplate.execute("""
+                CREATE OR REPLACE FUNCTION tasks_partition_sync() RETURNS trigger AS $$
+                BEGIN
+                    IF TG_OP = 'DELETE' THEN
+                        DELETE FROM tasks_partitioned WHERE id = OLD.id;
+                        RETURN NULL;
+                    END IF;
+                    IF TG_OP = 'UPDATE' AND (OLD.id <> NEW.id OR OLD.clerk_user_id IS DISTINCT FROM NEW.clerk_user_id) THEN
+                        DELETE FROM tasks_partitioned WHERE id = OLD.id;
+                    END IF;
+                    INSERT INTO tasks_partitioned SELECT %s
+                    ON CONFLICT (id, clerk_user_id) DO UPDATE SET %s;
+                    RETURN NULL;
+                END $$ LANGUAGE plpgsql""".formatted(partitionedRow("NEW"), upsertAssignments()));
+        jdbcTemplate.execute("DROP TRIGGER IF EXISTS tasks_partition_sync ON tasks");
+        jdbcTemplate.execute("CREATE TRIGGER tasks_partition_sync AFTER INSERT OR UPDATE OR DELETE ON tasks"
+                + " FOR EACH ROW EXECUTE FUNCTION tasks_partition_sync()");
+    }
+
+    private void copyInBatches() throws InterruptedException {
+        JobCheckpoint checkpoint = loadCheckpoint(COPY_JOB);
+        Long maxId = jdbcTemplate.queryForObject("SELECT COALESCE(MAX(id), 0) FROM tasks", Long.class);
+
+        while (checkpoint.getLastId() < maxId) {
+            long from = checkpoint.getLastId();
+            long to = from + batchSize;
+            int copied = copyRange(from, to);
+            advance(checkpoint, to, copied);
+            Thread.sleep(batchPause.toMillis());
+        }
+        log.info("Copied {} tasks into tasks_partitioned, swapping tables", checkpoint.getProcessed());
+    }
+
+    // FOR SHARE: równoległy zapis tego wiersza czeka na koniec kopii (wtedy trigger nadpisze kopię),
+    // a wiersz zmieniony/usunięty przed zablokowaniem jest czytany w najnowszej wersji albo pomijany.
+    // Wiersz wstawiony już przez trigger jest nowszy - kopia go nie nadpisuje
+    private int copyRange(long fromExclusive, long toInclusive) {
+        return jdbcTemplate.update("""
+                INSERT INTO tasks_partitioned
+                SELECT %s FROM tasks t
+                WHERE t.id > ? AND t.id <= ?
+                FOR SHARE OF t
+                ON CONFLICT (id, clerk_user_id) DO NOTHING""".formatted(partitionedRow("t")), fromExclusive, toInclusive);
+    }
+
+    // Wiersz tasks w układzie tasks_partitioned; NULL jako właściciel zamieniony na '' (kolumna klucza głównego)
+    private static String partitionedRow(String alias) {
+        return "(jsonb_populate_record(NULL::tasks_partitioned, to_jsonb(" + alias + ")"
+                + " || jsonb_build_object('clerk_user_id', COALESCE(" + alias + ".clerk_user_id, '')))).*";
+    }
+
+    // "kolumna = EXCLUDED.kolumna" dla wszystkich kolumn poza kluczem - lista z bieżącego schematu tasks
+    private String upsertAssignments() {
+        return String.join(", ", jdbcTemplate.queryForList("""
+                SELECT format('%I = EXCLUDED.%I', column_name, column_name) FROM information_schema.columns
+                WHERE table_schema = current_schema() AND table_name = 'tasks' AND column_name NOT IN ('id', 'clerk_user_id')
+                  AND column_name IN (SELECT column_name FROM information_schema.columns
+                                      WHERE table_schema = current_schema() AND table_name = 'tasks_partitioned')
+                ORDER BY ordinal_position""", String.class));
+    }
+
+    // Krótka transakcja pod blokadą: doklejenie ogona, sekwencja i zamiana nazw
+    private void swapTables() {
+        JobCheckpoint checkpoint = loadCheckpoint(COPY_JOB);
+        transactionTemplate.executeWithoutResult(status -> {
+            jdbcTemplate.execute("LOCK TABLE tasks IN ACCESS EXCLUSIVE MODE");
+            copyRange(checkpoint.getLastId(), Long.MAX_VALUE);
+            // ID zarchiwizowanych zadań też są zajęte - przywrócenie z archiwum nie może trafić na nowe zadanie
+            long archivedMaxId = tableExists("tasks_archive")
+                    ? jdbcTemplate.queryForObject("SELECT COALESCE(MAX(id), 0) FROM tasks_archive", Long.class)
+                    : 0L;
+            jdbcTemplate.queryForList("SELECT setval('tasks_partitioned_id_seq', GREATEST((SELECT COALESCE(MAX(id), 0) FROM tasks), ?) + 1, false)",
+                    archivedMaxId);
+            jdbcTemplate.execute("ALTER TABLE tasks_partitioned ALTER COLUMN id SET DEFAULT nextval('tasks_partitioned_id_seq')");
+            jdbcTemplate.execute("DROP TRIGGER IF EXISTS tasks_partition_sync ON tasks");
+            jdbcTemplate.execute("ALTER TABLE tasks RENAME TO tasks_legacy");
+            jdbcTemplate.execute("ALTER TABLE tasks_partitioned RENAME TO tasks");
+            // Nazwy indeksów zwalniamy, żeby inicjalizacja przy starcie założyła je na nowej tabeli
+            jdbcTemplate.execute("""
+                    DO $$
+                    DECLARE r record;
+                    BEGIN
+                        FOR r IN SELECT indexname FROM pg_indexes WHERE tablename = 'tasks_legacy' LOOP
+                            EXECUTE format('ALTER INDEX %I RENAME TO %I', r.indexname, left(r.indexname, 50) || '_legacy');
+                        END LOOP;
+                    END $$""");
+            jdbcTemplate.execute("DROP TRIGGER IF EXISTS task_members_insert ON tasks_legacy");
+            jdbcTemplate.execute("DROP TRIGGER IF EXISTS task_members_update ON tasks_legacy");
+            jdbcTemplate.execute("DROP TRIGGER IF EXISTS task_members_delete ON tasks_legacy");
+            createMemberTriggers("tasks");
+        });
+        checkpoint.setCompleted(true);
+        saveCheckpoint(checkpoint);
+        log.info("Tasks table is now hash-partitioned into {} partitions; old data kept in tasks_legacy", partitions);
+    }
+
+    private boolean tableExists(String table) {
+        return Boolean.TRUE.equals(jdbcTemplate.queryForObject("SELECT to_regclass(?) IS NOT NULL", Boolean.class, table));
+    }
+
+    private boolean hasPrimaryKey(String table) {
+        return Boolean.TRUE.equals(jdbcTemplate.queryForObject(
+                "SELECT EXISTS (SELECT 1 FROM pg_constraint WHERE conrelid = to_regclass(?) AND contype = 'p')", Boolean.class, table));
+    }
+
+    // --- checkpointy ---
+
+    private boolean isCompleted(String jobName) {
+        return checkpointRepository.findById(jobName).map(JobCheckpoint::getCompleted).orElse(false);
+    }
+
+    private JobCheckpoint loadCheckpoint(String jobName) {
+        return checkpointRepository.findById(jobName).orElseGet(() -> new JobCheckpoint(jobName));
+    }
+
+    private void advance(JobCheckpoint checkpoint, long lastId, long processed) {
+        checkpoint.setLastId(lastId);
+        checkpoint.setProcessed(checkpoint.getProcessed() + processed);
+        saveCheckpoint(checkpoint);
+    }
+
+    private void saveCheckpoint(JobCheckpoint checkpoint) {
+        checkpoint.setUpdatedAt(LocalDateTime.now());
+        checkpointRepository.save(checkpoint);
+    }
+}
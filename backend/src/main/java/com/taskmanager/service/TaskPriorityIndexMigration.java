@@ -0,0 +1,38 @@
+package com.taskmanager.service;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.core.annotation.Order;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+// Indeks pod kolejkę "następne do zrobienia" (GET /api/tasks/next): otwarte zadania właściciela już posortowane
+// wg rangi priorytetu i terminu - zapytanie czyta pierwsze k wpisów indeksu bez sortowania wszystkich zadań.
+// Po zamianie tabeli na partycjonowaną (TaskPartitioningMigration) indeks odtwarza się przy kolejnym starcie
+@Component
+@Order(1)
+@RequiredArgsConstructor
+public class TaskPriorityIndexMigration implements ApplicationRunner {
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Override
+    public void run(ApplicationArguments args) {
+        // Enum zapisany jako tekst sortuje się alfabetycznie - ranga: KRYTYCZNY najpierw
+        jdbcTemplate.execute("""
+                CREATE OR REPLACE FUNCTION task_priority_rank(priority text) RETURNS int AS $$
+                    SELECT CASE priority
+                        WHEN 'KRYTYCZNY' THEN 0
+                        WHEN 'WYSOKI' THEN 1
+                        WHEN 'SREDNI' THEN 2
+                        WHEN 'NISKI' THEN 3
+                        ELSE 4
+                    END
+                $$ LANGUAGE sql IMMUTABLE""");
+        // Współbieżnie (na partycjonowanej tabeli per partycja) - pierwsze wdrożenie nie blokuje zapisów do tasks
+        OnlineIndexes.create(jdbcTemplate, "idx_tasks_next_up", "tasks",
+                "(clerk_user_id, task_priority_rank(priority), due_date NULLS LAST, id)"
+                        + " WHERE status IN ('DO_ZROBIENIA', 'W_TRAKCIE')");
+    }
+}
@@ -0,0 +1,71 @@
+package com.taskmanager.service;
+
+import com.taskmanager.dto.TaskResponse;
+import com.taskmanager.model.Task;
+import com.taskmanager.model.TaskCommentStats;
+import com.taskmanager.model.TaskProgress;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+// Encja -> odpowiedź API. Czyta tylko kolumny zadania: userId z klucza obcego (proxy User nie jest
+// inicjalizowany), daty z zapisanych wartości - stała liczba zapytań niezależnie od liczby zadań.
+// Podsumowania komentarzy i postęp podzadań przekazuje wywołujący (pobrane jednym zapytaniem dla całej listy)
+@Component
+public class TaskResponseMapper {
+
+    public TaskResponse toResponse(Task task) {
+        return toResponse(task, null, null);
+    }
+
+    // commentStats: podsumowanie wątku komentarzy (null = brak komentarzy), progress: null = brak podzadań
+    public TaskResponse toResponse(Task task, TaskCommentStats commentStats, TaskProgress progress) {
+        TaskResponse response = new TaskResponse();
+        response.setId(task.getId());
+        response.setLegacyId(task.get_id());
+        response.setTitle(task.getTitle());
+        response.setDescription(task.getDescription());
+        response.setStatus(task.getStatus());
+        response.setPriority(task.getPriority());
+        response.setCreatedAt(task.getCreatedAt());
+        response.setUpdatedAt(task.getUpdatedAt());
+        response.setDueDate(task.getDueDateForFrontend());
+        response.setCompletedAt(task.getCompletedAt());
+        response.setUserId(task.getUserId());
+        response.setClerkUserId(task.hasOwner() ? task.getClerkUserId() : null);
+        response.setParentId(task.getParentId());
+        response.setSubtaskCount(progress != null ? progress.getTotalCount() : 0);
+        response.setCompletedSubtasks(progress != null ? progress.getCompletedCount() : 0);
+        response.setAssignedTo(task.getAssignedTo());
+        if (commentStats != null && commentStats.getLastBody() != null) {
+            // Notatka = ostatni komentarz (stare notatki przeniesione do wątku przez TaskCommentBackfill)
+            response.setAssignedUserNote(commentStats.getLastBody());
+            response.setAssignedUserNoteAuthor(commentStats.getLastAuthorId());
+        } else {
+            response.setAssignedUserNote(task.getAssignedUserNote());
+            response.setAssignedUserNoteAuthor(task.getAssignedUserNoteAuthor());
+        }
+        response.setCommentCount(commentStats != null ? commentStats.getCommentCount() : 0);
+        response.setTags(task.getTags());
+        response.setImages(task.getImages());
+        response.setSharedWith(task.getSharedWith());
+        response.setShareRequests(task.getShareRequests());
+        response.setIsPublic(task.getIsPublic());
+        response.setIsSharedWithMe(task.getIsSharedWithMe());
+        return response;
+    }
+
+    public List<TaskResponse> toResponses(List<Task> tasks) {
+        return toResponses(tasks, Map.of(), Map.of());
+    }
+
+    public List<TaskResponse> toResponses(List<Task> tasks, Map<Long, TaskCommentStats> commentStats, Map<Long, TaskProgress> progress) {
+        List<TaskResponse> responses = new ArrayList<>(tasks.size());
+        for (Task task : tasks) {
+            responses.add(toResponse(task, commentStats.get(task.getId()), progress.get(task.getId())));
+        }
+        return responses;
+    }
+}
@@ -1,49 +1,78 @@
 package com.taskmanager.service;
 
 import com.taskmanager.model.Task;
+import com.taskmanager.model.TaskCommentStats;
+import com.taskmanager.model.TaskProgress;
 import com.taskmanager.model.User;
 import com.taskmanager.repository.TaskRepository;
+import com.taskmanager.repository.TaskRepositoryCustom;
+import com.taskmanager.repository.TaskVisibilitySql;
 import com.taskmanager.dto.CreateTaskRequest;
+import com.taskmanager.dto.TaskBoardColumn;
+import com.taskmanager.dto.TaskResponse;
 import com.taskmanager.dto.UpdateTaskRequest;
 import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.security.access.AccessDeniedException;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.ArrayList;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
 public class TaskService {
+    // Limit ID w jednym zapytaniu IN
+    private static final int FETCH_BY_ID_CHUNK = 1000;
+
     private final TaskRepository taskRepository;
     private final UserService userService;
+    private final TaskPartitioningMigration taskPartitioningMigration;
+    private final ApplicationEventPublisher eventPublisher;
+    private final TaskVisibilityIndex visibilityIndex;
+    private final TaskResponseMapper taskResponseMapper;
+    private final TaskCommentService taskCommentService;
+    private final TaskTreeService taskTreeService;
+    private final TaskGroupService taskGroupService;
 
     @Transactional
     public Task createTask(Task task, Long userId) {
         User user = userService.getUserById(userId);
         task.setUser(user);
-        return taskRepository.save(task);
+        return publishChange(taskRepository.save(task), TaskChangedEvent.ChangeType.CREATED);
     }
 
+    // Zadanie bez właściciela Clerk zapisuje się z Task.NO_OWNER (Task.beforeSave)
     @Transactional
     public Task createTaskWithoutUser(Task task) {
         // Tworzymy zadanie bez przypisanego użytkownika
         task.setUser(null);
-        return taskRepository.save(task);
+        return publishChange(taskRepository.save(task), TaskChangedEvent.ChangeType.CREATED);
     }
 
+    @Transactional(readOnly = true)
     public List<Task> getAllTasks() {
         return taskRepository.findAll();
     }
 
+    @Transactional(readOnly = true)
     public List<Task> getUserTasks(Long userId) {
         return taskRepository.findByUser_Id(userId);
     }
 
+    @Transactional(readOnly = true)
     public List<Task> getUserTasksByStatus(Long userId, Task.TaskStatus status) {
         return taskRepository.findByUser_IdAndStatus(userId, status);
     }
 
+    @Transactional(readOnly = true)
     public Task getTaskById(Long taskId) {
         return taskRepository.findById(taskId)
                 .orElseThrow(() -> new RuntimeException("Task not found with id: " + taskId));
@@ -60,6 +89,7 @@ public class TaskService {
         if (taskDetails.getDescription() != null) {
             task.setDescription(taskDetails.getDescription());
         }
+        boolean wasCompleted = task.getStatus() == Task.TaskStatus.ZAKONCZONE;
         if (taskDetails.getStatus() != null) {
             task.setStatus(taskDetails.getStatus());
         }
@@ -69,8 +99,9 @@ public class TaskService {
         if (taskDetails.getDueDate() != null) {
             task.setDueDate(taskDetails.getDueDate());
         }
+        rollUpCompletion(task, wasCompleted);
 
-        return taskRepository.save(task);
+        return publishChange(taskRepository.save(task), TaskChangedEvent.ChangeType.UPDATED);
     }
 
     @Transactional
@@ -84,9 +115,11 @@ public class TaskService {
         if (request.getDescription() != null) {
             task.setDescription(request.getDescription());
         }
+        boolean wasCompleted = task.getStatus() == Task.TaskStatus.ZAKONCZONE;
         if (request.getTaskStatus() != null) {
             task.setStatus(request.getTaskStatus());
         }
+        rollUpCompletion(task, wasCompleted);
         if (request.getTaskPriority() != null) {
             task.setPriority(request.getTaskPriority());
         }
@@ -124,29 +157,108 @@ public class TaskService {
             }
         }
 
-        // Obsługa notatki od przypisanego użytkownika
-        if (request.getAssignedUserNote() != null) {
-            System.out.println("=== UPDATING TASK WITH NOTE ===");
-            System.out.println("assignedUserNote: " + request.getAssignedUserNote());
-            System.out.println("assignedUserNoteAuthor: " + request.getAssignedUserNoteAuthor());
-            if (request.getAssignedUserNote().trim().isEmpty()) {
-                // Jeśli przesłano pusty string, usuń notatkę
-                task.setAssignedUserNote(null);
-                task.setAssignedUserNoteAuthor(null);
-            } else {
-                task.setAssignedUserNote(request.getAssignedUserNote().trim());
-                task.setAssignedUserNoteAuthor(request.getAssignedUserNoteAuthor());
-            }
+        Task savedTask = publishChange(taskRepository.save(task), TaskChangedEvent.ChangeType.UPDATED);
+
+        // Notatka od przypisanego użytkownika trafia do wątku komentarzy (wiersz tasks się nie zmienia).
+        // Wątek jest tylko dopisywany: pusta notatka niczego nie usuwa, ta sama co ostatnio nie jest dublowana
+        String note = request.getAssignedUserNote() != null ? request.getAssignedUserNote().trim() : "";
+        if (!note.isEmpty() && !note.equals(currentNote(task))) {
+            String author = request.getAssignedUserNoteAuthor() != null ? request.getAssignedUserNoteAuthor() : task.getClerkUserId();
+            taskCommentService.addComments(taskId, author, List.of(note));
+        }
+        return savedTask;
+    }
+
+    // Ostatni komentarz (albo notatka sprzed wątków komentarzy)
+    private String currentNote(Task task) {
+        TaskCommentStats stats = taskCommentService.getStats(List.of(task.getId())).get(task.getId());
+        return stats != null ? stats.getLastBody() : task.getAssignedUserNote();
+    }
+
+    // Właściciel albo przypisany / udostępniony bezpośrednio lub przez grupę (te same reguły co feed)
+    @Transactional(readOnly = true)
+    public boolean canAccess(Long taskId, String clerkUserId, String userEmail) {
+        return taskRepository.findById(taskId)
+                .map(task -> clerkUserId.equals(task.getClerkUserId()) || isVisibleToOther(task, clerkUserId, userEmail)
+                        || taskGroupService.isVisibleViaGroup(taskId, clerkUserId))
+                .orElse(false);
+    }
+
+    // Postęp przodków zmienia się tylko przy wejściu do / wyjściu z ZAKONCZONE
+    private void rollUpCompletion(Task task, boolean wasCompleted) {
+        boolean completed = task.getStatus() == Task.TaskStatus.ZAKONCZONE;
+        if (completed != wasCompleted) {
+            taskTreeService.onCompletionChanged(task.getId(), completed);
         }
+    }
 
-        return taskRepository.save(task);
+    // Usuwa zadanie razem z podzadaniami - tylko właściciel, a całe poddrzewo musi należeć do niego
+    @Transactional
+    public void deleteTask(Long taskId, String clerkUserId) {
+        Task task = taskRepository.findById(taskId).orElse(null);
+        if (task == null) {
+            return;
+        }
+        requireOwner(task, clerkUserId);
+        for (Long deletedId : taskTreeService.deleteSubtree(task)) {
+            taskCommentService.deleteForTask(deletedId);
+            taskGroupService.deleteSharesForTask(deletedId);
+            eventPublisher.publishEvent(new TaskChangedEvent(deletedId, TaskChangedEvent.ChangeType.DELETED));
+        }
     }
 
+    // Przeniesienie zadania z poddrzewem pod innego rodzica (null = zadanie główne).
+    // Przenosi właściciel, i tylko pod własne zadanie (sprawdza TaskTreeService)
     @Transactional
-    public void deleteTask(Long taskId) {
-        taskRepository.deleteById(taskId);
+    public Task moveTask(Long taskId, Long newParentId, String clerkUserId) {
+        Task task = taskRepository.findById(taskId)
+                .orElseThrow(() -> new RuntimeException("Task not found with id: " + taskId));
+        requireOwner(task, clerkUserId);
+        if (java.util.Objects.equals(task.getParentId(), newParentId)) {
+            return task;
+        }
+        taskTreeService.moveSubtree(task, newParentId);
+        task.setParentId(newParentId);
+        return publishChange(taskRepository.save(task), TaskChangedEvent.ChangeType.UPDATED);
+    }
+
+    private static void requireOwner(Task task, String clerkUserId) {
+        if (!clerkUserId.equals(task.getClerkUserId())) {
+            throw new AccessDeniedException("Tylko właściciel może zmieniać strukturę zadania");
+        }
+    }
+
+    // Zadanie i całe poddrzewo (jedno zapytanie po task_closure), posortowane wg głębokości
+    @Transactional(readOnly = true)
+    public Map<String, Object> getSubtree(Long taskId) {
+        Task root = taskRepository.findById(taskId)
+                .orElseThrow(() -> new RuntimeException("Task not found with id: " + taskId));
+        List<Task> tasks = new ArrayList<>();
+        tasks.add(root);
+        tasks.addAll(taskRepository.findSubtree(taskId));
+        List<TaskResponse> responses = toResponses(tasks);
+
+        Map<String, Object> result = new HashMap<>();
+        result.put("task", responses.get(0));
+        result.put("subtasks", responses.subList(1, responses.size()));
+        return result;
     }
 
+    // Odpowiedź z podsumowaniem komentarzy i postępem podzadań (po jednym zapytaniu na listę)
+    @Transactional(readOnly = true)
+    public TaskResponse toResponse(Task task) {
+        List<Long> ids = List.of(task.getId());
+        return taskResponseMapper.toResponse(task,
+                taskCommentService.getStats(ids).get(task.getId()), taskTreeService.getProgress(ids).get(task.getId()));
+    }
+
+    @Transactional(readOnly = true)
+    public List<TaskResponse> toResponses(List<Task> tasks) {
+        List<Long> ids = tasks.stream().map(Task::getId).toList();
+        return taskResponseMapper.toResponses(tasks, taskCommentService.getStats(ids), taskTreeService.getProgress(ids));
+    }
+
+    @Transactional(readOnly = true)
     public List<Task> getTasksByStatus(Task.TaskStatus status) {
         return taskRepository.findByStatus(status);
     }
@@ -156,13 +268,166 @@ public class TaskService {
         // Zadanie bez przypisanego User obiektu, ale z clerkUserId
         task.setUser(null);
         task.setClerkUserId(clerkUserId); // Dodamy to pole do modelu Task
-        return taskRepository.save(task);
+        return publishChange(taskRepository.save(task), TaskChangedEvent.ChangeType.CREATED);
+    }
+
+    @Transactional(readOnly = true)
+    public List<Task> getTasksForClerkUser(String clerkUserId, String userEmail, boolean includeArchived) {
+        return getTasksForClerkUser(clerkUserId, userEmail, includeArchived, List.of());
+    }
+
+    // Feed zmapowany w transakcji - połączenie wraca do puli przed serializacją odpowiedzi
+    @Transactional(readOnly = true)
+    public List<TaskResponse> getTaskResponsesForClerkUser(String clerkUserId, String userEmail, boolean includeArchived, List<String> tags) {
+        return toResponses(getTasksForClerkUser(clerkUserId, userEmail, includeArchived, tags));
+    }
+
+    // Multi-get (GET /api/tasks?ids=): jedno zapytanie po ID z warunkiem widoczności; kolejność jak w żądaniu,
+    // niewidoczne i nieistniejące są pomijane
+    @Transactional(readOnly = true)
+    public List<TaskResponse> getVisibleTasksByIds(String clerkUserId, String userEmail, List<Long> ids) {
+        List<Long> distinctIds = ids.stream().filter(java.util.Objects::nonNull).distinct().toList();
+        if (distinctIds.isEmpty()) {
+            return List.of();
+        }
+        if (distinctIds.size() > FETCH_BY_ID_CHUNK) {
+            throw new IllegalArgumentException("Maksymalnie " + FETCH_BY_ID_CHUNK + " ID w jednym żądaniu");
+        }
+        Map<Long, Task> byId = taskRepository.findVisibleByIds(clerkUserId, userEmail, distinctIds).stream()
+                .collect(Collectors.toMap(Task::getId, Function.identity()));
+        return toResponses(distinctIds.stream().map(byId::get).filter(java.util.Objects::nonNull).toList());
+    }
+
+    // Kolejka "następne do zrobienia" - stały koszt niezależnie od liczby zadań użytkownika
+    @Transactional(readOnly = true)
+    public List<TaskResponse> getNextUp(String clerkUserId, int k) {
+        return toResponses(taskRepository.findNextUp(clerkUserId, k));
+    }
+
+    // tags: zadanie musi mieć wszystkie podane tagi (filtr @> po indeksie GIN)
+    @Transactional(readOnly = true)
+    public List<Task> getTasksForClerkUser(String clerkUserId, String userEmail, boolean includeArchived, List<String> tags) {
+        List<Task> tasks = tags.isEmpty()
+                ? getTasksForClerkUser(clerkUserId, userEmail)
+                : getVisibleTasksWithTags(clerkUserId, userEmail, tags);
+        if (!includeArchived) {
+            return tasks;
+        }
+        // Archiwum indeksowane jest po właścicielu - zwracamy zarchiwizowane zadania utworzone przez użytkownika
+        List<Task> allTasks = new ArrayList<>(tasks);
+        for (Task archivedTask : taskRepository.findArchivedByClerkUserId(clerkUserId)) {
+            if (java.util.Arrays.asList(archivedTask.getTags()).containsAll(tags)) {
+                allTasks.add(archivedTask);
+            }
+        }
+        return allTasks;
+    }
+
+    private List<Task> getVisibleTasksWithTags(String clerkUserId, String userEmail, List<String> tags) {
+        long[] candidateIds = visibilityIndex.isReady() ? visibilityIndex.candidates(clerkUserId, userEmail) : null;
+        List<Long> ids = taskRepository.findVisibleIdsByTags(clerkUserId, userEmail, candidateIds, tags);
+        List<Task> tasks = new ArrayList<>();
+        for (int from = 0; from < ids.size(); from += FETCH_BY_ID_CHUNK) {
+            tasks.addAll(taskRepository.findAllById(ids.subList(from, Math.min(from + FETCH_BY_ID_CHUNK, ids.size()))));
+        }
+        return tasks;
+    }
+
+    // Fasety (tagi, statusy, priorytety) liczone w bazie dla zadań widocznych dla użytkownika
+    @Transactional(readOnly = true)
+    public Map<String, Object> getTaskFacets(String clerkUserId, String userEmail, List<String> tags) {
+        long[] candidateIds = visibilityIndex.isReady() ? visibilityIndex.candidates(clerkUserId, userEmail) : null;
+
+        Map<String, Object> facets = new HashMap<>();
+        Map<String, List<Map<String, Object>>> groups = new HashMap<>();
+        long total = 0;
+        for (TaskRepositoryCustom.FacetCount count : taskRepository.countFacets(clerkUserId, userEmail, candidateIds, tags)) {
+            if ("total".equals(count.facet())) {
+                total = count.count();
+                continue;
+            }
+            Map<String, Object> entry = new HashMap<>();
+            entry.put("value", count.value());
+            entry.put("count", count.count());
+            groups.computeIfAbsent(count.facet(), facet -> new ArrayList<>()).add(entry);
+        }
+        facets.put("total", total);
+        facets.put("tags", groups.getOrDefault("tag", List.of()));
+        facets.put("statuses", groups.getOrDefault("status", List.of()));
+        facets.put("priorities", groups.getOrDefault("priority", List.of()));
+        return facets;
     }
 
+    // Statystyki liczone agregacją w bazie, łącznie z archiwum (bez ładowania zadań do pamięci)
+    @Transactional(readOnly = true)
+    public Map<String, Object> getTaskStats() {
+        Map<Task.TaskStatus, long[]> hot = toStatusCounts(taskRepository.countByStatus());
+        Map<Task.TaskStatus, long[]> archived = toStatusCounts(taskRepository.countArchivedByStatus());
+
+        long total = 0;
+        long archivedTotal = 0;
+        long overdue = 0;
+        List<Map<String, Object>> byStatus = new ArrayList<>();
+        for (Task.TaskStatus status : Task.TaskStatus.values()) {
+            long[] hotCounts = hot.getOrDefault(status, new long[2]);
+            long[] archivedCounts = archived.getOrDefault(status, new long[2]);
+            long count = hotCounts[0] + archivedCounts[0];
+            total += count;
+            archivedTotal += archivedCounts[0];
+            overdue += hotCounts[1] + archivedCounts[1];
+
+            Map<String, Object> statusStat = new HashMap<>();
+            statusStat.put("_id", status.getDisplayName());
+            statusStat.put("count", count);
+            statusStat.put("archived", archivedCounts[0]);
+            byStatus.add(statusStat);
+        }
+
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("total", total);
+        stats.put("archived", archivedTotal);
+        stats.put("completed", hot.getOrDefault(Task.TaskStatus.ZAKONCZONE, new long[2])[0]
+                + archived.getOrDefault(Task.TaskStatus.ZAKONCZONE, new long[2])[0]);
+        stats.put("overdue", overdue);
+        stats.put("byStatus", byStatus);
+        return stats;
+    }
+
+    private Map<Task.TaskStatus, long[]> toStatusCounts(List<Object[]> rows) {
+        Map<Task.TaskStatus, long[]> counts = new EnumMap<>(Task.TaskStatus.class);
+        for (Object[] row : rows) {
+            Task.TaskStatus status = Task.TaskStatus.valueOf((String) row[0]);
+            counts.put(status, new long[]{((Number) row[1]).longValue(), ((Number) row[2]).longValue()});
+        }
+        return counts;
+    }
+
+    // Własne, przypisane i udostępnione bezpośrednio, a na końcu udostępnione grupom użytkownika
+    @Transactional(readOnly = true)
     public List<Task> getTasksForClerkUser(String clerkUserId, String userEmail) {
+        List<Task> tasks = getDirectlyVisibleTasks(clerkUserId, userEmail);
+        List<Task> groupTasks = taskRepository.findSharedViaGroups(clerkUserId);
+        if (groupTasks.isEmpty()) {
+            return tasks;
+        }
+        Map<Long, Task> byId = new LinkedHashMap<>();
+        for (Task task : tasks) {
+            byId.putIfAbsent(task.getId(), task);
+        }
+        for (Task task : groupTasks) {
+            byId.putIfAbsent(task.getId(), task);
+        }
+        return new ArrayList<>(byId.values());
+    }
+
+    private List<Task> getDirectlyVisibleTasks(String clerkUserId, String userEmail) {
         System.out.println("=== GET TASKS FOR CLERK USER DEBUG ===");
         System.out.println("clerkUserId: " + clerkUserId);
         System.out.println("userEmail: " + userEmail);
+
+        if (visibilityIndex.isReady()) {
+            return getVisibleTasksFromIndex(clerkUserId, userEmail);
+        }
         
         // Pobierz zadania utworzone przez użytkownika
         List<Task> createdTasks = taskRepository.findByClerkUserId(clerkUserId);
@@ -170,18 +435,20 @@ public class TaskService {
         
         // Pobierz zadania przypisane do użytkownika po clerkUserId (ale nie utworzone przez niego)
         // Używamy prostszej metody która obsługuje ID z nawiasami
-        List<Task> assignedTasksByUserId = taskRepository.findByAssignedToContainingAndClerkUserIdNot(clerkUserId, clerkUserId);
+        List<Task> assignedTasksByUserId = findAssignedTasks(clerkUserId, clerkUserId);
         System.out.println("Assigned tasks by userId count: " + assignedTasksByUserId.size());
         
         // Pobierz zadania przypisane do użytkownika po emailu (ale nie utworzone przez niego)
         List<Task> assignedTasksByEmail = new ArrayList<>();
         if (userEmail != null && !userEmail.trim().isEmpty()) {
-            assignedTasksByEmail = taskRepository.findByAssignedToContainingAndClerkUserIdNot(userEmail, clerkUserId);
+            assignedTasksByEmail = findAssignedTasks(userEmail, clerkUserId);
             System.out.println("Assigned tasks by email count: " + assignedTasksByEmail.size());
         }
         
         // Pobierz zadania udostępnione użytkownikowi
-        List<Task> sharedTasks = taskRepository.findBySharedWithContainingAndClerkUserIdNot(clerkUserId, clerkUserId);
+        List<Task> sharedTasks = taskPartitioningMigration.isMemberLookupReady()
+                ? taskRepository.findByMemberAndOwnerNot(clerkUserId, "S", clerkUserId)
+                : taskRepository.findSharedAndClerkUserIdNot(TaskVisibilitySql.memberPattern(clerkUserId), clerkUserId);
         System.out.println("Shared tasks count: " + sharedTasks.size());
         
         // Połącz listy
@@ -196,6 +463,81 @@ public class TaskService {
         return allTasks;
     }
 
+    // Kandydaci z indeksu widoczności + pobranie wsadami po ID; widoczność sprawdzana jeszcze raz na wierszach
+    private List<Task> getVisibleTasksFromIndex(String clerkUserId, String userEmail) {
+        long[] candidateIds = visibilityIndex.candidates(clerkUserId, userEmail);
+        List<Task> createdTasks = new ArrayList<>();
+        List<Task> otherTasks = new ArrayList<>();
+        for (int from = 0; from < candidateIds.length; from += FETCH_BY_ID_CHUNK) {
+            List<Long> chunk = new ArrayList<>();
+            for (int i = from; i < Math.min(from + FETCH_BY_ID_CHUNK, candidateIds.length); i++) {
+                chunk.add(candidateIds[i]);
+            }
+            for (Task task : taskRepository.findAllById(chunk)) {
+                if (clerkUserId.equals(task.getClerkUserId())) {
+                    createdTasks.add(task);
+                } else if (isVisibleToOther(task, clerkUserId, userEmail)) {
+                    otherTasks.add(task);
+                }
+            }
+        }
+        // Kolejność jak dotąd: najpierw własne, potem przypisane/udostępnione
+        createdTasks.addAll(otherTasks);
+        return createdTasks;
+    }
+
+    private boolean isVisibleToOther(Task task, String clerkUserId, String userEmail) {
+        List<String> assigned = java.util.Arrays.asList(task.getAssignedTo());
+        if (assigned.contains(clerkUserId)) {
+            return true;
+        }
+        if (userEmail != null && !userEmail.trim().isEmpty() && assigned.contains(userEmail.trim())) {
+            return true;
+        }
+        return java.util.Arrays.asList(task.getSharedWith()).contains(clerkUserId);
+    }
+
+    // Tablica Kanban: kolumny wg statusu z limitem, liczbą zadań i kursorem (status != null - tylko jedna kolumna)
+    @Transactional(readOnly = true)
+    public List<TaskBoardColumn> getBoard(String clerkUserId, String userEmail, Task.TaskStatus status, Long cursor, int limit) {
+        // Kandydaci z indeksu widoczności zawężają skan jak w fasetach (bez nich zostaje sam LIKE po tablicach jsonb)
+        long[] candidateIds = visibilityIndex.isReady() ? visibilityIndex.candidates(clerkUserId, userEmail) : null;
+        List<TaskRepositoryCustom.BoardEntry> entries = taskRepository.findBoardEntries(clerkUserId, userEmail, candidateIds, status, cursor, limit);
+        Map<Long, Task> tasksById = taskRepository.findAllById(entries.stream().map(TaskRepositoryCustom.BoardEntry::taskId).toList())
+                .stream()
+                .collect(Collectors.toMap(Task::getId, Function.identity()));
+        Map<Long, TaskCommentStats> commentStats = taskCommentService.getStats(tasksById.keySet());
+        Map<Long, TaskProgress> progress = taskTreeService.getProgress(tasksById.keySet());
+
+        Map<Task.TaskStatus, TaskBoardColumn> columns = new LinkedHashMap<>();
+        for (Task.TaskStatus columnStatus : Task.TaskStatus.values()) {
+            if (status == null || status == columnStatus) {
+                columns.put(columnStatus, new TaskBoardColumn(columnStatus, columnStatus.getDisplayName(), 0, new ArrayList<>(), null));
+            }
+        }
+        for (TaskRepositoryCustom.BoardEntry entry : entries) {
+            TaskBoardColumn column = columns.get(entry.status());
+            Task task = tasksById.get(entry.taskId());
+            column.setTotal(entry.columnTotal());
+            if (task != null) {
+                column.getTasks().add(taskResponseMapper.toResponse(task, commentStats.get(task.getId()), progress.get(task.getId())));
+            }
+            // Kursor = ID ostatniego zadania na stronie, jeśli za nim są kolejne
+            if (entry.remaining() > limit) {
+                column.setNextCursor(entry.taskId().toString());
+            }
+        }
+        return new ArrayList<>(columns.values());
+    }
+
+    // Po zbudowaniu task_members dokładne dopasowanie po indeksie zamiast LIKE po całej tabeli
+    private List<Task> findAssignedTasks(String member, String clerkUserId) {
+        if (taskPartitioningMigration.isMemberLookupReady()) {
+            return taskRepository.findByMemberAndOwnerNot(member, "A", clerkUserId);
+        }
+        return taskRepository.findAssignedAndClerkUserIdNot(member, TaskVisibilitySql.memberPattern(member), clerkUserId);
+    }
+
     @Transactional
     public Task createTaskFromRequest(CreateTaskRequest request, String clerkUserId) {
         Task task = new Task();
@@ -206,6 +548,16 @@ public class TaskService {
         task.setClerkUserId(clerkUserId);
         task.setUser(null);
 
+        // Podzadanie należy do właściciela rodzica i dziedziczy udostępnienia - widzą je ci sami użytkownicy
+        Task parent = null;
+        if (request.getParentId() != null) {
+            parent = taskRepository.findById(request.getParentId())
+                    .orElseThrow(() -> new RuntimeException("Task not found with id: " + request.getParentId()));
+            task.setClerkUserId(parent.getClerkUserId());
+            task.setSharedWith(parent.getSharedWith());
+            task.setParentId(parent.getId());
+        }
+
         // Obsługa daty
         if (request.getDueDate() != null && !request.getDueDate().trim().isEmpty()) {
             try {
@@ -229,21 +581,25 @@ public class TaskService {
         // Obsługa przypisania użytkowników
         if (request.getAssignedTo() != null && request.getAssignedTo().length > 0) {
             task.setAssignedTo(request.getAssignedTo());
+        } else if (parent != null) {
+            task.setAssignedTo(parent.getAssignedTo());
         } else {
             // Jeśli nie przypisano do nikogo, przypisz automatycznie do siebie
             task.setAssignedTo(new String[]{clerkUserId});
         }
 
-        // Obsługa notatki od przypisanego użytkownika
-        if (request.getAssignedUserNote() != null && !request.getAssignedUserNote().trim().isEmpty()) {
-            System.out.println("=== CREATING TASK WITH NOTE ===");
-            System.out.println("assignedUserNote: " + request.getAssignedUserNote());
-            System.out.println("assignedUserNoteAuthor: " + request.getAssignedUserNoteAuthor());
-            task.setAssignedUserNote(request.getAssignedUserNote().trim());
-            task.setAssignedUserNoteAuthor(request.getAssignedUserNoteAuthor());
+        Task savedTask = publishChange(taskRepository.save(task), TaskChangedEvent.ChangeType.CREATED);
+        if (parent != null) {
+            taskTreeService.moveSubtree(savedTask, parent.getId());
+            taskGroupService.copyShares(parent.getId(), savedTask.getId());
         }
 
-        return taskRepository.save(task);
+        // Notatka od przypisanego użytkownika - pierwszy komentarz w wątku zadania
+        if (request.getAssignedUserNote() != null && !request.getAssignedUserNote().trim().isEmpty()) {
+            String author = request.getAssignedUserNoteAuthor() != null ? request.getAssignedUserNoteAuthor() : clerkUserId;
+            taskCommentService.addComments(savedTask.getId(), author, List.of(request.getAssignedUserNote().trim()));
+        }
+        return savedTask;
     }
 
     @Transactional
@@ -252,12 +608,8 @@ public class TaskService {
         Task task = taskRepository.findById(taskId)
                 .orElseThrow(() -> new RuntimeException("Task not found"));
 
-        System.out.println("Found task: " + task.getTitle());
-        System.out.println("Task clerkUserId: " + task.getClerkUserId());
-        System.out.println("Current sharedWith: " + java.util.Arrays.toString(task.getSharedWith()));
-
         // Sprawdź czy użytkownik ma prawo do udostępniania tego zadania
-        if (task.getClerkUserId() == null) {
+        if (!task.hasOwner()) {
             throw new RuntimeException("Zadanie nie ma przypisanego właściciela");
         }
         
@@ -265,38 +617,25 @@ public class TaskService {
             throw new RuntimeException("Nie masz uprawnień do udostępniania tego zadania. Właściciel: " + task.getClerkUserId() + ", Ty: " + clerkUserId);
         }
 
-        // Pobierz obecną listę udostępnionych użytkowników
-        String[] currentSharedWith = task.getSharedWith();
-        List<String> sharedWithList = new ArrayList<>();
-        if (currentSharedWith != null) {
-            sharedWithList.addAll(java.util.Arrays.asList(currentSharedWith));
+        if (userIds == null || userIds.isEmpty()) {
+            return task;
         }
 
-        // Dodaj nowych użytkowników (bez duplikatów)
-        for (String userId : userIds) {
-            if (!sharedWithList.contains(userId)) {
-                sharedWithList.add(userId);
-            }
+        // Obecni + nowi użytkownicy bez duplikatów, w kolejności dodania.
+        // Zespoły udostępniamy przez grupy (TaskGroupService.shareTask) - tu trafiają tylko pojedyncze osoby
+        java.util.Set<String> sharedWith = new java.util.LinkedHashSet<>();
+        if (task.getSharedWith() != null) {
+            sharedWith.addAll(java.util.Arrays.asList(task.getSharedWith()));
         }
-
-        // Ustaw zaktualizowaną listę
-        task.setSharedWith(sharedWithList.toArray(new String[0]));
-
-        System.out.println("Updated sharedWith: " + java.util.Arrays.toString(task.getSharedWith()));
-        
-        Task savedTask = taskRepository.save(task);
-        System.out.println("Task saved successfully with ID: " + savedTask.getId());
-        System.out.println("Saved task sharedWith: " + java.util.Arrays.toString(savedTask.getSharedWith()));
-        
-        // Sprawdź czy zadanie zostało rzeczywiście zapisane w bazie
-        Task verifyTask = taskRepository.findById(taskId).orElse(null);
-        if (verifyTask != null) {
-            System.out.println("Verification - Task sharedWith in DB: " + java.util.Arrays.toString(verifyTask.getSharedWith()));
-        } else {
-            System.out.println("ERROR: Task not found in DB after save!");
+        if (!sharedWith.addAll(userIds)) {
+            return task;
         }
-        
-        return savedTask;
+        task.setSharedWith(sharedWith.toArray(new String[0]));
+        return publishChange(taskRepository.save(task), TaskChangedEvent.ChangeType.UPDATED);
     }
 
-}
\ No newline at end of file
+    private Task publishChange(Task task, TaskChangedEvent.ChangeType type) {
+        eventPublisher.publishEvent(new TaskChangedEvent(task.getId(), type));
+        return task;
+    }
+}
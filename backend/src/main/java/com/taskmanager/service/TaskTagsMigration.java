@@ -0,0 +1,58 @@
+package com.taskmanager.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.core.annotation.Order;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+// Jednorazowa zmiana tasks.tags z tekstu JSON na jsonb + indeks GIN (idempotentna, sprawdza typ kolumny).
+// ddl-auto nie zmienia typów istniejących kolumn, więc robimy to tutaj (po utworzeniu tasks_archive).
+@Slf4j
+@Component
+@Order(1)
+@RequiredArgsConstructor
+public class TaskTagsMigration implements ApplicationRunner {
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Override
+    public void run(ApplicationArguments args) {
+        // Ta sama tolerancja co dotąd w Task.getTags(): pusta wartość = brak tagów, nie-JSON nie blokuje migracji
+        jdbcTemplate.execute("""
+                CREATE OR REPLACE FUNCTION task_tags_jsonb(value text) RETURNS jsonb AS $$
+                DECLARE
+                    parsed jsonb;
+                BEGIN
+                    IF value IS NULL OR btrim(value) = '' THEN
+                        RETURN NULL;
+                    END IF;
+                    BEGIN
+                        parsed := value::jsonb;
+                    EXCEPTION WHEN others THEN
+                        RETURN NULL;
+                    END;
+                    RETURN CASE WHEN jsonb_typeof(parsed) = 'array' THEN parsed END;
+                END $$ LANGUAGE plpgsql IMMUTABLE""");
+
+        String type = jdbcTemplate.queryForObject(
+                "SELECT data_type FROM information_schema.columns WHERE table_schema = current_schema()"
+                        + " AND table_name = 'tasks' AND column_name = 'tags'", String.class);
+        if (!"jsonb".equals(type)) {
+            log.info("Converting tasks.tags from {} to jsonb", type);
+            jdbcTemplate.execute("ALTER TABLE tasks ALTER COLUMN tags TYPE jsonb USING task_tags_jsonb(tags)");
+        }
+
+        // Zarchiwizowane wiersze zapisane przed zmianą mają tags jako tekst w payload
+        int archived = jdbcTemplate.update("UPDATE tasks_archive SET payload = jsonb_set(payload, '{tags}',"
+                + " COALESCE(task_tags_jsonb(payload->>'tags'), 'null'::jsonb)) WHERE jsonb_typeof(payload->'tags') = 'string'");
+        if (archived > 0) {
+            log.info("Converted tags of {} archived tasks to jsonb", archived);
+        }
+
+        // jsonb_path_ops: mniejszy indeks, obsługuje operator @> (filtr po tagach)
+        jdbcTemplate.execute("CREATE INDEX IF NOT EXISTS idx_tasks_tags ON tasks USING gin (tags jsonb_path_ops)");
+    }
+}
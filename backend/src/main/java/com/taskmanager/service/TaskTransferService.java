@@ -0,0 +1,513 @@
+package com.taskmanager.service;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.taskmanager.model.Task;
+import lombok.extern.slf4j.Slf4j;
+import org.postgresql.PGConnection;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceUtils;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.StringReader;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// Eksport zadań użytkownika (NDJSON/CSV) kursorem po stronie serwera i import przez COPY w paczkach.
+// Pamięć stała niezależnie od liczby zadań: eksport pisze wiersz po wierszu, import trzyma jedną paczkę.
+@Slf4j
+@Service
+public class TaskTransferService {
+
+    public enum Format {
+        NDJSON,
+        CSV
+    }
+
+    // Kolumny eksportu/importu (nagłówek CSV i pola NDJSON)
+    static final String[] COLUMNS = {"id", "title", "description", "status", "priority", "dueDate", "createdAt",
+            "updatedAt", "assignedTo", "sharedWith", "tags", "images", "assignedUserNote", "assignedUserNoteAuthor"};
+
+    // Notatka (assignedUserNote) to ostatni komentarz z wątku zadania - jak w odpowiedziach API
+    private static final String EXPORT_SQL = "SELECT t.id, t.title, t.description_text, t.status, t.priority, t.due_date,"
+            + " t.created_at, t.updated_at, t.assigned_to, t.shared_with, t.tags, t.images,"
+            + " s.last_body AS note, s.last_author_id AS note_author"
+            + " FROM tasks t LEFT JOIN task_comment_stats s ON s.task_id = t.id WHERE t.clerk_user_id = ? ORDER BY t.id";
+
+    private static final String TASK_COLUMNS = "title, description_text, status, priority, due_date, created_at,"
+            + " updated_at, clerk_user_id, assigned_to, shared_with, tags, images, is_public, is_shared_with_me";
+
+    // Paczka trafia przez COPY do tabeli tymczasowej o typach kolumn tasks, a stamtąd jednym zapytaniem do tasks
+    // i (notatki) do task_comments + task_comment_stats. ID zadań nadajemy z góry, żeby powiązać z nimi komentarze
+    private static final String STAGING_SQL = "CREATE TEMP TABLE task_import ON COMMIT DROP AS SELECT " + TASK_COLUMNS
+            + ", assigned_user_note AS note, assigned_user_note_author AS note_author FROM tasks WITH NO DATA";
+
+    private static final String COPY_SQL = "COPY task_import (title, description_text, status, priority, due_date, created_at,"
+            + " updated_at, clerk_user_id, assigned_to, shared_with, tags, images, note, note_author, is_public,"
+            + " is_shared_with_me) FROM STDIN WITH (FORMAT csv)";
+
+    // Sekwencja ID zadań: identity albo (po partycjonowaniu) sekwencja z domyślnego nextval kolumny id
+    private static final String ID_SEQUENCE_SQL = """
+            SELECT COALESCE(pg_get_serial_sequence('tasks', 'id'),
+                   (SELECT d.refobjid::regclass::text FROM pg_depend d
+                    JOIN pg_attrdef ad ON d.classid = 'pg_attrdef'::regclass AND d.objid = ad.oid
+                    JOIN pg_attribute a ON a.attrelid = ad.adrelid AND a.attnum = ad.adnum
+                    WHERE ad.adrelid = 'tasks'::regclass AND a.attname = 'id' AND d.refclassid = 'pg_class'::regclass
+                    LIMIT 1))""";
+
+    private static final String MOVE_STAGED_SQL = """
+            WITH staged AS MATERIALIZED (
+                SELECT nextval(CAST(? AS regclass)) AS id, i.* FROM task_import i
+            ), inserted AS (
+                INSERT INTO tasks (id, %1$s)
+                SELECT id, %1$s FROM staged
+                RETURNING id
+            ), comments AS (
+                INSERT INTO task_comments (id, task_id, author_id, body, created_at)
+                SELECT nextval('task_comments_seq'), s.id, COALESCE(NULLIF(s.note_author, ''), s.clerk_user_id),
+                       btrim(s.note), s.created_at
+                FROM staged s WHERE btrim(COALESCE(s.note, '')) <> ''
+                RETURNING id, task_id, author_id, body, created_at
+            ), stats AS (
+                INSERT INTO task_comment_stats (task_id, comment_count, last_comment_id, last_author_id, last_body, last_comment_at)
+                SELECT task_id, 1, id, author_id, body, created_at FROM comments
+            )
+            SELECT id FROM inserted""".formatted(TASK_COLUMNS);
+
+    private static final int MAX_REPORTED_ERRORS = 100;
+
+    // Wiersz gotowy do COPY (po walidacji)
+    private record ImportRow(long line, String title, String description, Task.TaskStatus status, Task.TaskPriority priority,
+                             LocalDateTime dueDate, LocalDateTime createdAt, String assignedTo, String sharedWith,
+                             String tags, String images, String assignedUserNote, String assignedUserNoteAuthor) {}
+
+    public static class ImportResult {
+        private long imported;
+        private long failed;
+        private final List<Map<String, Object>> errors = new ArrayList<>();
+
+        void fail(long line, String error) {
+            failed++;
+            if (errors.size() < MAX_REPORTED_ERRORS) {
+                Map<String, Object> entry = new HashMap<>();
+                entry.put("line", line);
+                entry.put("error", error);
+                errors.add(entry);
+            }
+        }
+
+        public Map<String, Object> toMap() {
+            Map<String, Object> result = new HashMap<>();
+            result.put("imported", imported);
+            result.put("failed", failed);
+            result.put("errors", errors);
+            result.put("errorsTruncated", failed > errors.size());
+            return result;
+        }
+    }
+
+    private final JdbcTemplate jdbcTemplate;
+    private final DataSource dataSource;
+    private final TransactionTemplate exportTransaction;
+    private final TransactionTemplate importTransaction;
+    private final ObjectMapper objectMapper;
+    private final ApplicationEventPublisher eventPublisher;
+    private final int fetchSize;
+    private final int chunkSize;
+
+    public TaskTransferService(JdbcTemplate jdbcTemplate,
+                               DataSource dataSource,
+                               PlatformTransactionManager transactionManager,
+                               ObjectMapper objectMapper,
+                               ApplicationEventPublisher eventPublisher,
+                               @Value("${app.transfer.fetch-size:1000}") int fetchSize,
+                               @Value("${app.transfer.import-chunk-size:5000}") int chunkSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.dataSource = dataSource;
+        this.objectMapper = objectMapper;
+        this.eventPublisher = eventPublisher;
+        this.fetchSize = fetchSize;
+        this.chunkSize = chunkSize;
+        // Kursor po stronie serwera działa tylko w transakcji (autocommit off)
+        this.exportTransaction = new TransactionTemplate(transactionManager);
+        this.exportTransaction.setReadOnly(true);
+        this.importTransaction = new TransactionTemplate(transactionManager);
+    }
+
+    public void exportTasks(String clerkUserId, Format format, OutputStream output) throws IOException {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(output, StandardCharsets.UTF_8), 64 * 1024);
+        JsonGenerator generator = objectMapper.getFactory().createGenerator(writer);
+        // Generator nie może zamknąć strumienia odpowiedzi ani dopisywać separatorów między obiektami, a jego flush()
+        // opróżnia tylko własny bufor do BufferedWriter - do gniazda trafiają całe 64 KiB, nie pojedyncze wiersze
+        generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+        generator.disable(JsonGenerator.Feature.FLUSH_PASSED_TO_STREAM);
+        generator.setRootValueSeparator(null);
+
+        if (format == Format.CSV) {
+            writeCsvRow(writer, COLUMNS);
+        }
+
+        JdbcTemplate streaming = new JdbcTemplate(jdbcTemplate.getDataSource());
+        streaming.setFetchSize(fetchSize);
+        exportTransaction.executeWithoutResult(status -> streaming.query(EXPORT_SQL, rs -> {
+            try {
+                if (format == Format.CSV) {
+                    writeCsvRow(writer, csvValues(rs));
+                } else {
+                    writeJsonRow(generator, rs);
+                    generator.flush();
+                    writer.write('\n');
+                }
+            } catch (IOException e) {
+                // Klient przerwał pobieranie - kończymy zapytanie
+                throw new UncheckedIOException(e);
+            }
+        }, clerkUserId));
+
+        generator.flush();
+        writer.flush();
+    }
+
+    // Parsowanie strumieniowe linia po linii; poprawne wiersze trafiają do bazy paczkami przez COPY
+    public ImportResult importTasks(String clerkUserId, Format format, InputStream input) throws IOException {
+        ImportResult result = new ImportResult();
+        List<ImportRow> chunk = new ArrayList<>(chunkSize);
+
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8), 64 * 1024)) {
+            if (format == Format.CSV) {
+                CsvRecordReader csv = new CsvRecordReader(reader);
+                String[] header = csv.next();
+                if (header == null) {
+                    return result;
+                }
+                // BOM z Excela przed pierwszą kolumną
+                if (header.length > 0 && header[0].startsWith("\uFEFF")) {
+                    header[0] = header[0].substring(1);
+                }
+                String[] record;
+                while ((record = csv.next()) != null) {
+                    acceptRecord(clerkUserId, csv.getRecordLine(), csvToNode(header, record), chunk, result);
+                }
+            } else {
+                String line;
+                long lineNumber = 0;
+                while ((line = reader.readLine()) != null) {
+                    lineNumber++;
+                    if (line.isBlank()) {
+                        continue;
+                    }
+                    JsonNode node;
+                    try {
+                        node = objectMapper.readTree(line);
+                    } catch (IOException e) {
+                        result.fail(lineNumber, "Niepoprawny JSON: " + e.getOriginalMessage());
+                        continue;
+                    }
+                    acceptRecord(clerkUserId, lineNumber, node, chunk, result);
+                }
+            }
+        }
+        flush(clerkUserId, chunk, result);
+
+        log.info("Imported {} tasks for {} ({} rejected)", result.imported, clerkUserId, result.failed);
+        return result;
+    }
+
+    private void acceptRecord(String clerkUserId, long line, JsonNode node, List<ImportRow> chunk, ImportResult result) {
+        try {
+            chunk.add(toImportRow(clerkUserId, line, node));
+        } catch (IllegalArgumentException e) {
+            result.fail(line, e.getMessage());
+            return;
+        }
+        if (chunk.size() >= chunkSize) {
+            flush(clerkUserId, chunk, result);
+        }
+    }
+
+    // Każda paczka w osobnej transakcji - zaimportowana część zostaje nawet gdy dalszy plik się urwie.
+    // Po zapisie paczki indeksy i cache (także na innych węzłach) odświeżają tylko jej zadania
+    private void flush(String clerkUserId, List<ImportRow> chunk, ImportResult result) {
+        if (chunk.isEmpty()) {
+            return;
+        }
+        StringBuilder csv = new StringBuilder(chunk.size() * 256);
+        for (ImportRow row : chunk) {
+            appendCopyRow(csv, clerkUserId, row);
+        }
+        try {
+            List<Long> taskIds = importTransaction.execute(status -> {
+                jdbcTemplate.execute(STAGING_SQL);
+                Connection connection = DataSourceUtils.getConnection(dataSource);
+                try {
+                    connection.unwrap(PGConnection.class).getCopyAPI().copyIn(COPY_SQL, new StringReader(csv.toString()));
+                } catch (SQLException | IOException e) {
+                    throw new RuntimeException("COPY into tasks failed: " + e.getMessage(), e);
+                } finally {
+                    DataSourceUtils.releaseConnection(connection, dataSource);
+                }
+                String idSequence = jdbcTemplate.queryForObject(ID_SEQUENCE_SQL, String.class);
+                List<Long> ids = jdbcTemplate.queryForList(MOVE_STAGED_SQL, Long.class, idSequence);
+                // BEFORE_COMMIT (NOTIFY do klastra) w tej transakcji, lokalne odświeżenie po commicie
+                eventPublisher.publishEvent(new TasksImportedEvent(clerkUserId, ids));
+                return ids;
+            });
+            result.imported += taskIds.size();
+        } catch (RuntimeException e) {
+            log.warn("Import chunk of {} tasks failed", chunk.size(), e);
+            for (ImportRow row : chunk) {
+                result.fail(row.line(), "Błąd zapisu paczki: " + e.getMessage());
+            }
+        }
+        chunk.clear();
+    }
+
+    // Te same reguły co tworzenie zadania przez API (CreateTaskRequest / createTaskFromRequest)
+    private ImportRow toImportRow(String clerkUserId, long line, JsonNode node) {
+        if (!node.isObject()) {
+            throw new IllegalArgumentException("Oczekiwano obiektu JSON");
+        }
+        String title = text(node, "title");
+        if (title == null || title.isBlank()) {
+            throw new IllegalArgumentException("Tytuł jest wymagany");
+        }
+        if (title.length() > 500) {
+            throw new IllegalArgumentException("Tytuł nie może być dłuższy niż 500 znaków");
+        }
+        String description = text(node, "description");
+        if (description != null && description.length() > 3000) {
+            throw new IllegalArgumentException("Opis nie może być dłuższy niż 3000 znaków");
+        }
+        String note = text(node, "assignedUserNote");
+        if (note != null && note.length() > 1000) {
+            throw new IllegalArgumentException("Notatka nie może być dłuższa niż 1000 znaków");
+        }
+
+        Task.TaskStatus status = parseEnum(Task.TaskStatus.class, text(node, "status"), Task.TaskStatus.DO_ZROBIENIA, "status");
+        Task.TaskPriority priority = parseEnum(Task.TaskPriority.class, text(node, "priority"), Task.TaskPriority.SREDNI, "priorytet");
+        LocalDateTime createdAt = parseDateTime(text(node, "createdAt"), "createdAt");
+
+        String[] assignedTo = stringArray(node, "assignedTo");
+        if (assignedTo.length == 0) {
+            // Jak przy tworzeniu przez API: bez przypisania zadanie trafia do właściciela
+            assignedTo = new String[]{clerkUserId};
+        }
+
+        return new ImportRow(line, title, description, status, priority,
+                parseDateTime(text(node, "dueDate"), "dueDate"),
+                createdAt != null ? createdAt : LocalDateTime.now(),
+                toJson(assignedTo), toJsonOrNull(stringArray(node, "sharedWith")), toJsonOrNull(stringArray(node, "tags")),
+                toJsonOrNull(stringArray(node, "images")), note, text(node, "assignedUserNoteAuthor"));
+    }
+
+    private void appendCopyRow(StringBuilder csv, String clerkUserId, ImportRow row) {
+        LocalDateTime now = LocalDateTime.now();
+        appendCopyValues(csv, row.title(), row.description(), row.status().name(), row.priority().name(),
+                row.dueDate() != null ? row.dueDate().toString() : null, row.createdAt().toString(), now.toString(),
+                clerkUserId, row.assignedTo(), row.sharedWith(), row.tags(), row.images(), row.assignedUserNote(),
+                row.assignedUserNoteAuthor(), "false", "false");
+    }
+
+    // CSV dla COPY: null = puste pole bez cudzysłowów, każda inna wartość w cudzysłowach
+    private static void appendCopyValues(StringBuilder csv, String... values) {
+        for (int i = 0; i < values.length; i++) {
+            if (i > 0) {
+                csv.append(',');
+            }
+            if (values[i] != null) {
+                csv.append('"').append(values[i].replace("\"", "\"\"")).append('"');
+            }
+        }
+        csv.append('\n');
+    }
+
+    private void writeJsonRow(JsonGenerator generator, ResultSet rs) throws IOException, SQLException {
+        generator.writeStartObject();
+        generator.writeNumberField("id", rs.getLong("id"));
+        generator.writeStringField("title", rs.getString("title"));
+        generator.writeStringField("description", rs.getString("description_text"));
+        generator.writeStringField("status", rs.getString("status"));
+        generator.writeStringField("priority", rs.getString("priority"));
+        generator.writeStringField("dueDate", timestamp(rs, "due_date"));
+        generator.writeStringField("createdAt", timestamp(rs, "created_at"));
+        generator.writeStringField("updatedAt", timestamp(rs, "updated_at"));
+        writeArrayField(generator, "assignedTo", rs.getString("assigned_to"));
+        writeArrayField(generator, "sharedWith", rs.getString("shared_with"));
+        writeArrayField(generator, "tags", rs.getString("tags"));
+        writeArrayField(generator, "images", rs.getString("images"));
+        generator.writeStringField("assignedUserNote", rs.getString("note"));
+        generator.writeStringField("assignedUserNoteAuthor", rs.getString("note_author"));
+        generator.writeEndObject();
+    }
+
+    private void writeArrayField(JsonGenerator generator, String field, String raw) throws IOException {
+        generator.writeArrayFieldStart(field);
+        for (String value : parseArray(raw)) {
+            generator.writeString(value);
+        }
+        generator.writeEndArray();
+    }
+
+    // W CSV tablice jako tekst JSON - import odczytuje je bez utraty przecinków czy średników w wartościach
+    private String[] csvValues(ResultSet rs) throws SQLException, IOException {
+        return new String[]{
+                Long.toString(rs.getLong("id")),
+                rs.getString("title"),
+                rs.getString("description_text"),
+                rs.getString("status"),
+                rs.getString("priority"),
+                timestamp(rs, "due_date"),
+                timestamp(rs, "created_at"),
+                timestamp(rs, "updated_at"),
+                toJson(parseArray(rs.getString("assigned_to"))),
+                toJson(parseArray(rs.getString("shared_with"))),
+                toJson(parseArray(rs.getString("tags"))),
+                toJson(parseArray(rs.getString("images"))),
+                rs.getString("note"),
+                rs.getString("note_author")
+        };
+    }
+
+    private static void writeCsvRow(Writer writer, String[] values) throws IOException {
+        for (int i = 0; i < values.length; i++) {
+            if (i > 0) {
+                writer.write(',');
+            }
+            String value = values[i];
+            if (value == null) {
+                continue;
+            }
+            if (value.indexOf(',') >= 0 || value.indexOf('"') >= 0 || value.indexOf('\n') >= 0 || value.indexOf('\r') >= 0) {
+                writer.write('"');
+                writer.write(value.replace("\"", "\"\""));
+                writer.write('"');
+            } else {
+                writer.write(value);
+            }
+        }
+        writer.write("\r\n");
+    }
+
+    private ObjectNode csvToNode(String[] header, String[] record) {
+        ObjectNode node = objectMapper.createObjectNode();
+        for (int i = 0; i < header.length && i < record.length; i++) {
+            String value = record[i];
+            if (value == null || value.isEmpty()) {
+                continue;
+            }
+            node.put(header[i].trim(), value);
+        }
+        return node;
+    }
+
+    private static String timestamp(ResultSet rs, String column) throws SQLException {
+        Timestamp value = rs.getTimestamp(column);
+        return value != null ? value.toLocalDateTime().toString() : null;
+    }
+
+    private static String text(JsonNode node, String field) {
+        JsonNode value = node.get(field);
+        return value == null || value.isNull() ? null : value.asText();
+    }
+
+    // Pole tablicowe: tablica JSON (NDJSON) albo tekst JSON tablicy (CSV)
+    private String[] stringArray(JsonNode node, String field) {
+        JsonNode value = node.get(field);
+        if (value == null || value.isNull()) {
+            return new String[0];
+        }
+        if (value.isArray()) {
+            String[] values = new String[value.size()];
+            for (int i = 0; i < value.size(); i++) {
+                values[i] = value.get(i).asText();
+            }
+            return values;
+        }
+        String raw = value.asText().trim();
+        if (raw.startsWith("[")) {
+            try {
+                return objectMapper.readValue(raw, String[].class);
+            } catch (IOException e) {
+                throw new IllegalArgumentException("Pole " + field + " nie jest poprawną tablicą JSON");
+            }
+        }
+        return raw.isEmpty() ? new String[0] : new String[]{raw};
+    }
+
+    // Ten sam format co task_json_array w bazie: tablica JSON albo pojedyncza wartość
+    private String[] parseArray(String raw) {
+        if (raw == null || raw.isBlank()) {
+            return new String[0];
+        }
+        String trimmed = raw.trim();
+        if (trimmed.startsWith("[")) {
+            try {
+                return objectMapper.readValue(trimmed, String[].class);
+            } catch (IOException e) {
+                // Nie JSON - pojedyncza wartość
+            }
+        }
+        return new String[]{trimmed};
+    }
+
+    private String toJson(String[] values) {
+        try {
+            return objectMapper.writeValueAsString(values);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private String toJsonOrNull(String[] values) {
+        return values.length == 0 ? null : toJson(values);
+    }
+
+    private static <E extends Enum<E>> E parseEnum(Class<E> type, String value, E defaultValue, String label) {
+        if (value == null || value.isBlank()) {
+            return defaultValue;
+        }
+        try {
+            return Enum.valueOf(type, value.trim().toUpperCase());
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Nieznany " + label + ": " + value);
+        }
+    }
+
+    // Data (YYYY-MM-DD, jak w API) albo data z czasem ISO
+    private static LocalDateTime parseDateTime(String value, String field) {
+        if (value == null || value.isBlank()) {
+            return null;
+        }
+        String trimmed = value.trim();
+        try {
+            return trimmed.length() == 10 ? LocalDate.parse(trimmed).atStartOfDay() : LocalDateTime.parse(trimmed);
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("Niepoprawna data w polu " + field + ": " + value);
+        }
+    }
+}
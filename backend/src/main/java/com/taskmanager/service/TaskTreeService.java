@@ -0,0 +1,166 @@
+package com.taskmanager.service;
+
+import com.taskmanager.model.Task;
+import com.taskmanager.model.TaskProgress;
+import com.taskmanager.repository.TaskProgressRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.access.AccessDeniedException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+// Hierarchia zadań (podzadania / checklisty dowolnej głębokości) na tabeli domknięcia task_closure.
+// Postęp (task_progress) zmienia się przyrostowo: przeniesienie/usunięcie poddrzewa przesuwa liczniki
+// przodków o rozmiar poddrzewa, zmiana statusu o 1 - bez przechodzenia drzewa przy odczycie.
+// Zmiany struktury biorą wyłączną blokadę doradczą, zmiany statusu współdzieloną: liczniki nie rozjadą się
+// przy równoległym przeniesieniu i zakończeniu zadania z tego samego poddrzewa.
+@Service
+@RequiredArgsConstructor
+public class TaskTreeService {
+
+    private static final String TREE_LOCK = "SELECT pg_advisory_xact_lock(hashtext('task_tree'))";
+    private static final String TREE_LOCK_SHARED = "SELECT pg_advisory_xact_lock_shared(hashtext('task_tree'))";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TaskProgressRepository taskProgressRepository;
+    private final ApplicationEventPublisher eventPublisher;
+
+    // Przenosi zadanie z całym poddrzewem pod newParentId (null = zadanie główne). Nowe podzadanie to
+    // przeniesienie zadania bez przodków. Wywołujący ustawia tasks.parent_id na encji.
+    // Drzewo ma jednego właściciela - nowy rodzic i całe poddrzewo muszą należeć do właściciela korzenia
+    @Transactional
+    public void moveSubtree(Task root, Long newParentId) {
+        Long rootId = root.getId();
+        jdbcTemplate.queryForList(TREE_LOCK);
+        if (newParentId != null) {
+            if (newParentId.equals(rootId) || isDescendant(rootId, newParentId)) {
+                throw new IllegalArgumentException("Zadanie nie może być przeniesione do własnego podzadania");
+            }
+            List<String> parentOwner = jdbcTemplate.queryForList("SELECT clerk_user_id FROM tasks WHERE id = ?", String.class, newParentId);
+            if (parentOwner.isEmpty()) {
+                throw new RuntimeException("Task not found with id: " + newParentId);
+            }
+            if (!java.util.Objects.equals(parentOwner.get(0), root.getClerkUserId())) {
+                throw new AccessDeniedException("Zadanie można przenieść tylko pod własne zadanie");
+            }
+        }
+        requireSingleOwner(root);
+
+        long[] size = subtreeSize(root);
+        List<Long> affected = new ArrayList<>();
+        // Dotychczasowi przodkowie tracą całe poddrzewo
+        affected.addAll(jdbcTemplate.queryForList("""
+                UPDATE task_progress SET total_count = total_count - ?, completed_count = completed_count - ?
+                WHERE task_id IN (SELECT ancestor_id FROM task_closure WHERE descendant_id = ?)
+                RETURNING task_id""", Long.class, size[0], size[1], rootId));
+        // Powiązania (przodek spoza poddrzewa, węzeł poddrzewa); powiązania wewnątrz poddrzewa zostają
+        jdbcTemplate.update("""
+                DELETE FROM task_closure
+                WHERE ancestor_id IN (SELECT ancestor_id FROM task_closure WHERE descendant_id = ?)
+                  AND (descendant_id = ? OR descendant_id IN (SELECT descendant_id FROM task_closure WHERE ancestor_id = ?))""",
+                rootId, rootId, rootId);
+
+        if (newParentId != null) {
+            // Iloczyn: (nowy rodzic i jego przodkowie) x (korzeń i jego potomkowie)
+            jdbcTemplate.update("""
+                    INSERT INTO task_closure (ancestor_id, descendant_id, depth)
+                    SELECT a.ancestor_id, s.descendant_id, a.depth + s.depth + 1
+                    FROM (SELECT ancestor_id, depth FROM task_closure WHERE descendant_id = ? UNION ALL SELECT CAST(? AS bigint), 0) a
+                    CROSS JOIN (SELECT descendant_id, depth FROM task_closure WHERE ancestor_id = ? UNION ALL SELECT CAST(? AS bigint), 0) s""",
+                    newParentId, newParentId, rootId, rootId);
+            affected.addAll(jdbcTemplate.queryForList("""
+                    INSERT INTO task_progress AS p (task_id, total_count, completed_count)
+                    SELECT ancestor_id, ?, ? FROM task_closure WHERE descendant_id = ?
+                    ON CONFLICT (task_id) DO UPDATE SET total_count = p.total_count + EXCLUDED.total_count,
+                        completed_count = p.completed_count + EXCLUDED.completed_count
+                    RETURNING task_id""", Long.class, size[0], size[1], rootId));
+        }
+        publishUpdated(affected);
+    }
+
+    // Zakończenie / wznowienie zadania: +-1 zakończonych u wszystkich przodków jednym zapytaniem
+    @Transactional
+    public void onCompletionChanged(Long taskId, boolean completed) {
+        jdbcTemplate.queryForList(TREE_LOCK_SHARED);
+        publishUpdated(jdbcTemplate.queryForList("""
+                UPDATE task_progress SET completed_count = completed_count + ?
+                WHERE task_id IN (SELECT ancestor_id FROM task_closure WHERE descendant_id = ?)
+                RETURNING task_id""", Long.class, completed ? 1 : -1, taskId));
+    }
+
+    // Usuwa zadanie z potomkami; zwraca ID usuniętych (także już zarchiwizowanych potomków)
+    @Transactional
+    public List<Long> deleteSubtree(Task root) {
+        Long rootId = root.getId();
+        jdbcTemplate.queryForList(TREE_LOCK);
+        requireSingleOwner(root);
+
+        long[] size = subtreeSize(root);
+        publishUpdated(jdbcTemplate.queryForList("""
+                UPDATE task_progress SET total_count = total_count - ?, completed_count = completed_count - ?
+                WHERE task_id IN (SELECT ancestor_id FROM task_closure WHERE descendant_id = ?)
+                RETURNING task_id""", Long.class, size[0], size[1], rootId));
+
+        List<Long> ids = new ArrayList<>();
+        ids.add(rootId);
+        ids.addAll(jdbcTemplate.queryForList("SELECT descendant_id FROM task_closure WHERE ancestor_id = ?", Long.class, rootId));
+        String idArray = ids.stream().map(String::valueOf).collect(Collectors.joining(",", "{", "}"));
+
+        // Wiersze z przodkiem w poddrzewie mają też potomka w poddrzewie - jeden warunek wystarcza
+        jdbcTemplate.update("DELETE FROM task_closure WHERE descendant_id = ANY(CAST(? AS bigint[]))", idArray);
+        jdbcTemplate.update("DELETE FROM task_progress WHERE task_id = ANY(CAST(? AS bigint[]))", idArray);
+        jdbcTemplate.update("DELETE FROM tasks WHERE id = ANY(CAST(? AS bigint[]))", idArray);
+        return ids;
+    }
+
+    // Podsumowania dla wielu zadań jednym zapytaniem (feed, tablica, poddrzewo)
+    @Transactional(readOnly = true)
+    public Map<Long, TaskProgress> getProgress(Collection<Long> taskIds) {
+        Map<Long, TaskProgress> progress = new HashMap<>();
+        if (taskIds.isEmpty()) {
+            return progress;
+        }
+        for (TaskProgress entry : taskProgressRepository.findAllById(taskIds)) {
+            progress.put(entry.getTaskId(), entry);
+        }
+        return progress;
+    }
+
+    // Poddrzewo z zadaniami innych właścicieli (np. sprzed wprowadzenia reguły) nie jest przenoszone ani usuwane w całości
+    private void requireSingleOwner(Task root) {
+        if (Boolean.TRUE.equals(jdbcTemplate.queryForObject("""
+                SELECT EXISTS (SELECT 1 FROM task_closure c JOIN tasks t ON t.id = c.descendant_id
+                               WHERE c.ancestor_id = ? AND t.clerk_user_id IS DISTINCT FROM ?)""",
+                Boolean.class, root.getId(), root.getClerkUserId()))) {
+            throw new AccessDeniedException("Poddrzewo zawiera zadania innych użytkowników");
+        }
+    }
+
+    private boolean isDescendant(Long ancestorId, Long taskId) {
+        return Boolean.TRUE.equals(jdbcTemplate.queryForObject(
+                "SELECT EXISTS (SELECT 1 FROM task_closure WHERE ancestor_id = ? AND descendant_id = ?)",
+                Boolean.class, ancestorId, taskId));
+    }
+
+    // [węzły, zakończone] poddrzewa razem z korzeniem - z licznika korzenia, bez liczenia potomków
+    private long[] subtreeSize(Task root) {
+        TaskProgress progress = taskProgressRepository.findById(root.getId()).orElse(null);
+        long total = 1 + (progress != null ? progress.getTotalCount() : 0);
+        long completed = (root.getStatus() == Task.TaskStatus.ZAKONCZONE ? 1 : 0)
+                + (progress != null ? progress.getCompletedCount() : 0);
+        return new long[]{total, completed};
+    }
+
+    private void publishUpdated(List<Long> taskIds) {
+        taskIds.stream().distinct()
+                .forEach(id -> eventPublisher.publishEvent(new TaskChangedEvent(id, TaskChangedEvent.ChangeType.UPDATED)));
+    }
+}
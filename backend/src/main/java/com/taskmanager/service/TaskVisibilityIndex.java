@@ -0,0 +1,335 @@
+package com.taskmanager.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.taskmanager.cluster.ClusterEvent;
+import com.taskmanager.cluster.ClusterMessage;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.roaringbitmap.longlong.Roaring64Bitmap;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Collectors;
+
+// Indeks odwrócony w pamięci: użytkownik (Clerk ID albo email) -> zbiór ID zadań, które może widzieć
+// (właściciel, przypisany, udostępniony). Zbiory jako Roaring64Bitmap - kilka bajtów na wpis.
+// Indeks wskazuje tylko kandydatów - feed i tak sprawdza widoczność na pobranych wierszach.
+// Odwrotna mapa zadanie -> zbiory, w których jest, ogranicza zmianę zadania do jego własnych zbiorów
+// (~70 B na zadanie: węzeł mapy, Long i tablica referencji do współdzielonych bitmap).
+@Slf4j
+@Component
+public class TaskVisibilityIndex implements ApplicationRunner {
+
+    private static final String TASK_COLUMNS = "SELECT id, clerk_user_id, assigned_to, shared_with FROM tasks";
+    private static final int REFRESH_CHUNK = 1000;
+    private static final int LOCK_STRIPES = 64;
+
+    // Stan indeksu; przebudowa tworzy nowy i podmienia referencję
+    static final class Index {
+        final Map<String, Roaring64Bitmap> tasksByUser = new ConcurrentHashMap<>();
+        final Map<Long, Roaring64Bitmap[]> setsByTask = new ConcurrentHashMap<>();
+    }
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate buildTransaction;
+    private final TransactionTemplate refreshTransaction;
+    private final ObjectMapper objectMapper;
+    private final boolean enabled;
+    private final int fetchSize;
+
+    private final Object[] locks = new Object[LOCK_STRIPES];
+    // Jeden wątek przebudowy; kolejne żądania w trakcie łączą się w jedno następne
+    private final ExecutorService rebuildExecutor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "visibility-index-build");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final AtomicBoolean rebuildQueued = new AtomicBoolean();
+
+    volatile Index index = new Index();
+    // Zadania zmienione w trakcie przebudowy - odświeżane w nowym indeksie po podmianie
+    private volatile Set<Long> changedDuringRebuild;
+    private volatile boolean ready;
+
+    public TaskVisibilityIndex(JdbcTemplate jdbcTemplate,
+                               PlatformTransactionManager transactionManager,
+                               ObjectMapper objectMapper,
+                               MeterRegistry meterRegistry,
+                               @Value("${app.visibility-index.enabled:true}") boolean enabled,
+                               @Value("${app.visibility-index.fetch-size:5000}") int fetchSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.objectMapper = objectMapper;
+        this.enabled = enabled;
+        this.fetchSize = fetchSize;
+        for (int i = 0; i < LOCK_STRIPES; i++) {
+            locks[i] = new Object();
+        }
+
+        // Budowa: kursor po stronie serwera wymaga transakcji (autocommit off), odczyt może iść z repliki
+        this.buildTransaction = new TransactionTemplate(transactionManager);
+        this.buildTransaction.setReadOnly(true);
+        // Odświeżenie po zapisie: zawsze primary - replika może jeszcze nie mieć zmiany
+        this.refreshTransaction = new TransactionTemplate(transactionManager);
+        this.refreshTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+
+        Gauge.builder("tasks.visibility.index.bytes", this, TaskVisibilityIndex::estimateSizeInBytes)
+                .description("Estimated heap used by the task visibility index")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+        Gauge.builder("tasks.visibility.index.users", this, visibilityIndex -> visibilityIndex.index.tasksByUser.size())
+                .description("Users with at least one visible task in the index")
+                .register(meterRegistry);
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        requestRebuild();
+    }
+
+    // Przebudowa w tle (start, po utracie zdarzeń z klastra); wiele żądań w trakcie daje jedną kolejną przebudowę
+    public void requestRebuild() {
+        if (!enabled || !rebuildQueued.compareAndSet(false, true)) {
+            return;
+        }
+        rebuildExecutor.execute(() -> {
+            rebuildQueued.set(false);
+            try {
+                rebuild();
+            } catch (Exception e) {
+                log.error("Task visibility index build failed, keeping the previous index", e);
+            }
+        });
+    }
+
+    // Pełne przebudowanie do nowego indeksu i podmiana - cofnięte udostępnienia i usunięte zadania znikają.
+    // Zmiany w trakcie budowy są zapamiętywane i odświeżane w nowym indeksie po podmianie
+    void rebuild() {
+        long start = System.currentTimeMillis();
+        changedDuringRebuild = ConcurrentHashMap.newKeySet();
+        Index fresh = new Index();
+        long[] rows = new long[1];
+        try {
+            buildTransaction.executeWithoutResult(status -> {
+                JdbcTemplate streaming = new JdbcTemplate(jdbcTemplate.getDataSource());
+                streaming.setFetchSize(fetchSize);
+                streaming.query(TASK_COLUMNS, rs -> {
+                    put(fresh, rs.getLong(1), rs.getString(2), rs.getString(3), rs.getString(4));
+                    rows[0]++;
+                });
+            });
+            index = fresh;
+        } finally {
+            Set<Long> changed = changedDuringRebuild;
+            changedDuringRebuild = null;
+            if (!changed.isEmpty()) {
+                refresh(changed);
+            }
+        }
+        ready = true;
+
+        long entries = fresh.tasksByUser.values().stream().mapToLong(this::cardinality).sum();
+        log.info("Task visibility index built in {} ms: {} tasks, {} users, {} entries, ~{} KB",
+                System.currentTimeMillis() - start, rows[0], fresh.tasksByUser.size(), entries, estimateSizeInBytes() / 1024);
+    }
+
+    // ID kandydatów dla użytkownika (po Clerk ID i opcjonalnie emailu)
+    public long[] candidates(String clerkUserId, String userEmail) {
+        Index current = index;
+        Roaring64Bitmap result = new Roaring64Bitmap();
+        orInto(result, current.tasksByUser.get(clerkUserId));
+        if (userEmail != null && !userEmail.trim().isEmpty()) {
+            orInto(result, current.tasksByUser.get(userEmail.trim()));
+        }
+        return result.toArray();
+    }
+
+    // Po commicie (lokalnie albo na innym węźle): stare wpisy zadania znikają, nowe czytamy z bazy
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onTaskChanged(TaskChangedEvent event) {
+        if (!enabled) {
+            return;
+        }
+        if (event.type() == TaskChangedEvent.ChangeType.DELETED) {
+            markChanged(List.of(event.taskId()));
+            remove(index, event.taskId());
+            return;
+        }
+        refresh(List.of(event.taskId()));
+    }
+
+    // Import przez COPY nie publikuje zdarzeń per zadanie - paczka niesie ID swoich zadań (lokalnie i z klastra)
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onTasksImported(TasksImportedEvent event) {
+        if (!enabled) {
+            return;
+        }
+        refresh(event.taskIds());
+    }
+
+    // Zdarzenia z przerwy w połączeniu z klastrem przepadły
+    @EventListener
+    public void onClusterEvent(ClusterEvent event) {
+        if (event.topic() == ClusterMessage.Topic.RESYNC) {
+            requestRebuild();
+        }
+    }
+
+    // Ponowny odczyt podanych zadań z bazy (paczkami) i podmiana ich wpisów; brak wiersza = zadanie usunięte
+    void refresh(Collection<Long> taskIds) {
+        markChanged(taskIds);
+        List<Long> ids = new ArrayList<>(taskIds);
+        for (int from = 0; from < ids.size(); from += REFRESH_CHUNK) {
+            List<Long> chunk = ids.subList(from, Math.min(from + REFRESH_CHUNK, ids.size()));
+            String idArray = chunk.stream().map(String::valueOf).collect(Collectors.joining(",", "{", "}"));
+            Set<Long> missing = new LinkedHashSet<>(chunk);
+            refreshTransaction.executeWithoutResult(status -> jdbcTemplate.query(
+                    TASK_COLUMNS + " WHERE id = ANY(CAST(? AS bigint[]))",
+                    rs -> {
+                        long taskId = rs.getLong(1);
+                        missing.remove(taskId);
+                        put(index, taskId, rs.getString(2), rs.getString(3), rs.getString(4));
+                    },
+                    idArray));
+            for (Long taskId : missing) {
+                remove(index, taskId);
+            }
+        }
+    }
+
+    private void markChanged(Collection<Long> taskIds) {
+        Set<Long> changed = changedDuringRebuild;
+        if (changed != null) {
+            changed.addAll(taskIds);
+        }
+    }
+
+    // Zastępuje wpisy zadania: usuwa je tylko z jego dotychczasowych zbiorów, dodaje do nowych
+    void put(Index target, long taskId, String owner, String assignedTo, String sharedWith) {
+        Set<String> members = new LinkedHashSet<>();
+        addMember(members, owner);
+        for (String member : memberValues(assignedTo)) {
+            addMember(members, member);
+        }
+        for (String member : memberValues(sharedWith)) {
+            addMember(members, member);
+        }
+
+        synchronized (lockFor(taskId)) {
+            removeFromSets(target.setsByTask.remove(taskId), taskId);
+            Roaring64Bitmap[] sets = new Roaring64Bitmap[members.size()];
+            int i = 0;
+            for (String member : members) {
+                Roaring64Bitmap bitmap = target.tasksByUser.computeIfAbsent(member, key -> new Roaring64Bitmap());
+                synchronized (bitmap) {
+                    bitmap.addLong(taskId);
+                }
+                sets[i++] = bitmap;
+            }
+            if (sets.length > 0) {
+                target.setsByTask.put(taskId, sets);
+            }
+        }
+    }
+
+    private void remove(Index target, long taskId) {
+        synchronized (lockFor(taskId)) {
+            removeFromSets(target.setsByTask.remove(taskId), taskId);
+        }
+    }
+
+    private void removeFromSets(Roaring64Bitmap[] sets, long taskId) {
+        if (sets == null) {
+            return;
+        }
+        for (Roaring64Bitmap bitmap : sets) {
+            synchronized (bitmap) {
+                bitmap.removeLong(taskId);
+            }
+        }
+    }
+
+    private Object lockFor(long taskId) {
+        return locks[(int) Math.floorMod(taskId, (long) LOCK_STRIPES)];
+    }
+
+    private static void addMember(Set<String> members, String member) {
+        if (member != null && !member.isBlank()) {
+            members.add(member.trim());
+        }
+    }
+
+    private void orInto(Roaring64Bitmap result, Roaring64Bitmap bitmap) {
+        if (bitmap != null) {
+            synchronized (bitmap) {
+                result.or(bitmap);
+            }
+        }
+    }
+
+    private long cardinality(Roaring64Bitmap bitmap) {
+        synchronized (bitmap) {
+            return bitmap.getLongCardinality();
+        }
+    }
+
+    long estimateSizeInBytes() {
+        Index current = index;
+        long bytes = 0;
+        for (Map.Entry<String, Roaring64Bitmap> entry : current.tasksByUser.entrySet()) {
+            // Klucz (String + tablica znaków) i węzeł mapy - przybliżenie
+            bytes += 40 + entry.getKey().length() * 2L + 64;
+            synchronized (entry.getValue()) {
+                bytes += entry.getValue().getLongSizeInBytes();
+            }
+        }
+        // Odwrotna mapa: węzeł (32), Long (16), nagłówek tablicy (16) + referencje
+        for (Roaring64Bitmap[] sets : current.setsByTask.values()) {
+            bytes += 64 + sets.length * 8L;
+        }
+        return bytes;
+    }
+
+    // Ten sam format co task_json_array w bazie: tablica JSON albo pojedyncza wartość
+    private List<String> memberValues(String raw) {
+        List<String> values = new ArrayList<>();
+        if (raw == null || raw.isBlank()) {
+            return values;
+        }
+        String trimmed = raw.trim();
+        if (trimmed.startsWith("[")) {
+            try {
+                for (String value : objectMapper.readValue(trimmed, String[].class)) {
+                    values.add(value);
+                }
+                return values;
+            } catch (Exception e) {
+                // Nie JSON - traktujemy jak pojedynczą wartość
+            }
+        }
+        values.add(trimmed);
+        return values;
+    }
+}
@@ -0,0 +1,12 @@
+package com.taskmanager.service;
+
+import java.util.List;
+
+// Publikowane po każdej zapisanej paczce importu (COPY) z ID jej zadań - odbiorcy odświeżają tylko te zadania,
+// bez pojedynczych TaskChangedEvent dla tysięcy wierszy i bez przebudowy w całości
+public record TasksImportedEvent(String clerkUserId, List<Long> taskIds, boolean remote) {
+
+    public TasksImportedEvent(String clerkUserId, List<Long> taskIds) {
+        this(clerkUserId, taskIds, false);
+    }
+}
@@ -0,0 +1,9 @@
+package com.taskmanager.service;
+
+// Publikowane przez UserService przy zmianie konta (stary JWT) - unieważnia cache principali
+public record UserChangedEvent(String username, boolean remote) {
+
+    public UserChangedEvent(String username) {
+        this(username, false);
+    }
+}
@@ -0,0 +1,104 @@
+package com.taskmanager.controller;
+
+import com.taskmanager.model.Task;
+import com.taskmanager.model.User;
+import com.taskmanager.monitoring.QueryStatsFilter;
+import com.taskmanager.repository.TaskRepository;
+import com.taskmanager.repository.UserRepository;
+import com.taskmanager.service.TaskCommentService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.user;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// Liczba zapytań SQL feedu (GET /api/tasks) nie zależy od liczby zadań: mapowanie na TaskResponse nie inicjalizuje
+// proxy User, a komentarze i postęp podzadań są pobierane jednym zapytaniem dla całej listy.
+// Przekroczenie @QueryBudget kończy żądanie błędem (enforce-budget), więc test pilnuje też budżetu endpointu
+@SpringBootTest(properties = {
+        "app.query-stats.expose-header=true",
+        "app.query-stats.enforce-budget=true",
+        "app.visibility-index.enabled=false",
+        "app.archive.enabled=false"
+})
+@AutoConfigureMockMvc
+@Testcontainers(disabledWithoutDocker = true)
+class TaskFeedQueryCountTest {
+
+    @Container
+    static final PostgreSQLContainer<?> POSTGRES = new PostgreSQLContainer<>("postgres:15-alpine");
+
+    @DynamicPropertySource
+    static void datasource(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", POSTGRES::getJdbcUrl);
+        registry.add("spring.datasource.username", POSTGRES::getUsername);
+        registry.add("spring.datasource.password", POSTGRES::getPassword);
+    }
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private TaskRepository taskRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private TaskCommentService taskCommentService;
+
+    @Test
+    void feedStatementCountDoesNotGrowWithTasks() throws Exception {
+        createLegacyTasks("user_small", 3);
+        createLegacyTasks("user_large", 40);
+
+        int small = feedStatementCount("user_small");
+        int large = feedStatementCount("user_large");
+
+        assertThat(large).isEqualTo(small);
+        assertThat(large).isLessThanOrEqualTo(6);
+    }
+
+    // Zadania starego typu (z user_id) z komentarzem - dawniej każde dokładało SELECT użytkownika i komentarzy
+    private void createLegacyTasks(String clerkUserId, int count) {
+        User owner = new User();
+        owner.setUsername(clerkUserId);
+        owner.setEmail(clerkUserId + "@example.com");
+        owner.setPassword("secret");
+        owner = userRepository.save(owner);
+
+        for (int i = 0; i < count; i++) {
+            Task task = new Task();
+            task.setTitle("Zadanie " + i);
+            task.setStatus(Task.TaskStatus.DO_ZROBIENIA);
+            task.setPriority(Task.TaskPriority.SREDNI);
+            task.setClerkUserId(clerkUserId);
+            task.setAssignedTo(new String[]{clerkUserId});
+            task.setUser(owner);
+            task = taskRepository.save(task);
+            taskCommentService.addComments(task.getId(), clerkUserId, List.of("Komentarz " + i));
+        }
+    }
+
+    private int feedStatementCount(String clerkUserId) throws Exception {
+        String header = mockMvc.perform(get("/api/tasks").with(user(clerkUserId)))
+                .andExpect(status().isOk())
+                .andReturn()
+                .getResponse()
+                .getHeader(QueryStatsFilter.QUERY_COUNT_HEADER);
+        assertThat(header).isNotNull();
+        return Integer.parseInt(header);
+    }
+}
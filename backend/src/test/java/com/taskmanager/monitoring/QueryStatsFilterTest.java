@@ -0,0 +1,92 @@
+package com.taskmanager.monitoring;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.FilterChain;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class QueryStatsFilterTest {
+
+    // Handler wykonuje `statements` zapytań i wysyła 200 z body (flushBuffer jak przy strumieniowaniu)
+    private static FilterChain handlerExecuting(int statements) {
+        return (request, response) -> {
+            for (int i = 0; i < statements; i++) {
+                RequestQueryStats.current().record("SELECT 1", 1_000);
+            }
+            response.setContentType("application/json");
+            response.getWriter().write("{\"ok\":true}");
+            response.flushBuffer();
+        };
+    }
+
+    private static MockHttpServletRequest requestWithBudget(int budget) {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/tasks");
+        request.setAttribute(QueryBudgetInterceptor.BUDGET_ATTRIBUTE, budget);
+        return request;
+    }
+
+    @Test
+    void overBudgetFailsBeforeTheResponseIsCommitted() {
+        QueryStatsFilter filter = new QueryStatsFilter(new SimpleMeterRegistry(), false, true, 0, 10);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        assertThatThrownBy(() -> filter.doFilter(requestWithBudget(2), response, handlerExecuting(3)))
+                .isInstanceOf(QueryBudgetExceededException.class)
+                .hasMessageContaining("executed 3 SQL statements, budget is 2");
+
+        // Nic nie trafiło do klienta - kontener może jeszcze odpowiedzieć błędem zamiast 200
+        assertThat(response.isCommitted()).isFalse();
+        assertThat(response.getContentAsByteArray()).isEmpty();
+    }
+
+    @Test
+    void withinBudgetCopiesTheBufferedResponse() throws Exception {
+        QueryStatsFilter filter = new QueryStatsFilter(new SimpleMeterRegistry(), true, true, 0, 10);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        filter.doFilter(requestWithBudget(3), response, handlerExecuting(3));
+
+        assertThat(response.getStatus()).isEqualTo(200);
+        assertThat(response.getContentAsString()).isEqualTo("{\"ok\":true}");
+        assertThat(response.getHeader(QueryStatsFilter.QUERY_COUNT_HEADER)).isEqualTo("3");
+    }
+
+    @Test
+    void defaultBudgetAppliesWithoutAnnotation() {
+        QueryStatsFilter filter = new QueryStatsFilter(new SimpleMeterRegistry(), false, true, 1, 10);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        assertThatThrownBy(() -> filter.doFilter(new MockHttpServletRequest("GET", "/api/tasks"), response, handlerExecuting(2)))
+                .isInstanceOf(QueryBudgetExceededException.class);
+        assertThat(response.isCommitted()).isFalse();
+    }
+
+    @Test
+    void budgetIsNotEnforcedWhenDisabled() throws Exception {
+        QueryStatsFilter filter = new QueryStatsFilter(new SimpleMeterRegistry(), false, false, 0, 10);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        filter.doFilter(requestWithBudget(1), response, handlerExecuting(5));
+
+        assertThat(response.getContentAsString()).isEqualTo("{\"ok\":true}");
+    }
+
+    @Test
+    void streamingEndpointIsNotBuffered() throws Exception {
+        QueryStatsFilter filter = new QueryStatsFilter(new SimpleMeterRegistry(), true, true, 0, 10);
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/tasks/export");
+        request.setAttribute(QueryBudgetInterceptor.BUDGET_ATTRIBUTE, 1);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        // Przekroczony budżet nie może już zmienić zatwierdzonej odpowiedzi - tylko log
+        filter.doFilter(request, response, handlerExecuting(2));
+
+        assertThat(response.isCommitted()).isTrue();
+        assertThat(response.getContentAsString()).isEqualTo("{\"ok\":true}");
+        assertThat(response.getHeader(QueryStatsFilter.QUERY_COUNT_HEADER)).isNull();
+    }
+}
@@ -0,0 +1,95 @@
+package com.taskmanager.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+
+import java.util.Arrays;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TaskVisibilityIndexTest {
+
+    private TaskVisibilityIndex visibilityIndex;
+    private TaskVisibilityIndex.Index index;
+
+    @BeforeEach
+    void setUp() {
+        visibilityIndex = new TaskVisibilityIndex(null, null, new ObjectMapper(), new SimpleMeterRegistry(), true, 5000);
+        index = new TaskVisibilityIndex.Index();
+        visibilityIndex.index = index;
+    }
+
+    @Test
+    void changedMembersReplaceOldEntries() {
+        visibilityIndex.put(index, 1L, "owner", "[\"alice\"]", "[\"bob\"]");
+        visibilityIndex.put(index, 1L, "owner", "[\"alice\"]", "[]");
+
+        assertThat(visibilityIndex.candidates("bob", null)).isEmpty();
+        assertThat(visibilityIndex.candidates("alice", null)).containsExactly(1L);
+        assertThat(visibilityIndex.candidates("owner", null)).containsExactly(1L);
+    }
+
+    @Test
+    void updateTouchesOnlyTheTasksOwnSets() {
+        visibilityIndex.put(index, 1L, "owner", "[\"alice\"]", null);
+        visibilityIndex.put(index, 2L, "other", "[\"bob\"]", null);
+
+        assertThat(index.setsByTask.get(1L)).hasSize(2);
+        visibilityIndex.put(index, 1L, "owner", "[\"carol\"]", null);
+
+        assertThat(visibilityIndex.candidates("alice", null)).isEmpty();
+        assertThat(visibilityIndex.candidates("carol", null)).containsExactly(1L);
+        assertThat(visibilityIndex.candidates("bob", null)).containsExactly(2L);
+    }
+
+    @Test
+    void emailCandidatesAreMerged() {
+        visibilityIndex.put(index, 1L, "owner", "[\"user_1\"]", null);
+        visibilityIndex.put(index, 2L, "owner", "[\"user@example.com\"]", null);
+
+        assertThat(visibilityIndex.candidates("user_1", " user@example.com ")).containsExactly(1L, 2L);
+    }
+
+    // Pomiar pamięci i opóźnień przy 1M zadań (poza zwykłym buildem):
+    // mvn test -Dtest=TaskVisibilityIndexTest -DvisibilityIndex.benchmark=true
+    @Test
+    @EnabledIfSystemProperty(named = "visibilityIndex.benchmark", matches = "true")
+    void benchmarkOneMillionTasks() {
+        int tasks = Integer.getInteger("visibilityIndex.tasks", 1_000_000);
+        int users = Integer.getInteger("visibilityIndex.users", 10_000);
+
+        long start = System.nanoTime();
+        for (long id = 1; id <= tasks; id++) {
+            int owner = (int) (id % users);
+            visibilityIndex.put(index, id, "user_" + owner,
+                    "[\"user_" + ((owner + 1) % users) + "\"]", "[\"user_" + ((owner + 7) % users) + "\"]");
+        }
+        long buildMs = (System.nanoTime() - start) / 1_000_000;
+
+        long[] candidateNanos = new long[10_000];
+        for (int i = 0; i < candidateNanos.length; i++) {
+            long t0 = System.nanoTime();
+            visibilityIndex.candidates("user_" + (i % users), null);
+            candidateNanos[i] = System.nanoTime() - t0;
+        }
+        long[] updateNanos = new long[10_000];
+        for (int i = 0; i < updateNanos.length; i++) {
+            long id = 1 + (i * 97L) % tasks;
+            long t0 = System.nanoTime();
+            visibilityIndex.put(index, id, "user_" + (id % users), "[\"user_" + (i % users) + "\"]", null);
+            updateNanos[i] = System.nanoTime() - t0;
+        }
+        Arrays.sort(candidateNanos);
+        Arrays.sort(updateNanos);
+
+        System.out.printf("visibility index: %d tasks, %d users, build %d ms, ~%d MB%n",
+                tasks, users, buildMs, visibilityIndex.estimateSizeInBytes() / (1024 * 1024));
+        System.out.printf("candidates p50 %d us, p99 %d us; update p50 %d us, p99 %d us%n",
+                candidateNanos[candidateNanos.length / 2] / 1000, candidateNanos[candidateNanos.length * 99 / 100] / 1000,
+                updateNanos[updateNanos.length / 2] / 1000, updateNanos[updateNanos.length * 99 / 100] / 1000);
+        assertThat(visibilityIndex.candidates("user_0", null)).isNotEmpty();
+    }
+}
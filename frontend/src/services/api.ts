@@ -31,6 +31,10 @@ export const tasksApi = {
   getById: (id: string) =>
     api.get<Task>(`/tasks/${id}`),
   
+  // Wiele zadań jednym zapytaniem (niewidoczne są pomijane)
+  getByIds: (ids: string[], userEmail?: string) =>
+    api.get<Task[]>('/tasks', { params: { ids: ids.join(','), userEmail } }),
+  
   create: (data: BackendTaskData) =>
     api.post<Task>('/tasks', data),
   
@@ -86,6 +90,9 @@ export const externalUsersApi = {
   getById: (id: string) =>
     api.get(`/external-users/${id}`),
   
+  getByIds: (ids: string[]) =>
+    api.get('/external-users', { params: { ids: ids.join(',') } }),
+  
   create: (userData: { id: string; name: string }) =>
     api.post('/external-users', userData),
   
@@ -96,6 +103,18 @@ export const externalUsersApi = {
     api.delete(`/external-users/${id}`),
 };
 
+// Kilka odczytów jednym żądaniem, np. batchApi.run([{ id: 'stats', path: '/api/tasks/stats/summary' }])
+export interface BatchResponse<T = any> {
+  id: string;
+  status: number;
+  body: T;
+}
+
+export const batchApi = {
+  run: (requests: { id: string; path: string }[]) =>
+    api.post<{ responses: BatchResponse[] }>('/batch', { requests }),
+};
+
 export default api;
 
 
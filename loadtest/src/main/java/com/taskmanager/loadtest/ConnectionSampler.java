@@ -0,0 +1,63 @@
+package com.taskmanager.loadtest;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+// Co 500 ms liczy połączenia do bazy testowej z pg_stat_activity (wg application_name: pgjdbc/Hikari
+// backendu vs r2dbc-postgresql) - szczyt i liczba aktywnych (w trakcie zapytania) w czasie pomiaru
+public class ConnectionSampler {
+
+    private static final String SQL = "SELECT COALESCE(NULLIF(application_name, ''), '?'), count(*),"
+            + " count(*) FILTER (WHERE state = 'active')"
+            + " FROM pg_stat_activity WHERE datname = current_database() AND pid <> pg_backend_pid()"
+            + " GROUP BY 1";
+
+    private final Connection connection;
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor();
+    private final Map<String, long[]> peaks = new TreeMap<>(); // [otwarte, aktywne]
+
+    private ConnectionSampler(Connection connection) {
+        this.connection = connection;
+    }
+
+    static ConnectionSampler start(LoadTestConfig config) throws SQLException {
+        ConnectionSampler sampler = new ConnectionSampler(
+                DriverManager.getConnection(config.jdbcUrl, config.dbUser, config.dbPassword));
+        sampler.scheduler.scheduleAtFixedRate(sampler::sample, 0, 500, TimeUnit.MILLISECONDS);
+        return sampler;
+    }
+
+    private synchronized void sample() {
+        try (PreparedStatement statement = connection.prepareStatement(SQL);
+             ResultSet rs = statement.executeQuery()) {
+            while (rs.next()) {
+                long[] peak = peaks.computeIfAbsent(rs.getString(1), key -> new long[2]);
+                peak[0] = Math.max(peak[0], rs.getLong(2));
+                peak[1] = Math.max(peak[1], rs.getLong(3));
+            }
+        } catch (SQLException e) {
+            System.err.println("Connection sampling failed: " + e.getMessage());
+        }
+    }
+
+    synchronized String stopAndReport() {
+        scheduler.shutdownNow();
+        StringBuilder report = new StringBuilder(String.format("%-32s %10s %10s", "db connections (peak)", "open", "active"));
+        peaks.forEach((application, peak) ->
+                report.append(String.format("%n%-32s %10d %10d", application, peak[0], peak[1])));
+        try {
+            connection.close();
+        } catch (SQLException e) {
+            // Raport i tak gotowy
+        }
+        return report.toString();
+    }
+}
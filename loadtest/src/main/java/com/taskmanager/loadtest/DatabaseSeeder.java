@@ -0,0 +1,160 @@
+package com.taskmanager.loadtest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+// Zasila lokalną bazę użytkownikami, zadaniami i grafem przypisań/udostępnień
+public class DatabaseSeeder {
+
+    static final String USER_PREFIX = "loadtest-user-";
+
+    private static final int BATCH_SIZE = 1000;
+    private static final String[] STATUSES = {"DO_ZROBIENIA", "W_TRAKCIE", "ZAKONCZONE", "ANULOWANE"};
+    private static final String[] PRIORITIES = {"NISKI", "SREDNI", "WYSOKI", "KRYTYCZNY"};
+    private static final String[] TAGS = {"frontend", "backend", "bug", "feature", "docs", "ops", "research"};
+
+    private final LoadTestConfig config;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    public DatabaseSeeder(LoadTestConfig config) {
+        this.config = config;
+    }
+
+    public List<String> userIds() {
+        List<String> ids = new ArrayList<>(config.users);
+        for (int i = 0; i < config.users; i++) {
+            ids.add(USER_PREFIX + i);
+        }
+        return ids;
+    }
+
+    public void seed() throws SQLException {
+        Random random = new Random(config.randomSeed);
+        List<String> users = userIds();
+
+        try (Connection connection = connect()) {
+            connection.setAutoCommit(false);
+            deletePreviousSeed(connection);
+            insertUsers(connection, users);
+            insertTasks(connection, users, random);
+            connection.commit();
+        }
+    }
+
+    // Zadania każdego właściciela - do udostępniania w trakcie testu
+    public Map<String, List<Long>> loadTaskIdsByOwner() throws SQLException {
+        Map<String, List<Long>> idsByOwner = new HashMap<>();
+        try (Connection connection = connect();
+             PreparedStatement statement = connection.prepareStatement(
+                     "SELECT id, clerk_user_id FROM tasks WHERE clerk_user_id LIKE ?")) {
+            statement.setString(1, USER_PREFIX + "%");
+            try (ResultSet rows = statement.executeQuery()) {
+                while (rows.next()) {
+                    idsByOwner.computeIfAbsent(rows.getString(2), owner -> new ArrayList<>()).add(rows.getLong(1));
+                }
+            }
+        }
+        return idsByOwner;
+    }
+
+    private Connection connect() throws SQLException {
+        return DriverManager.getConnection(config.jdbcUrl, config.dbUser, config.dbPassword);
+    }
+
+    private void deletePreviousSeed(Connection connection) throws SQLException {
+        try (PreparedStatement deleteTasks = connection.prepareStatement("DELETE FROM tasks WHERE clerk_user_id LIKE ?");
+             PreparedStatement deleteUsers = connection.prepareStatement("DELETE FROM external_users WHERE id LIKE ?")) {
+            deleteTasks.setString(1, USER_PREFIX + "%");
+            deleteTasks.executeUpdate();
+            deleteUsers.setString(1, USER_PREFIX + "%");
+            deleteUsers.executeUpdate();
+        }
+    }
+
+    private void insertUsers(Connection connection, List<String> users) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement(
+                "INSERT INTO external_users (id, name, is_active, created_at, updated_at) VALUES (?, ?, true, now(), now())")) {
+            int pending = 0;
+            for (String userId : users) {
+                statement.setString(1, userId);
+                statement.setString(2, "Load Test " + userId.substring(USER_PREFIX.length()));
+                statement.addBatch();
+                if (++pending == BATCH_SIZE) {
+                    statement.executeBatch();
+                    pending = 0;
+                }
+            }
+            statement.executeBatch();
+        }
+    }
+
+    private void insertTasks(Connection connection, List<String> users, Random random) throws SQLException {
+        String sql = "INSERT INTO tasks (title, description_text, status, priority, created_at, due_date, clerk_user_id, "
+                + "assigned_to, shared_with, tags, is_public, is_shared_with_me) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, CAST(? AS jsonb), false, false)";
+        try (PreparedStatement statement = connection.prepareStatement(sql)) {
+            int pending = 0;
+            for (int i = 0; i < config.tasks; i++) {
+                String owner = users.get(random.nextInt(users.size()));
+                LocalDateTime createdAt = LocalDateTime.now().minusDays(random.nextInt(365));
+
+                statement.setString(1, "Load test task " + i);
+                statement.setString(2, "Generated by the load test harness");
+                statement.setString(3, STATUSES[random.nextInt(STATUSES.length)]);
+                statement.setString(4, PRIORITIES[random.nextInt(PRIORITIES.length)]);
+                statement.setTimestamp(5, Timestamp.valueOf(createdAt));
+                statement.setTimestamp(6, random.nextBoolean() ? Timestamp.valueOf(createdAt.plusDays(random.nextInt(60))) : null);
+                statement.setString(7, owner);
+                statement.setString(8, toJson(pickUsers(users, owner, random, config.assignRatio, true)));
+                statement.setString(9, toJson(pickUsers(users, owner, random, config.shareRatio, false)));
+                statement.setString(10, toJson(List.of(TAGS[random.nextInt(TAGS.length)])));
+                statement.addBatch();
+                if (++pending == BATCH_SIZE) {
+                    statement.executeBatch();
+                    pending = 0;
+                }
+            }
+            statement.executeBatch();
+        }
+    }
+
+    // Z prawdopodobieństwem ratio wybiera 1..maxFanout innych użytkowników
+    private List<String> pickUsers(List<String> users, String owner, Random random, double ratio, boolean includeOwnerByDefault) {
+        if (random.nextDouble() >= ratio) {
+            return includeOwnerByDefault ? List.of(owner) : List.of();
+        }
+        int fanout = 1 + random.nextInt(Math.max(1, config.maxFanout));
+        Set<String> picked = new LinkedHashSet<>();
+        for (int i = 0; i < fanout && users.size() > 1; i++) {
+            String candidate = users.get(random.nextInt(users.size()));
+            if (!candidate.equals(owner)) {
+                picked.add(candidate);
+            }
+        }
+        return new ArrayList<>(picked);
+    }
+
+    private String toJson(List<String> values) {
+        if (values.isEmpty()) {
+            return null;
+        }
+        try {
+            return objectMapper.writeValueAsString(values);
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,60 @@
+package com.taskmanager.loadtest;
+
+import java.util.Arrays;
+
+// Latencje i błędy dla jednego endpointu
+public class EndpointStats {
+
+    private final String name;
+    private long[] latenciesMicros = new long[1024];
+    private int count;
+    private long errors;
+    private long maxQueries = -1; // -1: backend nie wysyła X-Query-Count (QUERY_STATS_HEADER=false)
+
+    public EndpointStats(String name) {
+        this.name = name;
+    }
+
+    public synchronized void record(long latencyMicros, boolean error, long queries) {
+        maxQueries = Math.max(maxQueries, queries);
+        record(latencyMicros, error);
+    }
+
+    public synchronized void record(long latencyMicros, boolean error) {
+        if (count == latenciesMicros.length) {
+            latenciesMicros = Arrays.copyOf(latenciesMicros, count * 2);
+        }
+        latenciesMicros[count++] = latencyMicros;
+        if (error) {
+            errors++;
+        }
+    }
+
+    public synchronized String report(double seconds) {
+        long[] sorted = Arrays.copyOf(latenciesMicros, count);
+        Arrays.sort(sorted);
+        return String.format("%-28s %8d %10.1f %9.2f%% %10.1f %10.1f %10.1f %10.1f %8s",
+                name,
+                count,
+                count / seconds,
+                count == 0 ? 0.0 : errors * 100.0 / count,
+                percentile(sorted, 0.50),
+                percentile(sorted, 0.99),
+                percentile(sorted, 0.999),
+                sorted.length == 0 ? 0.0 : sorted[sorted.length - 1] / 1000.0,
+                maxQueries < 0 ? "-" : Long.toString(maxQueries));
+    }
+
+    static String header() {
+        return String.format("%-28s %8s %10s %10s %10s %10s %10s %10s %8s",
+                "endpoint", "requests", "req/s", "errors", "p50 ms", "p99 ms", "p999 ms", "max ms", "max sql");
+    }
+
+    private static double percentile(long[] sorted, double quantile) {
+        if (sorted.length == 0) {
+            return 0.0;
+        }
+        int index = (int) Math.ceil(quantile * sorted.length) - 1;
+        return sorted[Math.max(0, Math.min(index, sorted.length - 1))] / 1000.0;
+    }
+}
@@ -0,0 +1,122 @@
+package com.taskmanager.loadtest;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+// Generator obciążenia: zasila bazę i wysyła żądania w otwartej pętli ze stałą częstotliwością
+public class LoadTest {
+
+    public static void main(String[] argv) throws Exception {
+        LoadTestConfig config = LoadTestConfig.fromArgs(argv);
+        DatabaseSeeder seeder = new DatabaseSeeder(config);
+
+        if (!config.skipSeed) {
+            System.out.printf("Seeding %d users and %d tasks...%n", config.users, config.tasks);
+            seeder.seed();
+        }
+        Map<String, List<Long>> taskIdsByOwner = seeder.loadTaskIdsByOwner();
+
+        Workload workload = new Workload(Workload.forMix(config.mix), config.baseUrl, new TestTokens(config.tokenSecret),
+                seeder.userIds(), taskIdsByOwner);
+        HttpClient client = HttpClient.newBuilder()
+                .connectTimeout(Duration.ofSeconds(5))
+                .executor(Executors.newFixedThreadPool(Math.max(4, Runtime.getRuntime().availableProcessors())))
+                .build();
+
+        Map<String, EndpointStats> stats = new LinkedHashMap<>();
+        for (Workload.Operation operation : workload.operations()) {
+            stats.put(operation.name(), new EndpointStats(operation.name()));
+        }
+
+        if (config.waitReady) {
+            waitUntilReady(client, config.baseUrl);
+        }
+
+        System.out.printf("Warm-up %ds, measuring %ds at %d req/s against %s%n",
+                config.warmup.toSeconds(), config.duration.toSeconds(), config.requestsPerSecond, config.baseUrl);
+        run(client, workload, config, config.warmup, null);
+        ConnectionSampler sampler = config.sampleConnections ? ConnectionSampler.start(config) : null;
+        long measuredNanos = run(client, workload, config, config.duration, stats);
+
+        double seconds = measuredNanos / 1e9;
+        System.out.println();
+        System.out.println(EndpointStats.header());
+        stats.values().forEach(endpoint -> System.out.println(endpoint.report(seconds)));
+        if (sampler != null) {
+            System.out.println();
+            System.out.println(sampler.stopAndReport());
+        }
+        System.exit(0);
+    }
+
+    // Jak balanser po deployu: ruch dopiero gdy /actuator/health/readiness zwraca 200 (np. po rozgrzewce backendu)
+    private static void waitUntilReady(HttpClient client, String baseUrl) throws InterruptedException {
+        HttpRequest request = HttpRequest.newBuilder(URI.create(baseUrl + "/actuator/health/readiness"))
+                .timeout(Duration.ofSeconds(5))
+                .GET()
+                .build();
+        long start = System.nanoTime();
+        while (true) {
+            try {
+                if (client.send(request, HttpResponse.BodyHandlers.discarding()).statusCode() == 200) {
+                    System.out.printf("Backend ready after %.1f s%n", (System.nanoTime() - start) / 1e9);
+                    return;
+                }
+            } catch (IOException e) {
+                // Backend jeszcze nie słucha
+            }
+            if (System.nanoTime() - start > TimeUnit.MINUTES.toNanos(5)) {
+                throw new IllegalStateException("Backend not ready after 5 minutes");
+            }
+            Thread.sleep(200);
+        }
+    }
+
+    // Latencja liczona od zaplanowanego momentu wysłania, żeby przeciążenie nie ukrywało kolejkowania
+    private static long run(HttpClient client, Workload workload, LoadTestConfig config,
+                            Duration duration, Map<String, EndpointStats> stats) throws InterruptedException {
+        long intervalNanos = 1_000_000_000L / Math.max(1, config.requestsPerSecond);
+        long start = System.nanoTime();
+        long end = start + duration.toNanos();
+        ConcurrentLinkedQueue<CompletableFuture<?>> inFlight = new ConcurrentLinkedQueue<>();
+
+        for (long scheduled = start; scheduled < end; scheduled += intervalNanos) {
+            long wait = scheduled - System.nanoTime();
+            if (wait > 0) {
+                LockSupport.parkNanos(wait);
+            }
+            long intendedStart = scheduled;
+            Workload.PlannedRequest planned = workload.next();
+            CompletableFuture<?> future = client.sendAsync(planned.request(), HttpResponse.BodyHandlers.discarding())
+                    .handle((response, error) -> {
+                        if (stats != null) {
+                            boolean failed = error != null || response.statusCode() >= 400;
+                            // Liczba zapytań SQL na żądanie (nagłówek w dev) - ma być stała niezależnie od liczby zadań
+                            long queries = response == null ? -1
+                                    : response.headers().firstValueAsLong("X-Query-Count").orElse(-1);
+                            stats.get(planned.endpoint()).record((System.nanoTime() - intendedStart) / 1000, failed, queries);
+                        }
+                        return null;
+                    });
+            inFlight.add(future);
+            inFlight.removeIf(CompletableFuture::isDone);
+        }
+
+        CompletableFuture.allOf(inFlight.toArray(new CompletableFuture[0]))
+                .completeOnTimeout(null, 30, TimeUnit.SECONDS)
+                .join();
+        return System.nanoTime() - start;
+    }
+}
@@ -0,0 +1,78 @@
+package com.taskmanager.loadtest;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+
+// Parametry z linii poleceń w formacie --klucz=wartość
+public class LoadTestConfig {
+
+    final String baseUrl;
+    final String jdbcUrl;
+    final String dbUser;
+    final String dbPassword;
+    final boolean skipSeed;
+    final int users;
+    final int tasks;
+    final double assignRatio;
+    final double shareRatio;
+    final int maxFanout;
+    final int requestsPerSecond;
+    final Duration duration;
+    final Duration warmup;
+    final long randomSeed;
+    final String tokenSecret;
+    final boolean waitReady;
+    final String mix;
+    final boolean sampleConnections;
+
+    private LoadTestConfig(Map<String, String> args) {
+        baseUrl = args.getOrDefault("base-url", "http://localhost:8080");
+        jdbcUrl = args.getOrDefault("jdbc-url", "jdbc:postgresql://localhost:5432/task_manager?currentSchema=public");
+        dbUser = args.getOrDefault("db-user", "postgres");
+        dbPassword = args.getOrDefault("db-password", "root");
+        skipSeed = Boolean.parseBoolean(args.getOrDefault("skip-seed", "false"));
+        users = Integer.parseInt(args.getOrDefault("users", "100"));
+        tasks = Integer.parseInt(args.getOrDefault("tasks", "10000"));
+        assignRatio = Double.parseDouble(args.getOrDefault("assign-ratio", "0.3"));
+        shareRatio = Double.parseDouble(args.getOrDefault("share-ratio", "0.2"));
+        maxFanout = Integer.parseInt(args.getOrDefault("max-fanout", "5"));
+        requestsPerSecond = Integer.parseInt(args.getOrDefault("rps", "100"));
+        duration = parseDuration(args.getOrDefault("duration", "60s"));
+        warmup = parseDuration(args.getOrDefault("warmup", "10s"));
+        randomSeed = Long.parseLong(args.getOrDefault("seed", "42"));
+        tokenSecret = args.getOrDefault("token-secret", "loadtest-secret-loadtest-secret-loadtest");
+        waitReady = Boolean.parseBoolean(args.getOrDefault("wait-ready", "false"));
+        mix = args.getOrDefault("mix", "mixed");
+        sampleConnections = Boolean.parseBoolean(args.getOrDefault("sample-connections", "false"));
+    }
+
+    static LoadTestConfig fromArgs(String[] argv) {
+        Map<String, String> args = new HashMap<>();
+        for (String arg : argv) {
+            if (!arg.startsWith("--")) {
+                throw new IllegalArgumentException("Unknown argument: " + arg);
+            }
+            int separator = arg.indexOf('=');
+            if (separator < 0) {
+                args.put(arg.substring(2), "true");
+            } else {
+                args.put(arg.substring(2, separator), arg.substring(separator + 1));
+            }
+        }
+        return new LoadTestConfig(args);
+    }
+
+    // Akceptuje 500ms, 30s, 5m
+    private static Duration parseDuration(String value) {
+        if (value.endsWith("ms")) {
+            return Duration.ofMillis(Long.parseLong(value.substring(0, value.length() - 2)));
+        }
+        long amount = Long.parseLong(value.substring(0, value.length() - 1));
+        return switch (value.charAt(value.length() - 1)) {
+            case 's' -> Duration.ofSeconds(amount);
+            case 'm' -> Duration.ofMinutes(amount);
+            default -> throw new IllegalArgumentException("Invalid duration: " + value);
+        };
+    }
+}
@@ -0,0 +1,40 @@
+package com.taskmanager.loadtest;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+// Podpisane tokeny HS256 w formacie Clerk (user ID w "sub")
+public class TestTokens {
+
+    private static final Base64.Encoder ENCODER = Base64.getUrlEncoder().withoutPadding();
+
+    private final byte[] secret;
+
+    public TestTokens(String secret) {
+        this.secret = secret.getBytes(StandardCharsets.UTF_8);
+    }
+
+    public String tokenFor(String userId) {
+        long now = System.currentTimeMillis() / 1000;
+        String header = encode("{\"alg\":\"HS256\",\"typ\":\"JWT\"}");
+        String payload = encode("{\"sub\":\"" + userId + "\",\"iat\":" + now + ",\"exp\":" + (now + 86400) + "}");
+        String signingInput = header + "." + payload;
+        return signingInput + "." + sign(signingInput);
+    }
+
+    private String encode(String json) {
+        return ENCODER.encodeToString(json.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private String sign(String input) {
+        try {
+            Mac mac = Mac.getInstance("HmacSHA256");
+            mac.init(new SecretKeySpec(secret, "HmacSHA256"));
+            return ENCODER.encodeToString(mac.doFinal(input.getBytes(StandardCharsets.UTF_8)));
+        } catch (Exception e) {
+            throw new IllegalStateException("Cannot sign test token", e);
+        }
+    }
+}
@@ -0,0 +1,106 @@
+package com.taskmanager.loadtest;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+// Porównanie JSON / CBOR / Smile dla feedu zadań: rozmiar i czas CPU kodowania/dekodowania.
+// Zadania mają kształt odpowiedzi GET /api/tasks (te same pola, daty jako tekst ISO).
+// Uruchomienie: java -cp target/task-manager-loadtest-1.0.0-jar-with-dependencies.jar \
+//   com.taskmanager.loadtest.WireFormatBenchmark [liczba-zadań] [iteracje]
+public class WireFormatBenchmark {
+
+    private static final String[] STATUSES = {"DO_ZROBIENIA", "W_TRAKCIE", "ZAKONCZONE", "ANULOWANE"};
+    private static final String[] PRIORITIES = {"NISKI", "SREDNI", "WYSOKI", "KRYTYCZNY"};
+    private static final String[] TAGS = {"frontend", "backend", "bug", "feature", "docs", "ops", "research"};
+    private static final TypeReference<List<Map<String, Object>>> FEED_TYPE = new TypeReference<>() {};
+
+    // Wyniki trafiają tutaj, żeby JIT nie wyrzucił mierzonej pracy
+    static volatile long blackhole;
+
+    public static void main(String[] args) throws Exception {
+        int taskCount = args.length > 0 ? Integer.parseInt(args[0]) : 1000;
+        int iterations = args.length > 1 ? Integer.parseInt(args[1]) : 2000;
+        List<Map<String, Object>> feed = buildFeed(taskCount, new Random(42));
+
+        Map<String, ObjectMapper> mappers = new LinkedHashMap<>();
+        mappers.put("json", new ObjectMapper());
+        mappers.put("cbor", new ObjectMapper(new CBORFactory()));
+        mappers.put("smile", new ObjectMapper(new SmileFactory()));
+
+        System.out.printf("Feed: %d zadań, %d iteracji%n", taskCount, iterations);
+        System.out.printf("%-8s %12s %14s %14s %14s%n", "format", "bytes", "encode us/op", "decode us/op", "vs json");
+        long jsonBytes = 0;
+        for (Map.Entry<String, ObjectMapper> entry : mappers.entrySet()) {
+            ObjectMapper mapper = entry.getValue();
+            byte[] encoded = mapper.writeValueAsBytes(feed);
+            if (jsonBytes == 0) {
+                jsonBytes = encoded.length;
+            }
+
+            // Rozgrzewka JIT przed pomiarem
+            for (int i = 0; i < iterations / 4; i++) {
+                mapper.writeValueAsBytes(feed);
+                mapper.readValue(encoded, FEED_TYPE);
+            }
+
+            long sink = 0;
+            long start = System.nanoTime();
+            for (int i = 0; i < iterations; i++) {
+                sink += mapper.writeValueAsBytes(feed).length;
+            }
+            double encodeMicros = (System.nanoTime() - start) / 1000.0 / iterations;
+
+            start = System.nanoTime();
+            for (int i = 0; i < iterations; i++) {
+                sink += mapper.readValue(encoded, FEED_TYPE).size();
+            }
+            double decodeMicros = (System.nanoTime() - start) / 1000.0 / iterations;
+
+            blackhole = sink;
+
+            System.out.printf("%-8s %12d %14.1f %14.1f %13.0f%%%n", entry.getKey(), encoded.length,
+                    encodeMicros, decodeMicros, 100.0 * encoded.length / jsonBytes);
+        }
+    }
+
+    private static List<Map<String, Object>> buildFeed(int taskCount, Random random) {
+        List<Map<String, Object>> feed = new ArrayList<>(taskCount);
+        LocalDateTime now = LocalDateTime.of(2024, 1, 1, 12, 0);
+        for (int i = 0; i < taskCount; i++) {
+            String status = STATUSES[random.nextInt(STATUSES.length)];
+            String priority = PRIORITIES[random.nextInt(PRIORITIES.length)];
+            LocalDateTime createdAt = now.minusMinutes(random.nextInt(500_000));
+
+            Map<String, Object> task = new LinkedHashMap<>();
+            task.put("id", 100_000L + i);
+            task.put("title", "Zadanie testowe " + i);
+            task.put("description", "Opis zadania " + i + " z kilkoma zdaniami tekstu, jak w typowym feedzie.");
+            task.put("status", status);
+            task.put("priority", priority);
+            task.put("dueDate", createdAt.plusDays(random.nextInt(30)).toString());
+            task.put("createdAt", createdAt.toString());
+            task.put("assignedTo", List.of("loadtest-user-" + random.nextInt(200)));
+            task.put("assignedUserNote", null);
+            task.put("tags", Arrays.asList(TAGS[random.nextInt(TAGS.length)], TAGS[random.nextInt(TAGS.length)]));
+            task.put("images", List.of());
+            task.put("sharedWith", List.of());
+            task.put("clerkUserId", "loadtest-user-" + random.nextInt(200));
+            task.put("statusDisplayName", status);
+            task.put("priorityDisplayName", priority);
+            task.put("completed", "ZAKONCZONE".equals(status));
+            task.put("updatedAt", createdAt.toString());
+            feed.add(task);
+        }
+        return feed;
+    }
+}
@@ -0,0 +1,148 @@
+package com.taskmanager.loadtest;
+
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpRequest;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+
+// Mieszanka żądań odwzorowująca typowy ruch: głównie odczyty feedu, trochę zapisów i udostępnień
+public class Workload {
+
+    // Najmniejszy poprawny PNG 1x1
+    private static final byte[] TINY_PNG = Base64.getDecoder().decode(
+            "iVBORw0KGgoAAAANSUhEUgAAAAEAAAABCAYAAAAfFcSJAAAADUlEQVR42mNkYPhfDwAChwGA60e6kgAAAABJRU5ErkJggg==");
+    private static final String MULTIPART_BOUNDARY = "loadtest-boundary";
+
+    record Operation(String name, int weight) {}
+
+    record PlannedRequest(String endpoint, HttpRequest request) {}
+
+    static final List<Operation> MIXED = List.of(
+            new Operation("GET /api/tasks", 45),
+            new Operation("GET /api/tasks/stats/summary", 15),
+            new Operation("GET /api/external-users?search", 15),
+            new Operation("POST /api/tasks", 10),
+            new Operation("POST /api/tasks/{id}/share", 10),
+            new Operation("POST /api/files/upload", 5)
+    );
+
+    // Tylko odczyty obsługiwane przez oba stosy (backend i reactive-read) - do porównania jeden do jednego
+    static final List<Operation> READS = List.of(
+            new Operation("GET /api/tasks", 60),
+            new Operation("GET /api/tasks/{id}", 25),
+            new Operation("GET /api/external-users?search", 15)
+    );
+
+    private final List<Operation> operations;
+    private final String baseUrl;
+    private final TestTokens tokens;
+    private final List<String> users;
+    private final Map<String, List<Long>> taskIdsByOwner;
+    private final List<String> owners;
+    private final int totalWeight;
+
+    public Workload(List<Operation> operations, String baseUrl, TestTokens tokens, List<String> users, Map<String, List<Long>> taskIdsByOwner) {
+        this.operations = operations;
+        this.baseUrl = baseUrl;
+        this.tokens = tokens;
+        this.users = users;
+        this.taskIdsByOwner = taskIdsByOwner;
+        this.owners = new ArrayList<>(taskIdsByOwner.keySet());
+        this.totalWeight = operations.stream().mapToInt(Operation::weight).sum();
+    }
+
+    static List<Operation> forMix(String mix) {
+        return switch (mix) {
+            case "mixed" -> MIXED;
+            case "reads" -> READS;
+            default -> throw new IllegalArgumentException("Unknown mix: " + mix);
+        };
+    }
+
+    public List<Operation> operations() {
+        return operations;
+    }
+
+    public PlannedRequest next() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int roll = random.nextInt(totalWeight);
+        for (Operation operation : operations) {
+            roll -= operation.weight();
+            if (roll < 0) {
+                return new PlannedRequest(operation.name(), build(operation.name(), random));
+            }
+        }
+        throw new IllegalStateException("Unreachable");
+    }
+
+    private HttpRequest build(String operation, ThreadLocalRandom random) {
+        String user = users.get(random.nextInt(users.size()));
+        switch (operation) {
+            case "GET /api/tasks":
+                return authorized("/api/tasks", user).GET().build();
+            case "GET /api/tasks/{id}": {
+                // Zadanie właściciela z jego tokenem - widoczne w obu stosach
+                String owner = owners.isEmpty() ? user : owners.get(random.nextInt(owners.size()));
+                List<Long> ownedIds = taskIdsByOwner.getOrDefault(owner, List.of());
+                long taskId = ownedIds.isEmpty() ? 0 : ownedIds.get(random.nextInt(ownedIds.size()));
+                return authorized("/api/tasks/" + taskId, owner).GET().build();
+            }
+            case "GET /api/tasks/stats/summary":
+                return authorized("/api/tasks/stats/summary", user).GET().build();
+            case "GET /api/external-users?search": {
+                String term = URLEncoder.encode("Load Test " + random.nextInt(users.size()), StandardCharsets.UTF_8);
+                return authorized("/api/external-users?search=" + term, user).GET().build();
+            }
+            case "POST /api/tasks": {
+                String body = "{\"title\":\"Load test created " + random.nextInt(1_000_000) + "\",\"priority\":\"WYSOKI\"}";
+                return authorized("/api/tasks", user)
+                        .header("Content-Type", "application/json")
+                        .POST(HttpRequest.BodyPublishers.ofString(body))
+                        .build();
+            }
+            case "POST /api/tasks/{id}/share": {
+                // Udostępnia zadanie właściciela, więc żądanie musi iść z jego tokenem
+                String owner = owners.isEmpty() ? user : owners.get(random.nextInt(owners.size()));
+                List<Long> ownedIds = taskIdsByOwner.getOrDefault(owner, List.of());
+                long taskId = ownedIds.isEmpty() ? 0 : ownedIds.get(random.nextInt(ownedIds.size()));
+                String target = users.get(random.nextInt(users.size()));
+                String body = "{\"userIds\":[\"" + target + "\"],\"message\":\"load test\"}";
+                return authorized("/api/tasks/" + taskId + "/share", owner)
+                        .header("Content-Type", "application/json")
+                        .POST(HttpRequest.BodyPublishers.ofString(body))
+                        .build();
+            }
+            case "POST /api/files/upload":
+                return authorized("/api/files/upload", user)
+                        .header("Content-Type", "multipart/form-data; boundary=" + MULTIPART_BOUNDARY)
+                        .POST(HttpRequest.BodyPublishers.ofByteArray(multipartImage()))
+                        .build();
+            default:
+                throw new IllegalArgumentException("Unknown operation: " + operation);
+        }
+    }
+
+    private HttpRequest.Builder authorized(String path, String userId) {
+        return HttpRequest.newBuilder(URI.create(baseUrl + path))
+                .header("Authorization", "Bearer " + tokens.tokenFor(userId));
+    }
+
+    private static byte[] multipartImage() {
+        String head = "--" + MULTIPART_BOUNDARY + "\r\n"
+                + "Content-Disposition: form-data; name=\"files\"; filename=\"loadtest.png\"\r\n"
+                + "Content-Type: image/png\r\n\r\n";
+        String tail = "\r\n--" + MULTIPART_BOUNDARY + "--\r\n";
+        byte[] headBytes = head.getBytes(StandardCharsets.UTF_8);
+        byte[] tailBytes = tail.getBytes(StandardCharsets.UTF_8);
+        byte[] body = new byte[headBytes.length + TINY_PNG.length + tailBytes.length];
+        System.arraycopy(headBytes, 0, body, 0, headBytes.length);
+        System.arraycopy(TINY_PNG, 0, body, headBytes.length, TINY_PNG.length);
+        System.arraycopy(tailBytes, 0, body, headBytes.length + TINY_PNG.length, tailBytes.length);
+        return body;
+    }
+}
@@ -0,0 +1,40 @@
+package com.taskmanager.reactive;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.Optional;
+
+// Clerk User ID z tokenu Bearer ("sub") - te same reguły co ClerkAuthenticationFilter w backendzie
+@Slf4j
+@Component
+public class ClerkTokens {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    public Optional<String> userId(ServerHttpRequest request) {
+        String bearerToken = request.getHeaders().getFirst(HttpHeaders.AUTHORIZATION);
+        if (!StringUtils.hasText(bearerToken) || !bearerToken.startsWith("Bearer ")) {
+            return Optional.empty();
+        }
+        try {
+            String[] chunks = bearerToken.substring(7).split("\\.");
+            if (chunks.length != 3) {
+                return Optional.empty();
+            }
+            JsonNode payload = objectMapper.readTree(new String(Base64.getUrlDecoder().decode(chunks[1]), StandardCharsets.UTF_8));
+            JsonNode sub = payload.get("sub");
+            return sub != null && StringUtils.hasText(sub.asText()) ? Optional.of(sub.asText()) : Optional.empty();
+        } catch (Exception e) {
+            log.warn("Could not parse Clerk token: {}", e.getMessage());
+            return Optional.empty();
+        }
+    }
+}
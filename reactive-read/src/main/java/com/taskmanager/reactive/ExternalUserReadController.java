@@ -0,0 +1,25 @@
+package com.taskmanager.reactive;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import reactor.core.publisher.Flux;
+
+@RestController
+@RequestMapping("/api/external-users")
+@RequiredArgsConstructor
+public class ExternalUserReadController {
+
+    private final ExternalUserReadRepository externalUserReadRepository;
+
+    @GetMapping(produces = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE})
+    public Flux<ExternalUserView> getAllUsers(@RequestParam(required = false) String search) {
+        if (search != null && !search.trim().isEmpty()) {
+            return externalUserReadRepository.search(search);
+        }
+        return externalUserReadRepository.findAll();
+    }
+}
@@ -0,0 +1,46 @@
+package com.taskmanager.reactive;
+
+import io.r2dbc.spi.Readable;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
+
+import java.time.LocalDateTime;
+
+@Repository
+public class ExternalUserReadRepository {
+
+    private static final String COLUMNS = "SELECT id, name, avatar, is_active, created_at, updated_at FROM external_users";
+
+    private final DatabaseClient databaseClient;
+
+    public ExternalUserReadRepository(DatabaseClient databaseClient) {
+        this.databaseClient = databaseClient;
+    }
+
+    public Flux<ExternalUserView> findAll() {
+        return databaseClient.sql(COLUMNS).map(ExternalUserReadRepository::toView).all();
+    }
+
+    // Jak findByNameContainingIgnoreCase w backendzie
+    public Flux<ExternalUserView> search(String term) {
+        return databaseClient.sql(COLUMNS + " WHERE upper(name) LIKE upper(:pattern)")
+                .bind("pattern", "%" + term.trim() + "%")
+                .map(ExternalUserReadRepository::toView)
+                .all();
+    }
+
+    private static ExternalUserView toView(Readable row) {
+        return new ExternalUserView(
+                row.get("id", String.class),
+                row.get("name", String.class),
+                row.get("avatar", String.class),
+                row.get("is_active", Boolean.class),
+                format(row.get("created_at", LocalDateTime.class)),
+                format(row.get("updated_at", LocalDateTime.class)));
+    }
+
+    private static String format(LocalDateTime value) {
+        return value != null ? value.toString() : null;
+    }
+}
@@ -0,0 +1,5 @@
+package com.taskmanager.reactive;
+
+// Użytkownik zewnętrzny w tym samym kształcie JSON co encja ExternalUser w backendzie
+public record ExternalUserView(String id, String name, String avatar, Boolean isActive, String createdAt, String updatedAt) {
+}
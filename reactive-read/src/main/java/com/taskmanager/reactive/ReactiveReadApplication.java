@@ -0,0 +1,14 @@
+package com.taskmanager.reactive;
+
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.autoconfigure.SpringBootApplication;
+
+// Osobny proces tylko do odczytu: feed, pojedyncze zadanie i wyszukiwanie użytkowników zewnętrznych
+// na WebFlux + R2DBC (bez wątku i połączenia JDBC na żądanie). Zapisy zostają w backendzie (servlet/JPA)
+@SpringBootApplication
+public class ReactiveReadApplication {
+
+    public static void main(String[] args) {
+        SpringApplication.run(ReactiveReadApplication.class, args);
+    }
+}
@@ -0,0 +1,80 @@
+package com.taskmanager.reactive;
+
+import com.taskmanager.dto.TaskResponse;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+import java.util.Objects;
+
+// Te same ścieżki co TaskController w backendzie - balanser może kierować tu GET-y.
+// Accept: application/x-ndjson = jedno zadanie na linię, wysyłane w miarę odczytu z bazy (z backpressure).
+// Archiwum (?includeArchived=true) obsługuje tylko backend - tu 400, zamiast po cichu zwracać feed bez archiwum
+@RestController
+@RequestMapping("/api/tasks")
+@RequiredArgsConstructor
+public class TaskReadController {
+
+    // Jak FETCH_BY_ID_CHUNK w TaskService backendu
+    private static final int MAX_IDS = 1000;
+
+    private final TaskReadRepository taskReadRepository;
+    private final ClerkTokens clerkTokens;
+
+    @GetMapping(produces = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE})
+    public Flux<TaskResponse> getUserTasks(
+            ServerHttpRequest request,
+            @RequestParam(required = false) String userEmail,
+            @RequestParam(defaultValue = "false") boolean includeArchived,
+            @RequestParam(name = "tag", required = false) List<String> tags) {
+        String clerkUserId = requireUser(request);
+        if (includeArchived) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "includeArchived is served by the backend only");
+        }
+        return taskReadRepository.findVisible(clerkUserId, userEmail, normalizeTags(tags));
+    }
+
+    // Multi-get: ?ids=1,2,3 - widoczne zadania jednym zapytaniem (kolejność jak w żądaniu, niewidoczne pominięte)
+    @GetMapping(params = "ids", produces = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE})
+    public Flux<TaskResponse> getTasksByIds(
+            ServerHttpRequest request,
+            @RequestParam(required = false) List<Long> ids,
+            @RequestParam(required = false) String userEmail) {
+        String clerkUserId = requireUser(request);
+        List<Long> distinctIds = ids == null ? List.of() : ids.stream().filter(Objects::nonNull).distinct().toList();
+        if (distinctIds.isEmpty()) {
+            return Flux.empty();
+        }
+        if (distinctIds.size() > MAX_IDS) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Maksymalnie " + MAX_IDS + " ID w jednym żądaniu");
+        }
+        return taskReadRepository.findVisibleByIds(distinctIds, clerkUserId, userEmail);
+    }
+
+    @GetMapping("/{taskId}")
+    public Mono<TaskResponse> getTaskById(
+            @PathVariable Long taskId,
+            ServerHttpRequest request,
+            @RequestParam(required = false) String userEmail) {
+        String clerkUserId = requireUser(request);
+        return taskReadRepository.findVisibleById(taskId, clerkUserId, userEmail)
+                .switchIfEmpty(Mono.error(new ResponseStatusException(HttpStatus.NOT_FOUND)));
+    }
+
+    private String requireUser(ServerHttpRequest request) {
+        return clerkTokens.userId(request).orElseThrow(() -> new ResponseStatusException(HttpStatus.UNAUTHORIZED));
+    }
+
+    private List<String> normalizeTags(List<String> tags) {
+        if (tags == null) {
+            return List.of();
+        }
+        return tags.stream().map(String::trim).filter(tag -> !tag.isEmpty()).distinct().toList();
+    }
+}
@@ -0,0 +1,180 @@
+package com.taskmanager.reactive;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.taskmanager.dto.TaskResponse;
+import com.taskmanager.model.Task;
+import com.taskmanager.repository.TaskVisibilitySql;
+import io.r2dbc.spi.Readable;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+// Zapytania do tego samego schematu co backend (tasks + task_comment_stats + task_progress), jedno zapytanie na żądanie.
+// Wiersze idą do klienta w miarę odczytu: fetch-size ogranicza, ile wierszy sterownik pobiera przed zapotrzebowaniem
+@Repository
+public class TaskReadRepository {
+
+    private static final ObjectMapper JSON = new ObjectMapper();
+
+    // Kolumny potrzebne do TaskResponse - to samo mapowanie co TaskResponseMapper w backendzie
+    private static final String TASK_COLUMNS = "SELECT t.id, t.title, t.description_text, t.status, t.priority,"
+            + " t.created_at, t.updated_at, t.due_date, t.completed_at, t.user_id, t.clerk_user_id, t.parent_id,"
+            + " t.assigned_to, t.assigned_user_note, t.assigned_user_note_author, CAST(t.tags AS text) AS tags,"
+            + " t.images, t.shared_with, t.share_requests, t.is_public, t.is_shared_with_me,"
+            + " s.comment_count, s.last_body, s.last_author_id, p.total_count, p.completed_count"
+            + " FROM tasks t"
+            + " LEFT JOIN task_comment_stats s ON s.task_id = t.id"
+            + " LEFT JOIN task_progress p ON p.task_id = t.id";
+
+    private final DatabaseClient databaseClient;
+    private final int fetchSize;
+
+    public TaskReadRepository(DatabaseClient databaseClient,
+                              @Value("${app.read.fetch-size:500}") int fetchSize) {
+        this.databaseClient = databaseClient;
+        this.fetchSize = fetchSize;
+    }
+
+    // Widoczność i kolejność (własne, przypisane/udostępnione, grupy) z TaskVisibilitySql - te same co w backendzie.
+    // tags: zadanie musi mieć wszystkie podane tagi (@> po indeksie GIN)
+    public Flux<TaskResponse> findVisible(String clerkUserId, String userEmail, List<String> tags) {
+        boolean withEmail = TaskVisibilitySql.hasEmail(userEmail);
+        boolean withTags = tags != null && !tags.isEmpty();
+        String sql = TASK_COLUMNS + " WHERE " + TaskVisibilitySql.visibleToUser(withEmail)
+                + (withTags ? " AND t.tags @> CAST(:tags AS jsonb)" : "")
+                + " ORDER BY " + TaskVisibilitySql.feedOrder(withEmail) + ", t.id DESC";
+
+        DatabaseClient.GenericExecuteSpec spec = bindVisibility(databaseClient.sql(sql), clerkUserId, userEmail);
+        if (withTags) {
+            spec = spec.bind("tags", toJson(tags));
+        }
+        return spec.filter(statement -> statement.fetchSize(fetchSize))
+                .map(TaskReadRepository::toResponse)
+                .all();
+    }
+
+    public Mono<TaskResponse> findVisibleById(Long taskId, String clerkUserId, String userEmail) {
+        String sql = TASK_COLUMNS + " WHERE t.id = :taskId AND " + TaskVisibilitySql.visibleToUser(TaskVisibilitySql.hasEmail(userEmail));
+        return bindVisibility(databaseClient.sql(sql), clerkUserId, userEmail)
+                .bind("taskId", taskId)
+                .map(TaskReadRepository::toResponse)
+                .one();
+    }
+
+    // Multi-get jak GET /api/tasks?ids= w backendzie: kolejność jak w żądaniu, niewidoczne pominięte
+    public Flux<TaskResponse> findVisibleByIds(List<Long> ids, String clerkUserId, String userEmail) {
+        String sql = TASK_COLUMNS + " WHERE t.id = ANY(:ids) AND " + TaskVisibilitySql.visibleToUser(TaskVisibilitySql.hasEmail(userEmail))
+                + " ORDER BY array_position(:ids, t.id)";
+        return bindVisibility(databaseClient.sql(sql), clerkUserId, userEmail)
+                .bind("ids", ids.toArray(new Long[0]))
+                .map(TaskReadRepository::toResponse)
+                .all();
+    }
+
+    private static DatabaseClient.GenericExecuteSpec bindVisibility(DatabaseClient.GenericExecuteSpec spec, String clerkUserId, String userEmail) {
+        spec = spec.bind("clerkUserId", clerkUserId).bind("userPattern", TaskVisibilitySql.memberPattern(clerkUserId));
+        if (TaskVisibilitySql.hasEmail(userEmail)) {
+            spec = spec.bind("userEmail", userEmail.trim()).bind("emailPattern", TaskVisibilitySql.memberPattern(userEmail.trim()));
+        }
+        return spec;
+    }
+
+    private static TaskResponse toResponse(Readable row) {
+        TaskResponse response = new TaskResponse();
+        Long id = row.get("id", Long.class);
+        response.setId(id);
+        response.setLegacyId(id != null ? id.toString() : null);
+        response.setTitle(row.get("title", String.class));
+        response.setDescription(row.get("description_text", String.class));
+        Task.TaskStatus status = Task.TaskStatus.valueOf(row.get("status", String.class));
+        response.setStatus(status);
+        response.setPriority(Task.TaskPriority.valueOf(row.get("priority", String.class)));
+
+        LocalDateTime createdAt = row.get("created_at", LocalDateTime.class);
+        LocalDateTime updatedAt = row.get("updated_at", LocalDateTime.class);
+        LocalDateTime completedAt = row.get("completed_at", LocalDateTime.class);
+        String updated = format(updatedAt != null ? updatedAt : createdAt);
+        response.setCreatedAt(format(createdAt));
+        response.setUpdatedAt(updated);
+        response.setDueDate(format(row.get("due_date", LocalDateTime.class)));
+        response.setCompletedAt(status != Task.TaskStatus.ZAKONCZONE ? null : completedAt != null ? format(completedAt) : updated);
+
+        Long userId = row.get("user_id", Long.class);
+        response.setUserId(userId != null ? userId.toString() : null);
+        response.setClerkUserId(row.get("clerk_user_id", String.class));
+        response.setParentId(row.get("parent_id", Long.class));
+        response.setAssignedTo(assignedTo(row.get("assigned_to", String.class)));
+
+        // Notatka = ostatni komentarz, starsze zadania bez wątku - kolumny notatki
+        String lastBody = row.get("last_body", String.class);
+        if (lastBody != null) {
+            response.setAssignedUserNote(lastBody);
+            response.setAssignedUserNoteAuthor(row.get("last_author_id", String.class));
+        } else {
+            response.setAssignedUserNote(row.get("assigned_user_note", String.class));
+            response.setAssignedUserNoteAuthor(row.get("assigned_user_note_author", String.class));
+        }
+        response.setCommentCount(count(row.get("comment_count", Long.class)));
+        response.setSubtaskCount(count(row.get("total_count", Long.class)));
+        response.setCompletedSubtasks(count(row.get("completed_count", Long.class)));
+
+        response.setTags(jsonArray(row.get("tags", String.class)));
+        response.setImages(jsonArray(row.get("images", String.class)));
+        response.setSharedWith(jsonArray(row.get("shared_with", String.class)));
+        response.setShareRequests(jsonArray(row.get("share_requests", String.class)));
+        response.setIsPublic(row.get("is_public", Boolean.class));
+        response.setIsSharedWithMe(row.get("is_shared_with_me", Boolean.class));
+        return response;
+    }
+
+    private static String format(LocalDateTime value) {
+        return value != null ? value.toString() : null;
+    }
+
+    private static long count(Long value) {
+        return value != null ? value : 0;
+    }
+
+    // Tablica JSON w kolumnie tekstowej; błędna wartość = brak elementów (jak gettery encji Task)
+    private static String[] jsonArray(String raw) {
+        if (raw == null || raw.trim().isEmpty()) {
+            return new String[0];
+        }
+        try {
+            String[] values = JSON.readValue(raw, String[].class);
+            return values != null ? values : new String[0];
+        } catch (Exception e) {
+            return new String[0];
+        }
+    }
+
+    // Stare wiersze mają w assigned_to pojedynczy ID zamiast tablicy JSON
+    private static String[] assignedTo(String raw) {
+        if (raw == null || raw.trim().isEmpty()) {
+            return new String[0];
+        }
+        String trimmed = raw.trim();
+        if (trimmed.startsWith("[") && trimmed.endsWith("]")) {
+            try {
+                return JSON.readValue(trimmed, String[].class);
+            } catch (Exception e) {
+                return new String[]{trimmed};
+            }
+        }
+        return new String[]{trimmed};
+    }
+
+    private static String toJson(List<String> values) {
+        try {
+            return JSON.writeValueAsString(values);
+        } catch (JsonProcessingException e) {
+            throw new RuntimeException("Could not serialize tag filter", e);
+        }
+    }
+}